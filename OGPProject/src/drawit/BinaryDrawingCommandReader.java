@@ -0,0 +1,117 @@
+package drawit;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes drawing commands in the format written by {@link BinaryDrawingCommandWriter}.
+ */
+public class BinaryDrawingCommandReader {
+	
+	private BinaryDrawingCommandReader() {
+	}
+	
+	/**
+	 * Reads one length-prefixed block of commands from the given stream and passes them, in order, to the given consumer.
+	 * The commands are decoded as they are read, so that the size in the prefix does not decide how much memory is
+	 * allocated; if the block turns out to be truncated or malformed, the commands before the problem have been passed.
+	 * 
+	 * @mutates | in
+	 * 
+	 * @throws IllegalArgumentException if argument {@code in} or argument {@code consumer} is {@code null}.
+	 *    | in == null || consumer == null
+	 * @throws IOException if the stream throws it, ends before the block does, or the block is not well-formed.
+	 */
+	public static void read(InputStream in, DrawingCommandConsumer consumer) throws IOException {
+		if (in == null || consumer == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		
+		DataInputStream data = new DataInputStream(in);
+		int size = data.readInt();
+		if (size < 0) {
+			throw new IOException("negative block size");
+		}
+		decode(data, size, consumer);
+	}
+	
+	/**
+	 * Passes the commands in the length-prefixed block at the start of the given array, in order, to the given consumer.
+	 * 
+	 * @inspects | bytes
+	 * 
+	 * @throws IllegalArgumentException if argument {@code bytes} or argument {@code consumer} is {@code null}.
+	 *    | bytes == null || consumer == null
+	 * @throws IllegalArgumentException if the array does not start with a well-formed block.
+	 */
+	public static void read(byte[] bytes, DrawingCommandConsumer consumer) {
+		if (bytes == null || consumer == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (bytes.length < 4) {
+			throw new IllegalArgumentException("block size missing");
+		}
+		
+		int size = ByteBuffer.wrap(bytes).getInt();
+		if (size < 0 || bytes.length - 4 < size) {
+			throw new IllegalArgumentException("block size out of range");
+		}
+		try {
+			decode(new DataInputStream(new ByteArrayInputStream(bytes, 4, size)), size, consumer);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Reads the given number of bytes of commands from the given stream and passes the commands to the given consumer.
+	 */
+	private static void decode(DataInputStream data, int size, DrawingCommandConsumer consumer) throws IOException {
+		int remaining = size;
+		while (remaining > 0) {
+			int opcode = data.readByte();
+			remaining--;
+			switch (opcode) {
+			case BinaryDrawingCommandWriter.PUSH_TRANSLATE:
+				remaining = take(remaining, 2 * Double.BYTES);
+				consumer.pushTranslate(data.readDouble(), data.readDouble());
+				break;
+			case BinaryDrawingCommandWriter.PUSH_SCALE:
+				remaining = take(remaining, 2 * Double.BYTES);
+				consumer.pushScale(data.readDouble(), data.readDouble());
+				break;
+			case BinaryDrawingCommandWriter.POP_TRANSFORM:
+				consumer.popTransform();
+				break;
+			case BinaryDrawingCommandWriter.LINE:
+				remaining = take(remaining, 4 * Double.BYTES);
+				consumer.line(data.readDouble(), data.readDouble(), data.readDouble(), data.readDouble());
+				break;
+			case BinaryDrawingCommandWriter.ARC:
+				remaining = take(remaining, 5 * Double.BYTES);
+				consumer.arc(data.readDouble(), data.readDouble(), data.readDouble(), data.readDouble(), data.readDouble());
+				break;
+			case BinaryDrawingCommandWriter.FILL:
+				remaining = take(remaining, 3);
+				consumer.fill(data.readUnsignedByte(), data.readUnsignedByte(), data.readUnsignedByte());
+				break;
+			default:
+				throw new IOException("unknown opcode " + opcode);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of bytes left in the block after the arguments of a command, which take the given number of bytes.
+	 */
+	private static int take(int remaining, int argumentBytes) throws IOException {
+		if (remaining < argumentBytes) {
+			throw new IOException("truncated command");
+		}
+		return remaining - argumentBytes;
+	}
+	
+}
@@ -0,0 +1,181 @@
+package drawit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Encodes drawing commands in a compact binary format, so that they can be passed to another process without
+ * formatting the numbers as text and parsing them back.
+ * 
+ * The commands are encoded as a 4-byte length, followed by that many bytes of commands. Each command is an opcode
+ * byte followed by its arguments: doubles as 8 bytes each, so that they are passed on exactly, and color components
+ * as one byte each. All multi-byte values are big-endian, as in {@link java.io.DataOutput}.
+ * {@link BinaryDrawingCommandReader} decodes this format.
+ */
+public class BinaryDrawingCommandWriter implements DrawingCommandConsumer {
+	
+	static final int PUSH_TRANSLATE = 1;
+	static final int PUSH_SCALE = 2;
+	static final int POP_TRANSFORM = 3;
+	static final int LINE = 4;
+	static final int ARC = 5;
+	static final int FILL = 6;
+	
+	/**
+	 * @invar | bytes != null
+	 * @invar | 0 <= size && size <= bytes.length
+	 * 
+	 * @representationObject
+	 */
+	private byte[] bytes = new byte[256];
+	private int size;
+	
+	/**
+	 * Initializes this writer with no commands.
+	 * 
+	 * @post | getSize() == 0
+	 */
+	public BinaryDrawingCommandWriter() {
+	}
+	
+	/**
+	 * Returns the number of bytes of the commands written so far, without the length prefix.
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	private void ensureCapacity(int extra) {
+		if (bytes.length - size < extra) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+		}
+	}
+	
+	private void putByte(int value) {
+		bytes[size++] = (byte) value;
+	}
+	
+	private void putDouble(double value) {
+		long bits = Double.doubleToRawLongBits(value);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			bytes[size++] = (byte) (bits >>> shift);
+		}
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushTranslate(double dx, double dy) {
+		ensureCapacity(1 + 2 * Double.BYTES);
+		putByte(PUSH_TRANSLATE);
+		putDouble(dx);
+		putDouble(dy);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushScale(double sx, double sy) {
+		ensureCapacity(1 + 2 * Double.BYTES);
+		putByte(PUSH_SCALE);
+		putDouble(sx);
+		putDouble(sy);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void popTransform() {
+		ensureCapacity(1);
+		putByte(POP_TRANSFORM);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void line(double x1, double y1, double x2, double y2) {
+		ensureCapacity(1 + 4 * Double.BYTES);
+		putByte(LINE);
+		putDouble(x1);
+		putDouble(y1);
+		putDouble(x2);
+		putDouble(y2);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void arc(double x, double y, double radius, double startAngle, double extentAngle) {
+		ensureCapacity(1 + 5 * Double.BYTES);
+		putByte(ARC);
+		putDouble(x);
+		putDouble(y);
+		putDouble(radius);
+		putDouble(startAngle);
+		putDouble(extentAngle);
+	}
+	
+	/**
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if a color component is not between 0 and 255 (inclusive).
+	 *    | !(0 <= red && red <= 255 && 0 <= green && green <= 255 && 0 <= blue && blue <= 255)
+	 */
+	@Override
+	public void fill(int red, int green, int blue) {
+		if (!(0 <= red && red <= 255 && 0 <= green && green <= 255 && 0 <= blue && blue <= 255)) {
+			throw new IllegalArgumentException("color component out of range");
+		}
+		
+		ensureCapacity(4);
+		putByte(FILL);
+		putByte(red);
+		putByte(green);
+		putByte(blue);
+	}
+	
+	/**
+	 * Returns the length-prefixed encoding of the commands written so far.
+	 * 
+	 * @creates | result
+	 * 
+	 * @post | result.length == 4 + getSize()
+	 */
+	public byte[] toByteArray() {
+		byte[] result = new byte[4 + size];
+		result[0] = (byte) (size >>> 24);
+		result[1] = (byte) (size >>> 16);
+		result[2] = (byte) (size >>> 8);
+		result[3] = (byte) size;
+		System.arraycopy(bytes, 0, result, 4, size);
+		return result;
+	}
+	
+	/**
+	 * Writes the length-prefixed encoding of the commands written so far to the given stream.
+	 * 
+	 * @mutates | out
+	 * 
+	 * @throws IllegalArgumentException if argument {@code out} is {@code null}.
+	 *    | out == null
+	 * @throws IOException if the stream throws it.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		if (out == null) {
+			throw new IllegalArgumentException("out is null");
+		}
+		
+		out.write(size >>> 24);
+		out.write(size >>> 16);
+		out.write(size >>> 8);
+		out.write(size);
+		out.write(bytes, 0, size);
+	}
+	
+}
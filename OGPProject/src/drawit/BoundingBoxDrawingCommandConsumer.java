@@ -0,0 +1,166 @@
+package drawit;
+
+/**
+ * Accumulates the bounding box of the lines and arcs it receives, in the coordinate system the commands start in,
+ * without drawing anything. The box of an arc is that of the arc itself, not of its whole circle.
+ */
+public class BoundingBoxDrawingCommandConsumer implements DrawingCommandConsumer {
+	
+	private static final double QUARTER_TURN = Math.PI / 2;
+	
+	/**
+	 * @invar | transforms != null
+	 * @invar | empty || left <= right && top <= bottom
+	 * 
+	 * @representationObject
+	 */
+	private final TransformStack transforms = new TransformStack(1, 1, 0, 0);
+	private boolean empty = true;
+	private double left;
+	private double top;
+	private double right;
+	private double bottom;
+	
+	/**
+	 * Returns {@code true} iff no line or arc with finite coordinates has been received.
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+	
+	/**
+	 * Returns the smallest X coordinate of the lines and arcs received.
+	 * 
+	 * @throws IllegalStateException if no line or arc has been received.
+	 *    | isEmpty()
+	 */
+	public double getLeft() {
+		checkNotEmpty();
+		return left;
+	}
+	
+	/**
+	 * Returns the smallest Y coordinate of the lines and arcs received.
+	 * 
+	 * @throws IllegalStateException if no line or arc has been received.
+	 *    | isEmpty()
+	 */
+	public double getTop() {
+		checkNotEmpty();
+		return top;
+	}
+	
+	/**
+	 * Returns the largest X coordinate of the lines and arcs received.
+	 * 
+	 * @throws IllegalStateException if no line or arc has been received.
+	 *    | isEmpty()
+	 */
+	public double getRight() {
+		checkNotEmpty();
+		return right;
+	}
+	
+	/**
+	 * Returns the largest Y coordinate of the lines and arcs received.
+	 * 
+	 * @throws IllegalStateException if no line or arc has been received.
+	 *    | isEmpty()
+	 */
+	public double getBottom() {
+		checkNotEmpty();
+		return bottom;
+	}
+	
+	private void checkNotEmpty() {
+		if (empty) {
+			throw new IllegalStateException("nothing was drawn");
+		}
+	}
+	
+	private void include(double x, double y) {
+		if (!(Double.isFinite(x) && Double.isFinite(y))) {
+			return;
+		}
+		if (empty) {
+			left = right = x;
+			top = bottom = y;
+			empty = false;
+		} else {
+			left = Math.min(left, x);
+			top = Math.min(top, y);
+			right = Math.max(right, x);
+			bottom = Math.max(bottom, y);
+		}
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushTranslate(double dx, double dy) {
+		transforms.pushTranslate(dx, dy);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushScale(double sx, double sy) {
+		transforms.pushScale(sx, sy);
+	}
+	
+	/**
+	 * @mutates | this
+	 * 
+	 * @throws IllegalStateException if no transformation has been pushed that has not been popped yet.
+	 */
+	@Override
+	public void popTransform() {
+		transforms.pop();
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void line(double x1, double y1, double x2, double y2) {
+		include(transforms.transformX(x1), transforms.transformY(y1));
+		include(transforms.transformX(x2), transforms.transformY(y2));
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void arc(double x, double y, double radius, double startAngle, double extentAngle) {
+		double centerX = transforms.transformX(x);
+		double centerY = transforms.transformY(y);
+		double radiusX = transforms.getScaleX() * radius;
+		double radiusY = transforms.getScaleY() * radius;
+		double from = Math.min(startAngle, startAngle + extentAngle);
+		double to = Math.max(startAngle, startAngle + extentAngle);
+		
+		include(centerX + radiusX * Math.cos(startAngle), centerY + radiusY * Math.sin(startAngle));
+		include(centerX + radiusX * Math.cos(startAngle + extentAngle), centerY + radiusY * Math.sin(startAngle + extentAngle));
+		if (!(to - from < 4 * QUARTER_TURN)) {
+			// A full turn or more reaches all four extremes of the ellipse.
+			from = 0;
+			to = 3 * QUARTER_TURN;
+		}
+		// The extremes of the ellipse lie at the multiples of a quarter turn within the arc.
+		double first = Math.ceil(from / QUARTER_TURN);
+		for (int k = 0; k < 4 && (first + k) * QUARTER_TURN <= to; k++) {
+			double angle = (first + k) * QUARTER_TURN;
+			include(centerX + radiusX * Math.cos(angle), centerY + radiusY * Math.sin(angle));
+		}
+	}
+	
+	/**
+	 * Does nothing: a fill lies within the outline drawn before it.
+	 */
+	@Override
+	public void fill(int red, int green, int blue) {
+	}
+	
+}
@@ -0,0 +1,174 @@
+package drawit;
+
+/**
+ * Answers {@link RoundedPolygon#contains(IntPoint)} for a fixed convex polygon in logarithmic time.
+ *
+ * The boundary of a convex polygon consists of two chains running from a topmost to a bottommost vertex, along each of
+ * which the Y coordinate never goes back. A horizontal line therefore crosses at most one edge of each chain, and both
+ * that edge and the vertices on the line can be found by binary search. The result is exactly that of the ray-crossing
+ * scan in {@code contains}: the crossing edges are evaluated with the scan's own formula.
+ */
+class ConvexChains {
+
+	/**
+	 * Coordinates beyond this bound make the orientation tests below overflow.
+	 */
+	private static final int COORDINATE_LIMIT = 1 << 30;
+
+	/**
+	 * The first chain runs forward from vertex {@code top} to vertex {@code bottom} and has {@code downLength} edges;
+	 * the second one runs forward from {@code bottom} back to {@code top} and has {@code upLength} edges.
+	 *
+	 * @invar | xs.length == ys.length
+	 * @invar | downLength + upLength == xs.length
+	 */
+	private final int[] xs;
+	private final int[] ys;
+	private final int top;
+	private final int bottom;
+	private final int downLength;
+	private final int upLength;
+
+	private ConvexChains(int[] xs, int[] ys, int top, int bottom) {
+		this.xs = xs;
+		this.ys = ys;
+		this.top = top;
+		this.bottom = bottom;
+		this.downLength = (bottom - top + xs.length) % xs.length;
+		this.upLength = xs.length - downLength;
+	}
+
+	/**
+	 * Returns the chains of the proper polygon with the given vertex coordinates, or {@code null} if it is not convex,
+	 * or its coordinates are too large to tell. The arrays are not copied and must not change while the chains are in use.
+	 *
+	 * @pre The given coordinates define a proper polygon with at least 3 vertices.
+	 *    | 3 <= xs.length && PointArrays.checkDefinesProperPolygon(xs, ys) == null
+	 */
+	static ConvexChains build(int[] xs, int[] ys) {
+		int n = xs.length;
+		int top = 0;
+		int bottom = 0;
+		boolean left = false;
+		boolean right = false;
+		for (int i = 0; i < n; i++) {
+			if (Math.abs(xs[i]) > COORDINATE_LIMIT || Math.abs(ys[i]) > COORDINATE_LIMIT) {
+				return null;
+			}
+			int j = (i + 1) % n;
+			int k = (i + 2) % n;
+			long turn = ((long) xs[j] - xs[i]) * ((long) ys[k] - ys[j]) - ((long) ys[j] - ys[i]) * ((long) xs[k] - xs[j]);
+			left |= turn < 0;
+			right |= turn > 0;
+			if (ys[i] < ys[top]) {
+				top = i;
+			}
+			if (ys[i] > ys[bottom]) {
+				bottom = i;
+			}
+		}
+		// A simple polygon that turns the same way at every vertex is convex.
+		if (left && right || top == bottom) {
+			return null;
+		}
+		return new ConvexChains(xs, ys, top, bottom);
+	}
+
+	private int vertex(int start, int position) {
+		return (start + position) % xs.length;
+	}
+
+	/**
+	 * Returns the first position in {@code [0, length]} on the chain starting at vertex {@code start} at which
+	 * {@code direction * y} exceeds {@code direction * py}, or reaches it if {@code inclusive}. The chain must be
+	 * ordered by {@code direction * y}.
+	 */
+	private int search(int start, int length, int direction, int py, boolean inclusive) {
+		int from = 0;
+		int to = length + 1;
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			long difference = direction * ((long) ys[vertex(start, middle)] - py);
+			if (difference > 0 || inclusive && difference == 0) {
+				to = middle;
+			} else {
+				from = middle + 1;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * Returns {@code true} if one of the vertices at the positions {@code [from, to)} on the chain starting at vertex
+	 * {@code start}, which all lie on the same horizontal line, has X coordinate {@code px}.
+	 */
+	private boolean hasVertexAt(int start, int from, int to, int px) {
+		if (from == to) {
+			return false;
+		}
+		// Along a horizontal stretch of a convex polygon, X moves in one direction only.
+		int direction = xs[vertex(start, to - 1)] < xs[vertex(start, from)] ? -1 : 1;
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			long difference = direction * ((long) xs[vertex(start, middle)] - px);
+			if (difference == 0) {
+				return true;
+			}
+			if (difference > 0) {
+				to = middle;
+			} else {
+				from = middle + 1;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns 1 if edge {@code e} crosses the horizontal line through {@code py} to the right of {@code px} according
+	 * to the scan's formula, 0 if it crosses to the left, and -1 if it passes through the point.
+	 */
+	private int crossing(int e, int px, int py) {
+		int f = (e + 1) % xs.length;
+		int intersectX = xs[e] + (xs[f] - xs[e]) * (py - ys[e]) / (ys[f] - ys[e]);
+		if (px == intersectX) {
+			return -1;
+		}
+		return px < intersectX ? 1 : 0;
+	}
+
+	/**
+	 * Returns the same result as {@link RoundedPolygon#contains(IntPoint)} for the point (px, py).
+	 */
+	boolean contains(int px, int py) {
+		if (py < ys[top] || ys[bottom] < py) {
+			return false;
+		}
+
+		// On the way down, the vertices on the line are at [downFrom, downTo), and the edge ending at downFrom crosses it.
+		int downFrom = search(top, downLength, 1, py, true);
+		int downTo = search(top, downLength, 1, py, false);
+		// On the way up, the vertices on the line are at [upFrom, upTo), and the edge ending at upTo crosses it.
+		int upFrom = search(bottom, upLength, -1, py, true);
+		int upTo = search(bottom, upLength, -1, py, false);
+		if (hasVertexAt(top, downFrom, downTo, px) || hasVertexAt(bottom, upFrom, upTo, px)) {
+			return true;
+		}
+
+		int crossings = 0;
+		if (0 < downFrom) {
+			int result = crossing(vertex(top, downFrom - 1), px, py);
+			if (result < 0) {
+				return true;
+			}
+			crossings += result;
+		}
+		if (upTo <= upLength) {
+			int result = crossing(vertex(bottom, upTo - 1), px, py);
+			if (result < 0) {
+				return true;
+			}
+			crossings += result;
+		}
+		return crossings == 1;
+	}
+}
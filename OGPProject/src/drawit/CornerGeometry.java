@@ -0,0 +1,118 @@
+package drawit;
+
+/**
+ * Computes the rounded corners of a polygon as a table of doubles, with {@code STRIDE} entries per corner.
+ *
+ * Corner {@code i} rounds vertex {@code i + 1} (modulo the vertex count): it is the arc from the cut point on the edge
+ * towards vertex {@code i}, to the cut point on the edge towards vertex {@code i + 2}. The values are computed with
+ * exactly the arithmetic of {@link RoundedPolygon#getDrawingCommands()}.
+ */
+class CornerGeometry {
+
+	/** The cut point on the edge towards the previous vertex. */
+	static final int BA_CUT_X = 0;
+	static final int BA_CUT_Y = 1;
+	/** The cut point on the edge towards the next vertex. */
+	static final int BC_CUT_X = 2;
+	static final int BC_CUT_Y = 3;
+	/** The center of the arc. */
+	static final int CENTER_X = 4;
+	static final int CENTER_Y = 5;
+	static final int RADIUS = 6;
+	static final int START_ANGLE = 7;
+	/** The angle extent of the arc; zero if the corner is not rounded. */
+	static final int EXTENT_ANGLE = 8;
+	/**
+	 * 1 if the corner is convex, so that rounding it removes area; -1 if it is reflex, so that rounding it adds area;
+	 * 0 if the edges meeting at it are collinear.
+	 */
+	static final int BEND = 9;
+	static final int STRIDE = 10;
+
+	private CornerGeometry() {
+	}
+
+	private static double size(double x, double y) {
+		return Math.pow(Math.pow(x, 2) + Math.pow(y, 2), 0.5);
+	}
+
+	/**
+	 * Returns the corner table of the polygon with the given vertex coordinates and corner radius.
+	 *
+	 * @creates | result
+	 *
+	 * @pre The given coordinates define a proper polygon with at least 3 vertices.
+	 *    | 3 <= xs.length && PointArrays.checkDefinesProperPolygon(xs, ys) == null
+	 * @pre | 0 <= radius
+	 */
+	static double[] compute(int[] xs, int[] ys, int radius) {
+		int n = xs.length;
+
+		// Twice the signed area, relative to the first vertex; its sign tells which way the polygon turns.
+		double area = 0;
+		for (int i = 1; i + 1 < n; i++) {
+			area += ((double) xs[i] - xs[0]) * ((double) ys[i + 1] - ys[0]) - ((double) ys[i] - ys[0]) * ((double) xs[i + 1] - xs[0]);
+		}
+
+		double[] table = new double[n * STRIDE];
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			int k = (i + 2) % n;
+			int ax = xs[i];
+			int ay = ys[i];
+			int bx = xs[j];
+			int by = ys[j];
+			int cx = xs[k];
+			int cy = ys[k];
+
+			double baX = ax - bx;
+			double baY = ay - by;
+			double bcX = cx - bx;
+			double bcY = cy - by;
+			double baSize = size(baX, baY);
+			double bcSize = size(bcX, bcY);
+			double baUnitX = baX / baSize;
+			double baUnitY = baY / baSize;
+			double bisectorX = baUnitX + bcX / bcSize;
+			double bisectorY = baUnitY + bcY / bcSize;
+			double bisectorSize = size(bisectorX, bisectorY);
+			double bisectorUnitX = bisectorX / bisectorSize;
+			double bisectorUnitY = bisectorY / bisectorSize;
+
+			double unitCutOff = Math.abs(baUnitX * bisectorUnitX + baUnitY * bisectorUnitY);
+			double unitRadius = Math.abs(bisectorUnitX * baUnitY - bisectorUnitY * baUnitX);
+			double scaleFactor = Math.min(radius / unitRadius, Math.min(baSize / 2, bcSize / 2) / unitCutOff);
+			double cutOff = unitCutOff * scaleFactor;
+
+			double baCutX = bx + baX / baSize * cutOff;
+			double baCutY = by + baY / baSize * cutOff;
+			double bcCutX = bx + bcX / bcSize * cutOff;
+			double bcCutY = by + bcY / bcSize * cutOff;
+			double centerX = bx + bisectorX / bisectorSize * scaleFactor;
+			double centerY = by + bisectorY / bisectorSize * scaleFactor;
+
+			double startAngle = Math.atan2(baCutY - centerY, baCutX - centerX);
+			double endAngle = Math.atan2(bcCutY - centerY, bcCutX - centerX);
+			double extentAngle = endAngle - startAngle;
+			if (extentAngle > Math.PI) {
+				extentAngle -= Math.PI * 2;
+			} else if (extentAngle <= -Math.PI) {
+				extentAngle += Math.PI * 2;
+			}
+
+			int offset = i * STRIDE;
+			table[offset + BA_CUT_X] = baCutX;
+			table[offset + BA_CUT_Y] = baCutY;
+			table[offset + BC_CUT_X] = bcCutX;
+			table[offset + BC_CUT_Y] = bcCutY;
+			table[offset + CENTER_X] = centerX;
+			table[offset + CENTER_Y] = centerY;
+			table[offset + RADIUS] = unitRadius * scaleFactor;
+			table[offset + START_ANGLE] = startAngle;
+			table[offset + EXTENT_ANGLE] = extentAngle;
+			double turn = -baX * bcY + baY * bcX;
+			table[offset + BEND] = Math.signum(turn * area);
+		}
+		return table;
+	}
+}
@@ -0,0 +1,194 @@
+package drawit;
+
+/**
+ * A uniform grid over the rounded corners of a polygon, used to find the corner whose cut-off region contains a point
+ * without testing every corner.
+ *
+ * Each rounded corner is registered in every cell its bounding box overlaps; the box is that of the corner's vertex,
+ * cut points and arc center, which holds the region between the vertex, the cut points and the arc. Corners that are
+ * not rounded are not registered.
+ */
+class CornerIndex {
+
+	/**
+	 * @invar | 0 < cellSize
+	 * @invar | 0 < columns && 0 < rows
+	 * @invar | cellStarts.length == columns * rows + 1
+	 * @invar The corners registered in cell {@code c} are {@code cellCorners[cellStarts[c]]} up to
+	 *        {@code cellCorners[cellStarts[c + 1]]} (exclusive), in ascending order.
+	 */
+	private final int[] xs;
+	private final int[] ys;
+	private final double[] corners;
+	private final double originX;
+	private final double originY;
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	private final int[] cellStarts;
+	private final int[] cellCorners;
+
+	/**
+	 * Initializes this index for the corners in the given table of the polygon with the given vertex coordinates.
+	 * The arrays are not copied and must not change while the index is in use.
+	 *
+	 * @pre {@code corners} is the table {@link CornerGeometry#compute(int[], int[], int)} returns for the vertices.
+	 */
+	CornerIndex(int[] xs, int[] ys, double[] corners) {
+		this.xs = xs;
+		this.ys = ys;
+		this.corners = corners;
+		int n = xs.length;
+
+		double[] boxes = new double[4 * n];
+		double left = Double.POSITIVE_INFINITY;
+		double top = Double.POSITIVE_INFINITY;
+		double right = Double.NEGATIVE_INFINITY;
+		double bottom = Double.NEGATIVE_INFINITY;
+		double spans = 0;
+		int rounded = 0;
+		for (int i = 0; i < n; i++) {
+			int offset = i * CornerGeometry.STRIDE;
+			if (!isRounded(offset)) {
+				continue;
+			}
+			// The box is computed exactly as in isCutOff, so that no point that passes its box test falls outside it.
+			int bx = xs[(i + 1) % n];
+			int by = ys[(i + 1) % n];
+			double centerX = corners[offset + CornerGeometry.CENTER_X];
+			double centerY = corners[offset + CornerGeometry.CENTER_Y];
+			double ux = corners[offset + CornerGeometry.BA_CUT_X] - bx;
+			double uy = corners[offset + CornerGeometry.BA_CUT_Y] - by;
+			double vx = corners[offset + CornerGeometry.BC_CUT_X] - bx;
+			double vy = corners[offset + CornerGeometry.BC_CUT_Y] - by;
+			double boxLeft = Math.min(Math.min(bx, centerX), Math.min(bx + ux, bx + vx));
+			double boxTop = Math.min(Math.min(by, centerY), Math.min(by + uy, by + vy));
+			double boxRight = Math.max(Math.max(bx, centerX), Math.max(bx + ux, bx + vx));
+			double boxBottom = Math.max(Math.max(by, centerY), Math.max(by + uy, by + vy));
+			boxes[4 * i] = boxLeft;
+			boxes[4 * i + 1] = boxTop;
+			boxes[4 * i + 2] = boxRight;
+			boxes[4 * i + 3] = boxBottom;
+			left = Math.min(left, boxLeft);
+			top = Math.min(top, boxTop);
+			right = Math.max(right, boxRight);
+			bottom = Math.max(bottom, boxBottom);
+			spans += Math.max(boxRight - boxLeft, boxBottom - boxTop);
+			rounded++;
+		}
+
+		if (rounded == 0) {
+			left = top = right = bottom = 0;
+		}
+		originX = left;
+		originY = top;
+		// Cells about as large as an average corner keep both the registrations per corner and the corners per cell small.
+		double size = Math.max(1, rounded == 0 ? 1 : spans / rounded);
+		while ((double) cellsAlong(left, right, size) * cellsAlong(top, bottom, size) > 4.0 * n + 64) {
+			size *= 2;
+		}
+		cellSize = size;
+		columns = (int) cellsAlong(left, right, size);
+		rows = (int) cellsAlong(top, bottom, size);
+
+		// Count the registrations per cell first, so that the corners of all cells fit in one array.
+		cellStarts = new int[columns * rows + 1];
+		int[] registered = null;
+		for (int pass = 0; pass < 2; pass++) {
+			int[] next = pass == 0 ? null : cellStarts.clone();
+			for (int i = 0; i < n; i++) {
+				if (!isRounded(i * CornerGeometry.STRIDE)) {
+					continue;
+				}
+				int firstColumn = column(boxes[4 * i]);
+				int lastColumn = column(boxes[4 * i + 2]);
+				int firstRow = row(boxes[4 * i + 1]);
+				int lastRow = row(boxes[4 * i + 3]);
+				for (int r = firstRow; r <= lastRow; r++) {
+					for (int c = firstColumn; c <= lastColumn; c++) {
+						int cell = r * columns + c;
+						if (pass == 0) {
+							cellStarts[cell + 1]++;
+						} else {
+							registered[next[cell]++] = i;
+						}
+					}
+				}
+			}
+			if (pass == 0) {
+				for (int cell = 0; cell < columns * rows; cell++) {
+					cellStarts[cell + 1] += cellStarts[cell];
+				}
+				registered = new int[cellStarts[columns * rows]];
+			}
+		}
+		cellCorners = registered;
+	}
+
+	private static long cellsAlong(double min, double max, double size) {
+		return (long) Math.floor((max - min) / size) + 1;
+	}
+
+	private int column(double x) {
+		return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - originX) / cellSize)));
+	}
+
+	private int row(double y) {
+		return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - originY) / cellSize)));
+	}
+
+	private boolean isRounded(int offset) {
+		return corners[offset + CornerGeometry.BEND] != 0 && corners[offset + CornerGeometry.RADIUS] > 0;
+	}
+
+	/**
+	 * Returns the index of the first corner whose cut-off region, between the corner's vertex, its cut points and its arc,
+	 * contains the point (x, y), or -1 if there is none.
+	 */
+	int cutOffCornerAt(int x, int y) {
+		// Every corner box overlapping the point's cell has been registered in it, clamped cells included.
+		int cell = row(y) * columns + column(x);
+		for (int k = cellStarts[cell]; k < cellStarts[cell + 1]; k++) {
+			int i = cellCorners[k];
+			int j = (i + 1) % xs.length;
+			if (isCutOff(i * CornerGeometry.STRIDE, xs[j], ys[j], x, y)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns {@code true} iff the point (x, y) lies in the region between the vertex (bx, by), the cut points and the arc
+	 * of the rounded corner at {@code offset} in the table, the arc itself excluded.
+	 */
+	private boolean isCutOff(int offset, int bx, int by, int x, int y) {
+		double radius = corners[offset + CornerGeometry.RADIUS];
+		double centerX = corners[offset + CornerGeometry.CENTER_X];
+		double centerY = corners[offset + CornerGeometry.CENTER_Y];
+		double ux = corners[offset + CornerGeometry.BA_CUT_X] - bx;
+		double uy = corners[offset + CornerGeometry.BA_CUT_Y] - by;
+		double vx = corners[offset + CornerGeometry.BC_CUT_X] - bx;
+		double vy = corners[offset + CornerGeometry.BC_CUT_Y] - by;
+
+		// The region lies within the quadrilateral formed by the vertex, the cut points and the center.
+		if (x < Math.min(Math.min(bx, centerX), Math.min(bx + ux, bx + vx))
+				|| Math.max(Math.max(bx, centerX), Math.max(bx + ux, bx + vx)) < x
+				|| y < Math.min(Math.min(by, centerY), Math.min(by + uy, by + vy))
+				|| Math.max(Math.max(by, centerY), Math.max(by + uy, by + vy)) < y) {
+			return false;
+		}
+		double wx = (double) x - bx;
+		double wy = (double) y - by;
+		double turn = ux * vy - uy * vx;
+		if ((ux * wy - uy * wx) * turn < 0 || (wx * vy - wy * vx) * turn < 0) {
+			return false;
+		}
+		if (wx * ux + wy * uy > ux * ux + uy * uy || wx * vx + wy * vy > vx * vx + vy * vy) {
+			return false;
+		}
+		double dx = x - centerX;
+		double dy = y - centerY;
+		return dx * dx + dy * dy > radius * radius;
+	}
+}
@@ -0,0 +1,165 @@
+package drawit;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, flat sequence of drawing operations whose geometry has been transformed in advance, so that it can be
+ * replayed in one linear pass without a transformation stack.
+ * 
+ * The operations are lines, elliptical arcs and fills. They are stored in primitive arrays: one opcode per
+ * operation, the coordinates of the lines and arcs one after the other, and the colors of the fills as packed RGB
+ * values. Display lists are built by {@link DisplayListBuilder}.
+ */
+public final class DisplayList {
+	
+	static final byte LINE = 0;
+	static final byte ARC = 1;
+	static final byte FILL = 2;
+	
+	static final int LINE_OPERANDS = 4;
+	static final int ARC_OPERANDS = 6;
+	
+	/**
+	 * The display list without operations.
+	 */
+	public static final DisplayList EMPTY = new DisplayList(new byte[0], new double[0], new int[0]);
+	
+	/**
+	 * A line takes operands X1 Y1 X2 Y2. An arc takes operands X Y RX RY S E: it is the part of the ellipse of the
+	 * points (X + RX * cos(t), Y + RY * sin(t)) from t = S over an angle extent E, in radians. A fill takes one color.
+	 * 
+	 * @invar | operations != null && operands != null && colors != null
+	 * @invar The operands and colors arrays hold exactly the operands and colors of the operations, in order.
+	 * 
+	 * @representationObject
+	 */
+	private final byte[] operations;
+	private final double[] operands;
+	private final int[] colors;
+	
+	/**
+	 * The arrays are not copied.
+	 */
+	DisplayList(byte[] operations, double[] operands, int[] colors) {
+		this.operations = operations;
+		this.operands = operands;
+		this.colors = colors;
+	}
+	
+	/**
+	 * Returns the number of operations in this display list.
+	 */
+	public int getOperationCount() {
+		return operations.length;
+	}
+	
+	/**
+	 * Returns the opcodes of the operations of this display list. The array is not copied and must not be modified.
+	 */
+	byte[] getOperations() {
+		return operations;
+	}
+	
+	/**
+	 * Returns the operands of the lines and arcs of this display list, in order. The array is not copied and must not
+	 * be modified.
+	 */
+	double[] getOperands() {
+		return operands;
+	}
+	
+	/**
+	 * Returns the colors of the fills of this display list, in order. The array is not copied and must not be modified.
+	 */
+	int[] getColors() {
+		return colors;
+	}
+	
+	/**
+	 * Returns a display list with the operations of the given display lists, in order.
+	 * 
+	 * @inspects | parts
+	 * 
+	 * @throws IllegalArgumentException if argument {@code parts} or any of its elements is {@code null}.
+	 *    | parts == null || Arrays.stream(parts).anyMatch(part -> part == null)
+	 * 
+	 * @post | result.getOperationCount() == Arrays.stream(parts).mapToInt(part -> part.getOperationCount()).sum()
+	 */
+	public static DisplayList concatenate(DisplayList... parts) {
+		if (parts == null || Arrays.stream(parts).anyMatch(part -> part == null)) {
+			throw new IllegalArgumentException("parts or one of its elements is null");
+		}
+		if (parts.length == 1) {
+			return parts[0];
+		}
+		
+		int operationCount = 0;
+		int operandCount = 0;
+		int colorCount = 0;
+		for (DisplayList part : parts) {
+			operationCount += part.operations.length;
+			operandCount += part.operands.length;
+			colorCount += part.colors.length;
+		}
+		byte[] operations = new byte[operationCount];
+		double[] operands = new double[operandCount];
+		int[] colors = new int[colorCount];
+		operationCount = 0;
+		operandCount = 0;
+		colorCount = 0;
+		for (DisplayList part : parts) {
+			System.arraycopy(part.operations, 0, operations, operationCount, part.operations.length);
+			System.arraycopy(part.operands, 0, operands, operandCount, part.operands.length);
+			System.arraycopy(part.colors, 0, colors, colorCount, part.colors.length);
+			operationCount += part.operations.length;
+			operandCount += part.operands.length;
+			colorCount += part.colors.length;
+		}
+		return new DisplayList(operations, operands, colors);
+	}
+	
+	/**
+	 * Passes the operations of this display list, in order, to the given consumer. An arc that is not circular is
+	 * passed as a unit circle arc within a translation and a scaling; no other transformations are passed.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code consumer} is {@code null}.
+	 *    | consumer == null
+	 */
+	public void replay(DrawingCommandConsumer consumer) {
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer is null");
+		}
+		
+		int operand = 0;
+		int color = 0;
+		for (byte operation : operations) {
+			switch (operation) {
+			case LINE:
+				consumer.line(operands[operand], operands[operand + 1], operands[operand + 2], operands[operand + 3]);
+				operand += LINE_OPERANDS;
+				break;
+			case ARC:
+				double radiusX = operands[operand + 2];
+				double radiusY = operands[operand + 3];
+				if (radiusX == radiusY && radiusX >= 0) {
+					consumer.arc(operands[operand], operands[operand + 1], radiusX, operands[operand + 4], operands[operand + 5]);
+				} else {
+					consumer.pushTranslate(operands[operand], operands[operand + 1]);
+					consumer.pushScale(radiusX, radiusY);
+					consumer.arc(0, 0, 1, operands[operand + 4], operands[operand + 5]);
+					consumer.popTransform();
+					consumer.popTransform();
+				}
+				operand += ARC_OPERANDS;
+				break;
+			default:
+				int rgb = colors[color++];
+				consumer.fill(rgb >>> 16, (rgb >>> 8) & 0xFF, rgb & 0xFF);
+				break;
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,136 @@
+package drawit;
+
+import java.util.Arrays;
+
+/**
+ * Builds a {@link DisplayList} from a sequence of drawing commands, folding the transformations they push into the
+ * geometry of their lines and arcs. Under a scaling with different factors along X and Y, a circular arc becomes
+ * an elliptical one.
+ */
+public class DisplayListBuilder implements DrawingCommandConsumer {
+	
+	/**
+	 * @invar | transforms != null
+	 * @invar | operations != null && operands != null && colors != null
+	 * @invar | 0 <= operationCount && operationCount <= operations.length
+	 * @invar | 0 <= operandCount && operandCount <= operands.length
+	 * @invar | 0 <= colorCount && colorCount <= colors.length
+	 * 
+	 * @representationObject
+	 */
+	private final TransformStack transforms;
+	private byte[] operations = new byte[16];
+	private int operationCount;
+	private double[] operands = new double[64];
+	private int operandCount;
+	private int[] colors = new int[4];
+	private int colorCount;
+	
+	/**
+	 * Initializes this builder with no operations, drawing commands as they are given.
+	 */
+	public DisplayListBuilder() {
+		this(1, 1, 0, 0);
+	}
+	
+	/**
+	 * Initializes this builder with no operations, drawing a point (x, y) given by the commands at
+	 * (scaleX * x + translateX, scaleY * y + translateY).
+	 */
+	public DisplayListBuilder(double scaleX, double scaleY, double translateX, double translateY) {
+		transforms = new TransformStack(scaleX, scaleY, translateX, translateY);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushTranslate(double dx, double dy) {
+		transforms.pushTranslate(dx, dy);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushScale(double sx, double sy) {
+		transforms.pushScale(sx, sy);
+	}
+	
+	/**
+	 * @mutates | this
+	 * 
+	 * @throws IllegalStateException if no transformation has been pushed that has not been popped yet.
+	 */
+	@Override
+	public void popTransform() {
+		transforms.pop();
+	}
+	
+	private void addOperation(byte operation, int operandCount) {
+		if (operationCount == operations.length) {
+			operations = Arrays.copyOf(operations, operations.length * 2);
+		}
+		if (operands.length - this.operandCount < operandCount) {
+			operands = Arrays.copyOf(operands, Math.max(operands.length * 2, this.operandCount + operandCount));
+		}
+		operations[operationCount++] = operation;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void line(double x1, double y1, double x2, double y2) {
+		addOperation(DisplayList.LINE, DisplayList.LINE_OPERANDS);
+		operands[operandCount++] = transforms.transformX(x1);
+		operands[operandCount++] = transforms.transformY(y1);
+		operands[operandCount++] = transforms.transformX(x2);
+		operands[operandCount++] = transforms.transformY(y2);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void arc(double x, double y, double radius, double startAngle, double extentAngle) {
+		addOperation(DisplayList.ARC, DisplayList.ARC_OPERANDS);
+		operands[operandCount++] = transforms.transformX(x);
+		operands[operandCount++] = transforms.transformY(y);
+		operands[operandCount++] = transforms.getScaleX() * radius;
+		operands[operandCount++] = transforms.getScaleY() * radius;
+		operands[operandCount++] = startAngle;
+		operands[operandCount++] = extentAngle;
+	}
+	
+	/**
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if a color component is not between 0 and 255 (inclusive).
+	 *    | !(0 <= red && red <= 255 && 0 <= green && green <= 255 && 0 <= blue && blue <= 255)
+	 */
+	@Override
+	public void fill(int red, int green, int blue) {
+		if (!(0 <= red && red <= 255 && 0 <= green && green <= 255 && 0 <= blue && blue <= 255)) {
+			throw new IllegalArgumentException("color component out of range");
+		}
+		
+		addOperation(DisplayList.FILL, 0);
+		if (colorCount == colors.length) {
+			colors = Arrays.copyOf(colors, colors.length * 2);
+		}
+		colors[colorCount++] = red << 16 | green << 8 | blue;
+	}
+	
+	/**
+	 * Returns a display list with the operations given to this builder so far.
+	 * 
+	 * @inspects | this
+	 * @creates | result
+	 */
+	public DisplayList build() {
+		return new DisplayList(Arrays.copyOf(operations, operationCount), Arrays.copyOf(operands, operandCount),
+			Arrays.copyOf(colors, colorCount));
+	}
+	
+}
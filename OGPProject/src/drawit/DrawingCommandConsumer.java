@@ -0,0 +1,41 @@
+package drawit;
+
+/**
+ * Receives a sequence of drawing commands, one call per command, as an alternative to their textual representation.
+ * The commands and their arguments are those of {@link RoundedPolygon#getDrawingCommands()} and of the shape groups'
+ * {@code getDrawingCommands()}.
+ */
+public interface DrawingCommandConsumer {
+	
+	/**
+	 * Pushes a translation by (dx, dy) onto the transformation stack.
+	 */
+	void pushTranslate(double dx, double dy);
+	
+	/**
+	 * Pushes a scaling by (sx, sy) onto the transformation stack.
+	 */
+	void pushScale(double sx, double sy);
+	
+	/**
+	 * Pops the transformation that was pushed last.
+	 */
+	void popTransform();
+	
+	/**
+	 * Draws a line between (x1, y1) and (x2, y2).
+	 */
+	void line(double x1, double y1, double x2, double y2);
+	
+	/**
+	 * Draws the part of the circle with center (x, y) and radius {@code radius} from angle {@code startAngle} over
+	 * angle {@code extentAngle}, both in radians.
+	 */
+	void arc(double x, double y, double radius, double startAngle, double extentAngle);
+	
+	/**
+	 * Fills the path drawn since the previous fill with the given color.
+	 */
+	void fill(int red, int green, int blue);
+	
+}
@@ -0,0 +1,103 @@
+package drawit;
+
+/**
+ * Counts the drawing commands it receives, by kind, without drawing anything; for instance to measure a drawing
+ * before rendering it.
+ */
+public class DrawingCommandCounter implements DrawingCommandConsumer {
+	
+	/**
+	 * @invar | 0 <= transformCount && 0 <= popCount && 0 <= lineCount && 0 <= arcCount && 0 <= fillCount
+	 */
+	private long transformCount;
+	private long popCount;
+	private long lineCount;
+	private long arcCount;
+	private long fillCount;
+	
+	/**
+	 * Returns the number of {@code pushTranslate} and {@code pushScale} commands received.
+	 */
+	public long getTransformCount() {
+		return transformCount;
+	}
+	
+	/**
+	 * Returns the number of {@code line} commands received.
+	 */
+	public long getLineCount() {
+		return lineCount;
+	}
+	
+	/**
+	 * Returns the number of {@code arc} commands received.
+	 */
+	public long getArcCount() {
+		return arcCount;
+	}
+	
+	/**
+	 * Returns the number of {@code fill} commands received.
+	 */
+	public long getFillCount() {
+		return fillCount;
+	}
+	
+	/**
+	 * Returns the number of commands received, of any kind.
+	 * 
+	 * @post | result >= getTransformCount() + getLineCount() + getArcCount() + getFillCount()
+	 */
+	public long getCommandCount() {
+		return transformCount + popCount + lineCount + arcCount + fillCount;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushTranslate(double dx, double dy) {
+		transformCount++;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushScale(double sx, double sy) {
+		transformCount++;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void popTransform() {
+		popCount++;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void line(double x1, double y1, double x2, double y2) {
+		lineCount++;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void arc(double x, double y, double radius, double startAngle, double extentAngle) {
+		arcCount++;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void fill(int red, int green, int blue) {
+		fillCount++;
+	}
+	
+}
@@ -0,0 +1,260 @@
+package drawit;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Parses drawing commands in the textual format of {@link RoundedPolygon#getDrawingCommands()} and of the shape
+ * groups' {@code getDrawingCommands()}, and passes them, in order, to a {@link DrawingCommandConsumer}.
+ *
+ * The text is scanned one character at a time; commands and arguments are recognized in a reusable buffer rather
+ * than split off as strings. A number with at most 15 significant digits and a small enough exponent is converted
+ * without allocating; any other is passed to {@link Double#parseDouble(String)}, so that every number is read exactly
+ * as it was written. The interpreter keeps track of the transformations pushed, and rejects a text that pops more
+ * than it pushes or does not pop everything it pushes.
+ */
+public class DrawingCommandInterpreter {
+
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	private DrawingCommandInterpreter() {
+	}
+
+	/**
+	 * Parses the given text and passes its commands, in order, to the given consumer.
+	 *
+	 * @inspects | commands
+	 *
+	 * @throws IllegalArgumentException if argument {@code commands} or argument {@code consumer} is {@code null}.
+	 *    | commands == null || consumer == null
+	 * @throws IllegalArgumentException if the text is not well-formed. The commands before the error have been passed
+	 *         to the consumer.
+	 */
+	public static void interpret(CharSequence commands, DrawingCommandConsumer consumer) {
+		if (commands == null || consumer == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+
+		try {
+			new Parser(commands, null).run(consumer);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Parses the text read from the given reader, up to its end, and passes its commands, in order, to the given consumer.
+	 *
+	 * @mutates | in
+	 *
+	 * @throws IllegalArgumentException if argument {@code in} or argument {@code consumer} is {@code null}.
+	 *    | in == null || consumer == null
+	 * @throws IOException if the reader throws it or the text is not well-formed. The commands before the error have
+	 *         been passed to the consumer.
+	 */
+	public static void interpret(Reader in, DrawingCommandConsumer consumer) throws IOException {
+		if (in == null || consumer == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+
+		new Parser(null, in).run(consumer);
+	}
+
+	/**
+	 * Reads characters from either a character sequence or a reader, and groups them into tokens.
+	 */
+	private static final class Parser {
+
+		/**
+		 * @invar | (text == null) != (in == null)
+		 * @invar | token != null && 0 <= tokenLength && tokenLength <= token.length
+		 */
+		private final CharSequence text;
+		private final Reader in;
+		private int position;
+		private char[] buffer;
+		private int bufferLength;
+		private char[] token = new char[32];
+		private int tokenLength;
+		private int depth;
+
+		Parser(CharSequence text, Reader in) {
+			this.text = text;
+			this.in = in;
+			if (in != null) {
+				buffer = new char[READ_BUFFER_SIZE];
+			}
+		}
+
+		/**
+		 * Returns the next character, or -1 at the end of the text.
+		 */
+		private int read() throws IOException {
+			if (text != null) {
+				return position < text.length() ? text.charAt(position++) : -1;
+			}
+			if (position == bufferLength) {
+				bufferLength = in.read(buffer, 0, buffer.length);
+				position = 0;
+				if (bufferLength <= 0) {
+					bufferLength = 0;
+					return -1;
+				}
+			}
+			return buffer[position++];
+		}
+
+		/**
+		 * Reads the next run of non-whitespace characters into the token buffer. Returns {@code false} if the text
+		 * ends first.
+		 */
+		private boolean nextToken() throws IOException {
+			int c = read();
+			while (c != -1 && Character.isWhitespace(c)) {
+				c = read();
+			}
+			if (c == -1) {
+				return false;
+			}
+			tokenLength = 0;
+			while (c != -1 && !Character.isWhitespace(c)) {
+				if (tokenLength == token.length) {
+					token = Arrays.copyOf(token, token.length * 2);
+				}
+				token[tokenLength++] = (char) c;
+				c = read();
+			}
+			return true;
+		}
+
+		private boolean tokenIs(String name) {
+			if (tokenLength != name.length()) {
+				return false;
+			}
+			for (int i = 0; i < tokenLength; i++) {
+				if (token[i] != name.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		void run(DrawingCommandConsumer consumer) throws IOException {
+			while (nextToken()) {
+				if (tokenIs("line")) {
+					consumer.line(nextNumber(), nextNumber(), nextNumber(), nextNumber());
+				} else if (tokenIs("arc")) {
+					consumer.arc(nextNumber(), nextNumber(), nextNumber(), nextNumber(), nextNumber());
+				} else if (tokenIs("fill")) {
+					consumer.fill(nextColorComponent(), nextColorComponent(), nextColorComponent());
+				} else if (tokenIs("pushTranslate")) {
+					consumer.pushTranslate(nextNumber(), nextNumber());
+					depth++;
+				} else if (tokenIs("pushScale")) {
+					consumer.pushScale(nextNumber(), nextNumber());
+					depth++;
+				} else if (tokenIs("popTransform")) {
+					if (depth == 0) {
+						throw new IOException("popTransform without a transformation to pop");
+					}
+					consumer.popTransform();
+					depth--;
+				} else {
+					throw new IOException("unknown command " + new String(token, 0, tokenLength));
+				}
+			}
+			if (depth != 0) {
+				throw new IOException("transformation not popped");
+			}
+		}
+
+		private int nextColorComponent() throws IOException {
+			double value = nextNumber();
+			if (!(0 <= value && value <= 255 && value == Math.floor(value))) {
+				throw new IOException("color component out of range: " + new String(token, 0, tokenLength));
+			}
+			return (int) value;
+		}
+
+		private double nextNumber() throws IOException {
+			if (!nextToken()) {
+				throw new IOException("missing argument");
+			}
+
+			// Fast path: the digits fit in a double exactly, and so does the power of ten they are scaled by, so one
+			// multiplication or division rounds correctly.
+			int i = 0;
+			boolean negative = false;
+			if (token[0] == '-' || token[0] == '+') {
+				negative = token[0] == '-';
+				i++;
+			}
+			long digits = 0;
+			int significantDigits = 0;
+			int exponent = 0;
+			boolean anyDigit = false;
+			for (; i < tokenLength && '0' <= token[i] && token[i] <= '9'; i++) {
+				digits = digits * 10 + (token[i] - '0');
+				if (digits != 0) {
+					significantDigits++;
+				}
+				anyDigit = true;
+				if (significantDigits > 15) {
+					return parseNumber();
+				}
+			}
+			if (i < tokenLength && token[i] == '.') {
+				for (i++; i < tokenLength && '0' <= token[i] && token[i] <= '9'; i++) {
+					digits = digits * 10 + (token[i] - '0');
+					if (digits != 0) {
+						significantDigits++;
+					}
+					exponent--;
+					anyDigit = true;
+					if (significantDigits > 15) {
+						return parseNumber();
+					}
+				}
+			}
+			if (anyDigit && i < tokenLength && (token[i] == 'e' || token[i] == 'E')) {
+				i++;
+				boolean negativeExponent = false;
+				if (i < tokenLength && (token[i] == '-' || token[i] == '+')) {
+					negativeExponent = token[i] == '-';
+					i++;
+				}
+				int start = i;
+				int explicitExponent = 0;
+				for (; i < tokenLength && '0' <= token[i] && token[i] <= '9'; i++) {
+					explicitExponent = Math.min(explicitExponent * 10 + (token[i] - '0'), 1000);
+				}
+				if (i == start) {
+					return parseNumber();
+				}
+				exponent += negativeExponent ? -explicitExponent : explicitExponent;
+			}
+			if (!anyDigit || i != tokenLength || exponent < -22 || 22 < exponent) {
+				return parseNumber();
+			}
+			double value = exponent < 0 ? digits / POWERS_OF_TEN[-exponent] : digits * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+
+		private double parseNumber() throws IOException {
+			String number = new String(token, 0, tokenLength);
+			try {
+				return Double.parseDouble(number);
+			} catch (NumberFormatException e) {
+				throw new IOException("malformed number " + number);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,368 @@
+package drawit;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the edges of a polygon, used to find the edges near a given edge without visiting all of them.
+ *
+ * Edge {@code e} runs from vertex {@code e} to vertex {@code e + 1} (modulo the vertex count) and is registered
+ * in every cell its bounding box overlaps. Coordinates outside the area the grid was built for are clamped
+ * to the border cells, so the grid stays correct when vertices move, it just gets less selective; {@link #isOutgrown()}
+ * tells when it is worth building a new one.
+ */
+class EdgeGrid {
+
+	/**
+	 * @invar | 0 < cellSize
+	 * @invar | 0 < columns && 0 < rows
+	 * @invar | cells.length == columns * rows && cellCounts.length == cells.length
+	 * @invar | 0 < builtEdgeCount
+	 * @invar | 0 <= clampedEdges && clampedEdges <= edgeCount
+	 * @invar | edgeCount <= stamps.length
+	 */
+	private final int originX;
+	private final int originY;
+	private final int cellSize;
+	private final int columns;
+	private final int rows;
+	private final int[][] cells;
+	private final int[] cellCounts;
+	private final int builtEdgeCount;
+	private int edgeCount;
+	/**
+	 * The number of registered edges whose bounding box reaches outside the area the grid was built for.
+	 */
+	private int clampedEdges;
+	private int[] stamps;
+	private int stamp;
+	/**
+	 * Scratch buffer holding the result of the last call of {@link #edgesNear(int, int, int, int)}.
+	 */
+	private int[] near = new int[8];
+
+	/**
+	 * Initializes this grid to hold all edges of the polygon whose vertices have the given coordinates.
+	 *
+	 * @inspects | xs, ys
+	 *
+	 * @pre {@code xs} and {@code ys} are not {@code null}, have the same length, and hold at least one vertex.
+	 *    | xs != null && ys != null && xs.length == ys.length && 0 < xs.length
+	 */
+	EdgeGrid(int[] xs, int[] ys) {
+		int n = xs.length;
+		int left = Integer.MAX_VALUE;
+		int top = Integer.MAX_VALUE;
+		int right = Integer.MIN_VALUE;
+		int bottom = Integer.MIN_VALUE;
+		long spans = 0;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			left = Math.min(left, xs[i]);
+			right = Math.max(right, xs[i]);
+			top = Math.min(top, ys[i]);
+			bottom = Math.max(bottom, ys[i]);
+			spans += Math.max(Math.abs((long) xs[j] - xs[i]), Math.abs((long) ys[j] - ys[i]));
+		}
+
+		// Cells about as large as an average edge keep both the registrations per edge and the edges per cell small.
+		long size = Math.max(1, spans / n);
+		while (cellsAlong(left, right, size) * cellsAlong(top, bottom, size) > 4L * n + 64) {
+			size *= 2;
+		}
+
+		originX = left;
+		originY = top;
+		cellSize = (int) Math.min(size, Integer.MAX_VALUE);
+		columns = (int) cellsAlong(left, right, cellSize);
+		rows = (int) cellsAlong(top, bottom, cellSize);
+		cells = new int[columns * rows][];
+		cellCounts = new int[columns * rows];
+		stamps = new int[n];
+		builtEdgeCount = n;
+
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			addEdge(i, xs[i], ys[i], xs[j], ys[j]);
+		}
+	}
+
+	private static long cellsAlong(int min, int max, long size) {
+		return ((long) max - min) / size + 1;
+	}
+
+	private long unclampedColumn(int x) {
+		return Math.floorDiv((long) x - originX, (long) cellSize);
+	}
+
+	private long unclampedRow(int y) {
+		return Math.floorDiv((long) y - originY, (long) cellSize);
+	}
+
+	private int column(int x) {
+		return (int) Math.max(0, Math.min(columns - 1, unclampedColumn(x)));
+	}
+
+	private int row(int y) {
+		return (int) Math.max(0, Math.min(rows - 1, unclampedRow(y)));
+	}
+
+	private boolean isClamped(int ax, int ay, int bx, int by) {
+		return unclampedColumn(Math.min(ax, bx)) < 0 || columns <= unclampedColumn(Math.max(ax, bx))
+				|| unclampedRow(Math.min(ay, by)) < 0 || rows <= unclampedRow(Math.max(ay, by));
+	}
+
+	/**
+	 * Returns whether the edges moved so far outside the area this grid was built for, or their number changed so much,
+	 * that a grid built for the current edges would be considerably more selective. Building one takes time linear in
+	 * the number of edges, so doing so only once this returns true keeps the cost of an edit amortized constant.
+	 */
+	boolean isOutgrown() {
+		return 4 * clampedEdges > edgeCount + 8 || 2 * builtEdgeCount < edgeCount || 2 * edgeCount < builtEdgeCount;
+	}
+
+	/**
+	 * Registers edge {@code edge}, running from (ax, ay) to (bx, by), in the cells its bounding box overlaps.
+	 */
+	void addEdge(int edge, int ax, int ay, int bx, int by) {
+		edgeCount++;
+		if (edgeCount > stamps.length) {
+			stamps = Arrays.copyOf(stamps, 2 * stamps.length);
+		}
+		if (isClamped(ax, ay, bx, by)) {
+			clampedEdges++;
+		}
+		int firstColumn = column(Math.min(ax, bx));
+		int lastColumn = column(Math.max(ax, bx));
+		int firstRow = row(Math.min(ay, by));
+		int lastRow = row(Math.max(ay, by));
+
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				int cell = r * columns + c;
+				int[] edges = cells[cell];
+				if (edges == null) {
+					edges = cells[cell] = new int[4];
+				} else if (cellCounts[cell] == edges.length) {
+					edges = cells[cell] = Arrays.copyOf(edges, edges.length * 2);
+				}
+				edges[cellCounts[cell]++] = edge;
+			}
+		}
+	}
+
+	/**
+	 * Unregisters edge {@code edge}, which was registered as running from (ax, ay) to (bx, by).
+	 */
+	void removeEdge(int edge, int ax, int ay, int bx, int by) {
+		edgeCount--;
+		if (isClamped(ax, ay, bx, by)) {
+			clampedEdges--;
+		}
+		int firstColumn = column(Math.min(ax, bx));
+		int lastColumn = column(Math.max(ax, bx));
+		int firstRow = row(Math.min(ay, by));
+		int lastRow = row(Math.max(ay, by));
+
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				int cell = r * columns + c;
+				int[] edges = cells[cell];
+				for (int k = 0; k < cellCounts[cell]; k++) {
+					if (edges[k] == edge) {
+						edges[k] = edges[--cellCounts[cell]];
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds 1 to the index of every registered edge whose index is at least {@code from}, if {@code delta} is 1,
+	 * or subtracts 1 from the index of every registered edge whose index is greater than {@code from}, if {@code delta} is -1.
+	 * This is a single pass over the registrations, like the copy of the vertex arrays an insertion or removal needs anyway.
+	 */
+	private void renumberEdges(int from, int delta) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			int[] edges = cells[cell];
+			for (int k = 0; k < cellCounts[cell]; k++) {
+				if (delta > 0 ? from <= edges[k] : from < edges[k]) {
+					edges[k] += delta;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates this grid for the insertion of vertex {@code index}: the edge that ran from the vertex before it to the vertex
+	 * after it is replaced by the two edges meeting at it.
+	 *
+	 * @inspects | xs, ys
+	 *
+	 * @pre This grid holds exactly the edges of the polygon with vertex coordinates {@code xs} and {@code ys} without
+	 *      vertex {@code index}.
+	 * @pre | 4 <= xs.length && 0 <= index && index < xs.length
+	 */
+	void insertVertex(int[] xs, int[] ys, int index) {
+		int n = xs.length;
+		int before = (index + n - 1) % n;
+		int after = (index + 1) % n;
+		removeEdge((index + n - 2) % (n - 1), xs[before], ys[before], xs[after], ys[after]);
+		renumberEdges(index, 1);
+		addEdge(before, xs[before], ys[before], xs[index], ys[index]);
+		addEdge(index, xs[index], ys[index], xs[after], ys[after]);
+	}
+
+	/**
+	 * Updates this grid for the removal of vertex {@code index}: the two edges meeting at it are replaced by an edge
+	 * from the vertex before it to the vertex after it.
+	 *
+	 * @inspects | xs, ys
+	 *
+	 * @pre This grid holds exactly the edges of the polygon with vertex coordinates {@code xs} and {@code ys}.
+	 * @pre | 5 <= xs.length && 0 <= index && index < xs.length
+	 */
+	void removeVertex(int[] xs, int[] ys, int index) {
+		int n = xs.length;
+		int before = (index + n - 1) % n;
+		int after = (index + 1) % n;
+		removeEdge(before, xs[before], ys[before], xs[index], ys[index]);
+		removeEdge(index, xs[index], ys[index], xs[after], ys[after]);
+		renumberEdges(index, -1);
+		addEdge((index + n - 2) % (n - 1), xs[before], ys[before], xs[after], ys[after]);
+	}
+
+	/**
+	 * Stores in {@code near} the distinct edges registered in a cell that overlaps the given box and returns their number.
+	 * Every edge that has a point in common with the box is among them.
+	 */
+	private int edgesNear(int left, int top, int right, int bottom) {
+		int firstColumn = column(left);
+		int lastColumn = column(right);
+		int firstRow = row(top);
+		int lastRow = row(bottom);
+
+		stamp++;
+		int count = 0;
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				int cell = r * columns + c;
+				for (int k = 0; k < cellCounts[cell]; k++) {
+					int edge = cells[cell][k];
+					if (stamps[edge] != stamp) {
+						stamps[edge] = stamp;
+						if (count == near.length) {
+							near = Arrays.copyOf(near, count * 2);
+						}
+						near[count++] = edge;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns null if the given edges of the polygon with vertex coordinates {@code xs} and {@code ys} do not violate
+	 * the requirements of a proper polygon; otherwise, returns the violation {@link PointArrays#checkEdgePair(int[], int[], int, int)}
+	 * reports for the first violating pair of edges {@code (i, x)}, with {@code i < x}, in lexicographic order.
+	 * 
+	 * @inspects | this, xs, ys
+	 * 
+	 * @pre This grid holds exactly the edges of the polygon.
+	 * @pre Every pair of edges of the polygon that does not involve one of the given edges satisfies the requirements
+	 *      of a proper polygon.
+	 * @pre The polygon has at least 3 vertices.
+	 *    | 3 <= xs.length
+	 */
+	String checkEdges(int[] xs, int[] ys, int... edges) {
+		int n = xs.length;
+		
+		// Report the violating pair (i, x) that comes first in lexicographic order, with i < x, so that the message does
+		// not depend on the order in which the grid visits the edges.
+		int firstI = n;
+		int firstX = n;
+		for (int edge : edges) {
+			int ax = xs[edge];
+			int ay = ys[edge];
+			int bx = xs[(edge + 1) % n];
+			int by = ys[(edge + 1) % n];
+			if (ax == bx && ay == by) {
+				// A zero-length edge violates the requirements together with every other edge.
+				int i = 0;
+				int x = edge == 0 ? 1 : edge;
+				if (i < firstI || i == firstI && x < firstX) {
+					firstI = i;
+					firstX = x;
+				}
+				continue;
+			}
+			
+			int count = edgesNear(Math.min(ax, bx), Math.min(ay, by), Math.max(ax, bx), Math.max(ay, by));
+			for (int k = 0; k < count; k++) {
+				int other = near[k];
+				int i = Math.min(edge, other);
+				int x = Math.max(edge, other);
+				if (other == edge || i > firstI || i == firstI && x >= firstX) {
+					continue;
+				}
+				// Edges whose bounding boxes are disjoint have no point in common.
+				int cx = xs[other];
+				int cy = ys[other];
+				int dx = xs[(other + 1) % n];
+				int dy = ys[(other + 1) % n];
+				if (Math.max(cx, dx) < Math.min(ax, bx) || Math.max(ax, bx) < Math.min(cx, dx)
+						|| Math.max(cy, dy) < Math.min(ay, by) || Math.max(ay, by) < Math.min(cy, dy)) {
+					continue;
+				}
+				if (PolygonSweep.edgesViolate(xs, ys, edge, other)) {
+					firstI = i;
+					firstX = x;
+				}
+			}
+		}
+		
+		if (firstI == n) {
+			return null;
+		}
+		return PointArrays.checkEdgePair(xs, ys, firstI, firstX);
+	}
+	
+	/**
+	 * Returns null if the polygon with vertex coordinates {@code xs} and {@code ys} is proper; otherwise, returns the violation
+	 * {@link PointArrays#checkEdgePair(int[], int[], int, int)} reports for the first violating pair of edges {@code (i, x)},
+	 * with {@code i < x}, in lexicographic order.
+	 * 
+	 * @inspects | this, xs, ys
+	 * 
+	 * @pre This grid holds exactly the edges of the polygon.
+	 * @pre The polygon has at least 3 vertices.
+	 *    | 3 <= xs.length
+	 */
+	String checkAllEdges(int[] xs, int[] ys) {
+		int n = xs.length;
+		for (int edge = 0; edge < n; edge++) {
+			int next = (edge + 1) % n;
+			if (xs[edge] == xs[next] && ys[edge] == ys[next]) {
+				// A zero-length edge violates the requirements together with every other edge, so the first violating pair
+				// starts at edge 0, whose partner need not be near it.
+				for (int x = 1; x < n; x++) {
+					if (PolygonSweep.edgesViolate(xs, ys, 0, x)) {
+						return PointArrays.checkEdgePair(xs, ys, 0, x);
+					}
+				}
+			}
+		}
+		
+		// Without zero-length edges, violating edges have a point in common, so the grid finds them. Once the edges
+		// before some edge are known not to violate the requirements, the first violation involving that edge is the
+		// first one overall.
+		for (int edge = 0; edge < n; edge++) {
+			String violation = checkEdges(xs, ys, edge);
+			if (violation != null) {
+				return violation;
+			}
+		}
+		return null;
+	}
+}
@@ -1,5 +1,8 @@
 package drawit;
 
+import java.util.stream.IntStream;
+import drawit.shapegroups1.Extent;
+
 public class FastRoundedPolygonContainsTestStrategy implements RoundedPolygonContainsTestStrategy {
 	
 	/**
@@ -18,4 +21,37 @@ public class FastRoundedPolygonContainsTestStrategy implements RoundedPolygonCon
 	public boolean contains(RoundedPolygon polygon, IntPoint point) {
 		return polygon.getBoundingBox().contains(point);
 	}
+	
+	/**
+	 * Determines for each of the given points whether it is contained by polygon according to the fast method.
+	 * 
+	 * @inspects | polygon, xs, ys
+	 * @mutates | result
+	 * 
+	 * @pre Argument {@code polygon} is not {@code null}.
+	 *    | polygon != null
+	 * @throws IllegalArgumentException if any of the arrays is {@code null} or the arrays do not all have the same length.
+	 *    | xs == null || ys == null || result == null || xs.length != ys.length || xs.length != result.length
+	 * 
+	 * @post Each element of {@code result} tells whether the corresponding point is contained by the polygon's bounding box.
+	 *    | IntStream.range(0, result.length).allMatch(i -> result[i] == polygon.getBoundingBox().contains(new IntPoint(xs[i], ys[i])))
+	 */
+	@Override
+	public void containsAll(RoundedPolygon polygon, int[] xs, int[] ys, boolean[] result) {
+		if (xs == null || ys == null || result == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (xs.length != ys.length || xs.length != result.length) {
+			throw new IllegalArgumentException("arguments differ in length");
+		}
+		
+		Extent box = polygon.getBoundingBox();
+		int left = box.getLeft();
+		int top = box.getTop();
+		int right = box.getRight();
+		int bottom = box.getBottom();
+		for (int i = 0; i < result.length; i++) {
+			result[i] = left <= xs[i] && xs[i] <= right && top <= ys[i] && ys[i] <= bottom;
+		}
+	}
 }
@@ -0,0 +1,110 @@
+package drawit;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Path2D;
+
+/**
+ * Draws the drawing commands it receives on a Java2D {@link Graphics2D}. The lines and arcs since the previous fill are
+ * joined into one path, which a fill fills by the even-odd rule. The commands' transformations are applied to the path
+ * as it is built, so the graphics' own transformation is left alone and still applies on top of them.
+ */
+public class Graphics2DDrawingCommandConsumer implements DrawingCommandConsumer {
+	
+	/**
+	 * @invar | graphics != null
+	 * @invar | transforms != null
+	 * @invar | path != null
+	 */
+	private final Graphics2D graphics;
+	private final TransformStack transforms = new TransformStack(1, 1, 0, 0);
+	private final Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+	
+	/**
+	 * Initializes this consumer to draw on the given graphics.
+	 * 
+	 * @throws IllegalArgumentException if argument {@code graphics} is {@code null}.
+	 *    | graphics == null
+	 */
+	public Graphics2DDrawingCommandConsumer(Graphics2D graphics) {
+		if (graphics == null) {
+			throw new IllegalArgumentException("graphics is null");
+		}
+		
+		this.graphics = graphics;
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushTranslate(double dx, double dy) {
+		transforms.pushTranslate(dx, dy);
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void pushScale(double sx, double sy) {
+		transforms.pushScale(sx, sy);
+	}
+	
+	/**
+	 * @mutates | this
+	 * 
+	 * @throws IllegalStateException if no transformation has been pushed that has not been popped yet.
+	 */
+	@Override
+	public void popTransform() {
+		transforms.pop();
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void line(double x1, double y1, double x2, double y2) {
+		double startX = transforms.transformX(x1);
+		double startY = transforms.transformY(y1);
+		if (path.getCurrentPoint() == null) {
+			path.moveTo(startX, startY);
+		} else {
+			path.lineTo(startX, startY);
+		}
+		path.lineTo(transforms.transformX(x2), transforms.transformY(y2));
+	}
+	
+	/**
+	 * @mutates | this
+	 */
+	@Override
+	public void arc(double x, double y, double radius, double startAngle, double extentAngle) {
+		// Java2D measures angles counterclockwise on the screen, the commands clockwise.
+		Arc2D.Double arc = new Arc2D.Double(x - radius, y - radius, 2 * radius, 2 * radius,
+			-Math.toDegrees(startAngle), -Math.toDegrees(extentAngle), Arc2D.OPEN);
+		AffineTransform transform = new AffineTransform(transforms.getScaleX(), 0, 0, transforms.getScaleY(),
+			transforms.getTranslateX(), transforms.getTranslateY());
+		path.append(arc.getPathIterator(transform), true);
+	}
+	
+	/**
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if a color component is not between 0 and 255 (inclusive).
+	 *    | !(0 <= red && red <= 255 && 0 <= green && green <= 255 && 0 <= blue && blue <= 255)
+	 */
+	@Override
+	public void fill(int red, int green, int blue) {
+		if (!(0 <= red && red <= 255 && 0 <= green && green <= 255 && 0 <= blue && blue <= 255)) {
+			throw new IllegalArgumentException("color component out of range");
+		}
+		
+		graphics.setColor(new Color(red, green, blue));
+		graphics.fill(path);
+		path.reset();
+	}
+	
+}
@@ -0,0 +1,225 @@
+package drawit;
+
+import java.util.Arrays;
+
+/**
+ * An axis-aligned rectangle of points that {@link RoundedPolygon#contains(int, int)} is known to accept for a given polygon.
+ *
+ * The rectangle is found by growing a small rectangle inside the polygon one side at a time for as long as it stays
+ * inside, so it is large but not necessarily the largest one. It is then shrunk by one unit on every side: the
+ * ray-crossing scan rounds crossing points by less than one unit, so it gives the exact answer for points at least
+ * that far from every edge.
+ */
+class InscribedRectangle {
+
+	/**
+	 * Coordinates beyond this bound make the exact tests below overflow.
+	 */
+	private static final int COORDINATE_LIMIT = 1 << 28;
+
+	private static final InscribedRectangle EMPTY = new InscribedRectangle(0, 0, -1, -1);
+
+	private final int left;
+	private final int top;
+	private final int right;
+	private final int bottom;
+
+	private InscribedRectangle(int left, int top, int right, int bottom) {
+		this.left = left;
+		this.top = top;
+		this.right = right;
+		this.bottom = bottom;
+	}
+
+	/**
+	 * Returns {@code true} if the point (x, y) lies in this rectangle, which implies that the polygon contains it.
+	 */
+	boolean contains(int x, int y) {
+		return left <= x && x <= right && top <= y && y <= bottom;
+	}
+
+	/**
+	 * Returns a rectangle of points contained by the proper polygon with the given vertex coordinates, which is empty if
+	 * none was found. Returns {@code null} if the scan's arithmetic overflows for this polygon: its answers then do not
+	 * follow the polygon's shape, and it may even accept points outside the polygon's bounding box.
+	 *
+	 * @pre The given coordinates define a proper polygon.
+	 *    | PointArrays.checkDefinesProperPolygon(xs, ys) == null
+	 */
+	static InscribedRectangle find(int[] xs, int[] ys) {
+		int n = xs.length;
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			if (Math.abs((long) xs[j] - xs[i]) * Math.abs((long) ys[j] - ys[i]) > Integer.MAX_VALUE) {
+				return null;
+			}
+			minX = Math.min(minX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxX = Math.max(maxX, xs[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+
+		if (n < 3 || minX < -COORDINATE_LIMIT || minY < -COORDINATE_LIMIT || COORDINATE_LIMIT < maxX || COORDINATE_LIMIT < maxY) {
+			return EMPTY;
+		}
+		int[] rectangle = seed(xs, ys);
+		if (rectangle == null || !isInside(xs, ys, rectangle)) {
+			return EMPTY;
+		}
+
+		int[] limits = {minX, minY, maxX, maxY};
+		boolean grown = true;
+		for (int round = 0; grown && round < 4; round++) {
+			grown = false;
+			for (int side = 0; side < 4; side++) {
+				int original = rectangle[side];
+				int low = 0;
+				int high = Math.abs(limits[side] - original);
+				int direction = side < 2 ? -1 : 1;
+				// Find the largest extension of this side that keeps the rectangle inside the polygon.
+				while (low < high) {
+					int middle = low + (high - low + 1) / 2;
+					rectangle[side] = original + direction * middle;
+					if (isInside(xs, ys, rectangle)) {
+						low = middle;
+					} else {
+						high = middle - 1;
+					}
+				}
+				rectangle[side] = original + direction * low;
+				grown |= low > 0;
+			}
+		}
+
+		if (rectangle[2] - rectangle[0] < 2 || rectangle[3] - rectangle[1] < 2) {
+			return EMPTY;
+		}
+		return new InscribedRectangle(rectangle[0] + 1, rectangle[1] + 1, rectangle[2] - 1, rectangle[3] - 1);
+	}
+
+	/**
+	 * Returns a unit square around the middle of the widest stretch of the polygon's interior along a horizontal line
+	 * through the tallest gap between vertex Y coordinates, as {left, top, right, bottom}, or {@code null}.
+	 */
+	private static int[] seed(int[] xs, int[] ys) {
+		int n = xs.length;
+		int[] sortedYs = ys.clone();
+		Arrays.sort(sortedYs);
+		int gapBottom = 0;
+		int gap = 0;
+		for (int i = 1; i < n; i++) {
+			if (sortedYs[i] - sortedYs[i - 1] > gap) {
+				gap = sortedYs[i] - sortedYs[i - 1];
+				gapBottom = sortedYs[i - 1];
+			}
+		}
+		if (gap < 2) {
+			return null;
+		}
+		double y = gapBottom + gap / 2;
+
+		double[] crossings = new double[n];
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			if ((ys[i] > y) != (ys[j] > y)) {
+				crossings[count++] = xs[i] + (double) (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]);
+			}
+		}
+		Arrays.sort(crossings, 0, count);
+		double widest = 0;
+		double middle = 0;
+		for (int i = 0; i + 1 < count; i += 2) {
+			if (crossings[i + 1] - crossings[i] > widest) {
+				widest = crossings[i + 1] - crossings[i];
+				middle = (crossings[i] + crossings[i + 1]) / 2;
+			}
+		}
+		if (widest < 2) {
+			return null;
+		}
+		int x = (int) Math.floor(middle);
+		int top = gapBottom + gap / 2;
+		return new int[] {x, top, x + 1, top + 1};
+	}
+
+	/**
+	 * Returns {@code true} iff the given rectangle, {left, top, right, bottom}, lies within the polygon:
+	 * no edge meets its interior, and its interior is inside the polygon.
+	 */
+	private static boolean isInside(int[] xs, int[] ys, int[] rectangle) {
+		int n = xs.length;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			if (meetsInterior(xs[i], ys[i], xs[j], ys[j], rectangle)) {
+				return false;
+			}
+		}
+
+		// No boundary point lies inside, so the centre decides for the whole interior; work in doubled coordinates to keep it integral.
+		long cx = (long) rectangle[0] + rectangle[2];
+		long cy = (long) rectangle[1] + rectangle[3];
+		boolean inside = false;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			long y1 = 2L * ys[i];
+			long y2 = 2L * ys[j];
+			if ((y1 > cy) == (y2 > cy)) {
+				continue;
+			}
+			long x1 = 2L * xs[i];
+			long x2 = 2L * xs[j];
+			// The edge crosses the line through the centre at x1 + (x2 - x1) * (cy - y1) / (y2 - y1); count it if that is right of the centre.
+			long numerator = (x2 - x1) * (cy - y1);
+			long denominator = y2 - y1;
+			if (denominator < 0) {
+				numerator = -numerator;
+				denominator = -denominator;
+			}
+			if (numerator > (cx - x1) * denominator) {
+				inside = !inside;
+			}
+		}
+		return inside;
+	}
+
+	/**
+	 * Returns {@code true} iff the segment from (ax, ay) to (bx, by) has a point in common with the open rectangle
+	 * {left, top, right, bottom}. Clips the segment's parameter range against each side, comparing fractions exactly.
+	 */
+	private static boolean meetsInterior(int ax, int ay, int bx, int by, int[] rectangle) {
+		long dx = (long) bx - ax;
+		long dy = (long) by - ay;
+		// The parameter range is (lowNumerator / lowDenominator, highNumerator / highDenominator), initially [0, 1].
+		long[] bounds = {0, 1, 1, 1};
+		return clip(bounds, dx, (long) rectangle[0] - ax)
+				&& clip(bounds, -dx, (long) ax - rectangle[2])
+				&& clip(bounds, dy, (long) rectangle[1] - ay)
+				&& clip(bounds, -dy, (long) ay - rectangle[3])
+				&& bounds[0] * bounds[3] < bounds[2] * bounds[1];
+	}
+
+	/**
+	 * Restricts the parameter range in {@code bounds} to the parameters t with {@code t * direction > offset}.
+	 * Returns {@code false} if that leaves no parameters.
+	 */
+	private static boolean clip(long[] bounds, long direction, long offset) {
+		if (direction == 0) {
+			return 0 > offset;
+		}
+		if (direction > 0) {
+			if (offset * bounds[1] > bounds[0] * direction) {
+				bounds[0] = offset;
+				bounds[1] = direction;
+			}
+		} else if (-offset * bounds[3] < bounds[2] * -direction) {
+			bounds[2] = -offset;
+			bounds[3] = -direction;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,14 @@
+package drawit;
+
+/**
+ * An operation that accepts two {@code int} arguments, such as the coordinates of a point, and returns no result.
+ */
+@FunctionalInterface
+public interface IntBinaryConsumer {
+	
+	/**
+	 * Performs this operation on the given arguments.
+	 */
+	void accept(int x, int y);
+	
+}
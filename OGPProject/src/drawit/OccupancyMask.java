@@ -0,0 +1,191 @@
+package drawit;
+
+import drawit.shapegroups1.Extent;
+
+/**
+ * A grid of cells over a polygon's bounding box, each marked as inside, outside or on the boundary of the polygon,
+ * packed at two bits per cell.
+ *
+ * A cell is on the boundary if an edge comes within one unit of it. For every other cell, the ray-crossing scan in
+ * {@link RoundedPolygon#contains(int, int)} rounds no crossing point far enough to change its answer, so it gives
+ * the same answer for all points in the cell.
+ */
+class OccupancyMask {
+
+	static final int OUTSIDE = 0;
+	static final int INSIDE = 1;
+	static final int BOUNDARY = 2;
+
+	/**
+	 * A mask without cells classifies every point as {@code BOUNDARY}.
+	 *
+	 * @invar | 0 < cellWidth && 0 < cellHeight
+	 * @invar | 0 <= columns && 0 <= rows
+	 * @invar | cells.length == (columns * rows + 31) / 32
+	 */
+	private final int modificationCount;
+	private final int left;
+	private final int top;
+	private final int right;
+	private final int bottom;
+	private final long cellWidth;
+	private final long cellHeight;
+	private final int columns;
+	private final int rows;
+	private final long[] cells;
+
+	private OccupancyMask(int modificationCount, Extent box, long cellWidth, long cellHeight, int columns, int rows) {
+		this.modificationCount = modificationCount;
+		this.left = box.getLeft();
+		this.top = box.getTop();
+		this.right = box.getRight();
+		this.bottom = box.getBottom();
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+		this.columns = columns;
+		this.rows = rows;
+		this.cells = new long[(columns * rows + 31) / 32];
+	}
+
+	/**
+	 * Returns {@code true} if this mask was built for the current vertices of the given polygon.
+	 */
+	boolean isUpToDate(RoundedPolygon polygon) {
+		return modificationCount == polygon.getModificationCount();
+	}
+
+	private int get(int cell) {
+		return (int) (cells[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+	}
+
+	private void set(int cell, int state) {
+		int shift = (cell & 31) << 1;
+		cells[cell >>> 5] = cells[cell >>> 5] & ~(3L << shift) | (long) state << shift;
+	}
+
+	/**
+	 * Returns {@code OUTSIDE} or {@code INSIDE} if the polygon certainly does or does not contain the point (x, y),
+	 * and {@code BOUNDARY} if the polygon has to be asked.
+	 */
+	int classify(int x, int y) {
+		if (cells.length == 0) {
+			return BOUNDARY;
+		}
+		if (x < left || right < x || y < top || bottom < y) {
+			return OUTSIDE;
+		}
+		int column = (int) (((long) x - left) / cellWidth);
+		int row = (int) (((long) y - top) / cellHeight);
+		return get(row * columns + column);
+	}
+
+	/**
+	 * Returns a mask of at most {@code resolution} by {@code resolution} cells for the given polygon. The mask has no
+	 * cells if the polygon has fewer than 3 vertices, or if the scan's arithmetic overflows for it: its answers then do
+	 * not follow the polygon's shape.
+	 *
+	 * @inspects | polygon
+	 *
+	 * @pre | polygon != null
+	 * @pre | 0 < resolution
+	 */
+	static OccupancyMask build(RoundedPolygon polygon, int resolution) {
+		Extent box = polygon.getBoundingBox();
+		OccupancyMask empty = new OccupancyMask(polygon.getModificationCount(), box, 1, 1, 0, 0);
+		int n = polygon.getVertexCount();
+		if (n < 3) {
+			return empty;
+		}
+		int[] xs = new int[n];
+		int[] ys = new int[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = polygon.getX(i);
+			ys[i] = polygon.getY(i);
+		}
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			if (Math.abs((long) xs[j] - xs[i]) * Math.abs((long) ys[j] - ys[i]) > Integer.MAX_VALUE) {
+				return empty;
+			}
+		}
+
+		long width = (long) box.getRight() - box.getLeft() + 1;
+		long height = (long) box.getBottom() - box.getTop() + 1;
+		long cellWidth = (width + resolution - 1) / resolution;
+		long cellHeight = (height + resolution - 1) / resolution;
+		int columns = (int) ((width + cellWidth - 1) / cellWidth);
+		int rows = (int) ((height + cellHeight - 1) / cellHeight);
+		OccupancyMask mask = new OccupancyMask(polygon.getModificationCount(), box, cellWidth, cellHeight, columns, rows);
+
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			mask.markEdge(xs[i], ys[i], xs[j], ys[j]);
+		}
+
+		// Cells between two boundary cells in a row all lie on the same side, so one query per stretch settles them.
+		for (int row = 0; row < rows; row++) {
+			int column = 0;
+			while (column < columns) {
+				if (mask.get(row * columns + column) == BOUNDARY) {
+					column++;
+					continue;
+				}
+				int end = column;
+				while (end < columns && mask.get(row * columns + end) != BOUNDARY) {
+					end++;
+				}
+				int x = (int) (mask.left + column * cellWidth);
+				int y = (int) (mask.top + row * cellHeight);
+				if (polygon.contains(x, y)) {
+					for (int k = column; k < end; k++) {
+						mask.set(row * columns + k, INSIDE);
+					}
+				}
+				column = end;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Marks as boundary every cell that the edge from (ax, ay) to (bx, by) passes within one unit of.
+	 * The edge's X range within each row of cells is computed in floating point and widened to cover rounding errors,
+	 * which can only mark extra cells.
+	 */
+	private void markEdge(int ax, int ay, int bx, int by) {
+		double margin = 1.5;
+		int firstRow = rowOf(Math.min(ay, by) - margin);
+		int lastRow = rowOf(Math.max(ay, by) + margin);
+		for (int row = firstRow; row <= lastRow; row++) {
+			// The part of the edge within the row, grown by the margin, or the endpoint nearest to it.
+			double rowTop = clamp((double) top + (double) row * cellHeight - margin, ay, by);
+			double rowBottom = clamp((double) top + ((double) row + 1) * cellHeight - 1 + margin, ay, by);
+			double x1;
+			double x2;
+			if (ay == by) {
+				x1 = ax;
+				x2 = bx;
+			} else {
+				x1 = ax + ((double) bx - ax) * (rowTop - ay) / ((double) by - ay);
+				x2 = ax + ((double) bx - ax) * (rowBottom - ay) / ((double) by - ay);
+			}
+			int firstColumn = columnOf(Math.min(x1, x2) - margin);
+			int lastColumn = columnOf(Math.max(x1, x2) + margin);
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				set(row * columns + column, BOUNDARY);
+			}
+		}
+	}
+
+	private static double clamp(double y, int ay, int by) {
+		return Math.max(Math.min(ay, by), Math.min(Math.max(ay, by), y));
+	}
+
+	private int rowOf(double y) {
+		return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - top) / cellHeight)));
+	}
+
+	private int columnOf(double x) {
+		return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - left) / cellWidth)));
+	}
+}
@@ -1,5 +1,6 @@
 package drawit;
 
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
 /**
@@ -37,65 +38,97 @@ public class PointArrays {
 	 *    | 	result == null
 	 */
 	public static String checkDefinesProperPolygon(IntPoint[] points) {
-		if (points.length == 2) {
+		int[] xs = new int[points.length];
+		int[] ys = new int[points.length];
+		for (int i = 0; i < points.length; i++) {
+			xs[i] = points[i].getX();
+			ys[i] = points[i].getY();
+		}
+		return checkDefinesProperPolygon(xs, ys);
+	}
+	
+	/**
+	 * Returns null if the points with the given coordinates define a proper polygon; otherwise, returns a string describing why they do not.
+	 * The result is the same as that of {@link #checkDefinesProperPolygon(IntPoint[])} for the corresponding points.
+	 * The violation described is that of the first violating pair of edges {@code (i, x)}, with {@code i < x}, in lexicographic order.
+	 * 
+	 * @inspects | xs, ys
+	 * 
+	 * @pre {@code xs} and {@code ys} are not {@code null} and have the same length.
+	 *    | xs != null && ys != null && xs.length == ys.length
+	 */
+	static String checkDefinesProperPolygon(int[] xs, int[] ys) {
+		if (xs.length == 2) {
 			return "2 vertices do not define a proper polygon";
 		}
 		
-		for (int i = 0; i < points.length; i++) {
-			int j = (i + 1) % points.length;
-			IntPoint p1 = points[i];
-			IntPoint p2 = points[j];
-			
-			for (int x = 0; x < points.length; x++) {
-				if (i == x) {
-					continue;
-				}
-				
-				int y = (x + 1) % points.length;
-				IntPoint pA = points[x];
-				IntPoint pB = points[y];				
-				
-				if (p1.equals(p2)) {
-					return "Vertices at index " + i + " and " + j + " coincide: (" + p1.getX() + ", " + p1.getY() + ")";
-				}
-				if (i != x && p1.equals(pA)) {
-					return "Vertices at index " + i + " and " + x + " coincide: (" + p1.getX() + ", " + p1.getY() + ")";					
-				}
-				if (i != y && p1.equals(pB)) {
-					return "Vertices at index " + i + " and " + y + " coincide: (" + p1.getX() + ", " + p1.getY() + ")";					
-				}
-				if (pA.equals(pB)) {
-					return "Vertices at index " + x + " and " + y + " coincide: (" + pA.getX() + ", " + pA.getY() + ")";					
-				}
-				if (j != x && p2.equals(pA)) {
-					return "Vertices at index " + j + " and " + x + " coincide: (" + pA.getX() + ", " + pA.getY() + ")";						
-				}
-				if (j != y && p2.equals(pB)) {
-					return "Vertices at index " + j + " and " + y + " coincide: (" + pB.getX() + ", " + pB.getY() + ")";						
-				}
-				
-				if (p1.isOnLineSegment(pA, pB)) {
-					return "Vertex (" + p1.getX() + ", " + p1.getY() + ") at index " + i + " lies on edge from (" + pA.getX() + 
-							", " + pA.getY() + ") at index " + x + " to (" + pB.getX() + ", " + pB.getY() + ") at index " + y;
-				}
-				if (p2.isOnLineSegment(pA, pB)) {
-					return "Vertex (" + p2.getX() + ", " + p2.getY() + ") at index " + j + " lies on edge from (" + pA.getX() + 
-							", " + pA.getY() + ") at index " + x + " to (" + pB.getX() + ", " + pB.getY() + ") at index " + y;
-				}
-				if (pA.isOnLineSegment(p1, p2)) {
-					return "Vertex (" + pA.getX() + ", " + pA.getY() + ") at index " + x + " lies on edge from (" + p1.getX() + 
-							", " + p1.getY() + ") at index " + i + " to (" + p2.getX() + ", " + p2.getY() + ") at index " + j;
-				}
-				if (pB.isOnLineSegment(p1, p2)) {
-					return "Vertex (" + pB.getX() + ", " + pB.getY() + ") at index " + y + " lies on edge from (" + p1.getX() + 
-							", " + p1.getY() + ") at index " + i + " to (" + p2.getX() + ", " + p2.getY() + ") at index " + j;
-				}
-				
-				if (IntPoint.lineSegmentsIntersect(p1, p2, pA, pB)) {
-					return "Edge from (" + p1.getX() + ", " + p1.getY() + ") at index " + i + " to (" + p2.getX() + ", " + p2.getY() + ") at index " + j
-							+ " intersects with edge from (" + pA.getX() + ", " + pA.getY() + ") at index " + x + " to (" + pB.getX() + ", " + pB.getY() + ") at index " + y;
-				}
-			}
+		if (PolygonSweep.findViolation(xs, ys) == null) {
+			return null;
+		}
+		// The sweep may run into any violating pair; only an improper polygon pays for looking up the first one.
+		return new EdgeGrid(xs, ys).checkAllEdges(xs, ys);
+	}
+	
+	/**
+	 * Returns null if the edge starting at index {@code i} and the edge starting at index {@code x} do not violate
+	 * the requirements of a proper polygon; otherwise, returns a string describing the first violation between them.
+	 * The violations are decided by the same exact predicates as {@link PolygonSweep#edgesViolate(int[], int[], int, int)},
+	 * so that the result is non-null exactly when that method returns {@code true}, whatever the coordinates.
+	 * 
+	 * @inspects | xs, ys
+	 * 
+	 * @pre {@code xs} and {@code ys} are not {@code null} and have the same length.
+	 *    | xs != null && ys != null && xs.length == ys.length
+	 * @pre {@code i} and {@code x} are distinct valid indices into {@code xs}.
+	 *    | 0 <= i && i < xs.length && 0 <= x && x < xs.length && i != x
+	 */
+	static String checkEdgePair(int[] xs, int[] ys, int i, int x) {
+		int j = (i + 1) % xs.length;
+		int y = (x + 1) % xs.length;
+		IntPoint p1 = new IntPoint(xs[i], ys[i]);
+		IntPoint p2 = new IntPoint(xs[j], ys[j]);
+		IntPoint pA = new IntPoint(xs[x], ys[x]);
+		IntPoint pB = new IntPoint(xs[y], ys[y]);
+		
+		if (p1.equals(p2)) {
+			return "Vertices at index " + i + " and " + j + " coincide: (" + p1.getX() + ", " + p1.getY() + ")";
+		}
+		if (i != x && p1.equals(pA)) {
+			return "Vertices at index " + i + " and " + x + " coincide: (" + p1.getX() + ", " + p1.getY() + ")";					
+		}
+		if (i != y && p1.equals(pB)) {
+			return "Vertices at index " + i + " and " + y + " coincide: (" + p1.getX() + ", " + p1.getY() + ")";					
+		}
+		if (pA.equals(pB)) {
+			return "Vertices at index " + x + " and " + y + " coincide: (" + pA.getX() + ", " + pA.getY() + ")";					
+		}
+		if (j != x && p2.equals(pA)) {
+			return "Vertices at index " + j + " and " + x + " coincide: (" + pA.getX() + ", " + pA.getY() + ")";						
+		}
+		if (j != y && p2.equals(pB)) {
+			return "Vertices at index " + j + " and " + y + " coincide: (" + pB.getX() + ", " + pB.getY() + ")";						
+		}
+		
+		if (PolygonSweep.liesInside(xs, ys, i, x, y)) {
+			return "Vertex (" + p1.getX() + ", " + p1.getY() + ") at index " + i + " lies on edge from (" + pA.getX() + 
+					", " + pA.getY() + ") at index " + x + " to (" + pB.getX() + ", " + pB.getY() + ") at index " + y;
+		}
+		if (PolygonSweep.liesInside(xs, ys, j, x, y)) {
+			return "Vertex (" + p2.getX() + ", " + p2.getY() + ") at index " + j + " lies on edge from (" + pA.getX() + 
+					", " + pA.getY() + ") at index " + x + " to (" + pB.getX() + ", " + pB.getY() + ") at index " + y;
+		}
+		if (PolygonSweep.liesInside(xs, ys, x, i, j)) {
+			return "Vertex (" + pA.getX() + ", " + pA.getY() + ") at index " + x + " lies on edge from (" + p1.getX() + 
+					", " + p1.getY() + ") at index " + i + " to (" + p2.getX() + ", " + p2.getY() + ") at index " + j;
+		}
+		if (PolygonSweep.liesInside(xs, ys, y, i, j)) {
+			return "Vertex (" + pB.getX() + ", " + pB.getY() + ") at index " + y + " lies on edge from (" + p1.getX() + 
+					", " + p1.getY() + ") at index " + i + " to (" + p2.getX() + ", " + p2.getY() + ") at index " + j;
+		}
+		
+		if (PolygonSweep.crossProperly(xs, ys, i, j, x, y)) {
+			return "Edge from (" + p1.getX() + ", " + p1.getY() + ") at index " + i + " to (" + p2.getX() + ", " + p2.getY() + ") at index " + j
+					+ " intersects with edge from (" + pA.getX() + ", " + pA.getY() + ") at index " + x + " to (" + pB.getX() + ", " + pB.getY() + ") at index " + y;
 		}
 		
 		return null;
@@ -0,0 +1,123 @@
+package drawit;
+
+import java.util.Arrays;
+
+/**
+ * Simplifies polygons with the Douglas-Peucker algorithm: a stretch of the outline is replaced by the segment between
+ * its endpoints if none of its vertices lies farther than the tolerance from that segment, and split at the farthest
+ * vertex otherwise.
+ */
+class PolygonSimplifier {
+	
+	private PolygonSimplifier() {
+	}
+	
+	/**
+	 * Returns the indices, in increasing order, of the vertices of the polygon with the given vertex coordinates that
+	 * are kept when simplifying it with the given tolerance. At least 3 vertices are kept, so that the result still
+	 * encloses an area, and every dropped vertex lies within the tolerance of the outline through the kept ones.
+	 * 
+	 * @creates | result
+	 * 
+	 * @pre | xs != null && ys != null && xs.length == ys.length && 3 <= xs.length
+	 * @pre | 0 <= tolerance
+	 */
+	static int[] simplify(int[] xs, int[] ys, double tolerance) {
+		int n = xs.length;
+		boolean[] kept = new boolean[n];
+		
+		// The closed outline is split into two chains at the vertex farthest from vertex 0.
+		int far = farthestFrom(xs, ys, 0);
+		kept[0] = true;
+		kept[far] = true;
+		
+		// Stretches still to examine, as pairs of start and end index; the end index may be n, standing for vertex 0.
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = far;
+		stack[top++] = far;
+		stack[top++] = n;
+		double toleranceSquared = tolerance * tolerance;
+		double worstSquared = -1;
+		int worst = -1;
+		while (top > 0) {
+			int end = stack[--top];
+			int start = stack[--top];
+			int split = -1;
+			double splitSquared = toleranceSquared;
+			for (int i = start + 1; i < end; i++) {
+				double distanceSquared = segmentDistanceSquared(xs, ys, i, start, end % n);
+				if (distanceSquared > splitSquared) {
+					split = i;
+					splitSquared = distanceSquared;
+				}
+				if (distanceSquared > worstSquared) {
+					worst = i;
+					worstSquared = distanceSquared;
+				}
+			}
+			if (split >= 0) {
+				kept[split] = true;
+				if (stack.length < top + 4) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				stack[top++] = start;
+				stack[top++] = split;
+				stack[top++] = split;
+				stack[top++] = end;
+			}
+		}
+		
+		int count = 0;
+		for (boolean k : kept) {
+			if (k) {
+				count++;
+			}
+		}
+		if (count < 3 && worst >= 0) {
+			// Everything lies within the tolerance of the segment between the two anchors; keep the vertex farthest from it.
+			kept[worst] = true;
+			count++;
+		}
+		int[] result = new int[count];
+		count = 0;
+		for (int i = 0; i < n; i++) {
+			if (kept[i]) {
+				result[count++] = i;
+			}
+		}
+		return result;
+	}
+	
+	private static int farthestFrom(int[] xs, int[] ys, int from) {
+		int far = from;
+		double farSquared = -1;
+		for (int i = 0; i < xs.length; i++) {
+			double dx = (double) xs[i] - xs[from];
+			double dy = (double) ys[i] - ys[from];
+			double distanceSquared = dx * dx + dy * dy;
+			if (distanceSquared > farSquared) {
+				far = i;
+				farSquared = distanceSquared;
+			}
+		}
+		return far;
+	}
+	
+	/**
+	 * Returns the square of the distance from vertex {@code i} to the segment between vertices {@code a} and {@code b}.
+	 */
+	private static double segmentDistanceSquared(int[] xs, int[] ys, int i, int a, int b) {
+		double abX = (double) xs[b] - xs[a];
+		double abY = (double) ys[b] - ys[a];
+		double aiX = (double) xs[i] - xs[a];
+		double aiY = (double) ys[i] - ys[a];
+		double lengthSquared = abX * abX + abY * abY;
+		double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (aiX * abX + aiY * abY) / lengthSquared));
+		double dx = aiX - t * abX;
+		double dy = aiY - t * abY;
+		return dx * dx + dy * dy;
+	}
+	
+}
@@ -0,0 +1,253 @@
+package drawit;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * Decides whether a sequence of vertices defines a proper polygon using a Shamos-Hoey sweep line.
+ *
+ * The sweep visits the vertices in lexicographic (x, y) order and keeps the edges that cross the sweep line
+ * ordered from bottom to top. Only edges that become neighbours in that order are tested against each other,
+ * so a proper polygon is recognized in O(n log n) time instead of by comparing every pair of edges.
+ */
+class PolygonSweep {
+
+	private PolygonSweep() {}
+
+	/**
+	 * Returns {@code null} if the vertices with the given coordinates define a proper polygon: no two vertices coincide,
+	 * no vertex lies on an edge it is not an endpoint of, and no two edges intersect. Otherwise, returns the indices
+	 * {@code i < x} of two edges that violate these requirements, as decided by
+	 * {@link #edgesViolate(int[], int[], int, int)}.
+	 *
+	 * @inspects | xs, ys
+	 *
+	 * @pre Arguments {@code xs} and {@code ys} are not {@code null} and have the same length, which is not 2.
+	 *    | xs != null && ys != null && xs.length == ys.length && xs.length != 2
+	 *
+	 * @post | result == null || result.length == 2 && 0 <= result[0] && result[0] < result[1] && result[1] < xs.length
+	 * @post | result == null || edgesViolate(xs, ys, result[0], result[1])
+	 */
+	static int[] findViolation(int[] xs, int[] ys) {
+		int n = xs.length;
+		if (n < 3) {
+			return null;
+		}
+
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (v, w) -> compareVertices(xs, ys, v, w));
+
+		for (int i = 1; i < n; i++) {
+			if (compareVertices(xs, ys, order[i - 1], order[i]) == 0) {
+				// The edges starting at two coinciding vertices share a vertex that is not a common endpoint.
+				return pair(order[i - 1], order[i]);
+			}
+		}
+
+		// With all vertices distinct, consecutive edges can only overlap if they fold back onto each other.
+		for (int b = 0; b < n; b++) {
+			int a = (b + n - 1) % n;
+			int c = (b + 1) % n;
+			long bax = (long) xs[a] - xs[b];
+			long bay = (long) ys[a] - ys[b];
+			long bcx = (long) xs[c] - xs[b];
+			long bcy = (long) ys[c] - ys[b];
+			if (compareProducts(bax, bcy, bay, bcx) == 0 && compareProducts(bax, bcx, -bay, bcy) > 0) {
+				return pair(a, b);
+			}
+		}
+
+		// Edge e runs from vertex e to vertex e + 1; left and right hold its lexicographically smallest and largest endpoint.
+		int[] left = new int[n];
+		int[] right = new int[n];
+		for (int e = 0; e < n; e++) {
+			int f = (e + 1) % n;
+			if (compareVertices(xs, ys, e, f) < 0) {
+				left[e] = e;
+				right[e] = f;
+			} else {
+				left[e] = f;
+				right[e] = e;
+			}
+		}
+
+		Comparator<Integer> belowToAbove = (a, b) -> compareEdges(xs, ys, left, right, a, b);
+		TreeSet<Integer> status = new TreeSet<Integer>(belowToAbove);
+
+		for (int k = 0; k < n; k++) {
+			int v = order[k];
+			int incoming = (v + n - 1) % n;
+			int outgoing = v;
+
+			for (int side = 0; side < 2; side++) {
+				int e = side == 0 ? incoming : outgoing;
+				if (left[e] == v) {
+					status.add(e);
+					Integer below = status.lower(e);
+					Integer above = status.higher(e);
+					if (below != null && edgesConflict(xs, ys, left, right, below, e)) {
+						return pair(below, e);
+					}
+					if (above != null && edgesConflict(xs, ys, left, right, e, above)) {
+						return pair(e, above);
+					}
+				}
+			}
+			for (int side = 0; side < 2; side++) {
+				int e = side == 0 ? incoming : outgoing;
+				if (right[e] == v) {
+					Integer below = status.lower(e);
+					Integer above = status.higher(e);
+					status.remove(e);
+					if (below != null && above != null && edgesConflict(xs, ys, left, right, below, above)) {
+						return pair(below, above);
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private static int[] pair(int e, int f) {
+		return new int[] {Math.min(e, f), Math.max(e, f)};
+	}
+
+	private static int compareVertices(int[] xs, int[] ys, int v, int w) {
+		if (xs[v] != xs[w]) {
+			return Integer.compare(xs[v], xs[w]);
+		}
+		return Integer.compare(ys[v], ys[w]);
+	}
+
+	/**
+	 * Returns the sign of the cross product of the vectors from vertex {@code a} to vertices {@code b} and {@code c}:
+	 * positive if {@code c} lies to the left of the line from {@code a} to {@code b}, negative if it lies to the right,
+	 * and zero if the three vertices are collinear. The result is exact for all {@code int} coordinates.
+	 */
+	static int orientation(int[] xs, int[] ys, int a, int b, int c) {
+		return compareProducts((long) xs[b] - xs[a], (long) ys[c] - ys[a], (long) ys[b] - ys[a], (long) xs[c] - xs[a]);
+	}
+
+	/**
+	 * Returns the sign of {@code p * q - r * s}. The differences of two {@code int} coordinates take up to 33 bits, so
+	 * their products are compared as 128-bit numbers rather than subtracted in a {@code long}, which could overflow.
+	 */
+	private static int compareProducts(long p, long q, long r, long s) {
+		long high1 = Math.multiplyHigh(p, q);
+		long high2 = Math.multiplyHigh(r, s);
+		if (high1 != high2) {
+			return high1 < high2 ? -1 : 1;
+		}
+		return Integer.signum(Long.compareUnsigned(p * q, r * s));
+	}
+
+	/**
+	 * Returns {@code true} iff vertex {@code v} lies on the edge from vertex {@code a} to vertex {@code b} without
+	 * coinciding with either of them.
+	 */
+	static boolean liesInside(int[] xs, int[] ys, int v, int a, int b) {
+		if (xs[v] == xs[a] && ys[v] == ys[a] || xs[v] == xs[b] && ys[v] == ys[b]) {
+			return false;
+		}
+		return orientation(xs, ys, a, b, v) == 0 && withinBox(xs, ys, a, b, v);
+	}
+
+	/**
+	 * Returns {@code true} iff the edge from vertex {@code a} to vertex {@code b} and the edge from vertex {@code c}
+	 * to vertex {@code d} cross at a point that is interior to both and that none of the four vertices lies on.
+	 */
+	static boolean crossProperly(int[] xs, int[] ys, int a, int b, int c, int d) {
+		return orientation(xs, ys, a, b, c) * orientation(xs, ys, a, b, d) < 0
+				&& orientation(xs, ys, c, d, a) * orientation(xs, ys, c, d, b) < 0;
+	}
+
+	/**
+	 * Returns {@code true} iff the edge starting at index {@code i} and the edge starting at index {@code x} violate
+	 * the requirements of a proper polygon, that is, iff {@link PointArrays#checkEdgePair(int[], int[], int, int)}
+	 * reports a violation for them.
+	 *
+	 * @inspects | xs, ys
+	 *
+	 * @pre {@code i} and {@code x} are distinct valid indices into {@code xs}, which has the same length as {@code ys}.
+	 *    | 0 <= i && i < xs.length && 0 <= x && x < xs.length && i != x && xs.length == ys.length
+	 */
+	static boolean edgesViolate(int[] xs, int[] ys, int i, int x) {
+		int n = xs.length;
+		int j = (i + 1) % n;
+		int y = (x + 1) % n;
+		if (coincide(xs, ys, i, j) || coincide(xs, ys, x, y) || coincide(xs, ys, i, x)
+				|| i != y && coincide(xs, ys, i, y) || j != x && coincide(xs, ys, j, x) || j != y && coincide(xs, ys, j, y)) {
+			return true;
+		}
+		return liesInside(xs, ys, i, x, y) || liesInside(xs, ys, j, x, y)
+				|| liesInside(xs, ys, x, i, j) || liesInside(xs, ys, y, i, j)
+				|| crossProperly(xs, ys, i, j, x, y);
+	}
+
+	private static boolean coincide(int[] xs, int[] ys, int v, int w) {
+		return xs[v] == xs[w] && ys[v] == ys[w];
+	}
+
+	/**
+	 * Orders two edges that are both crossed by the sweep line. The edge that entered the sweep last is located
+	 * relative to the other one using its left endpoint, or, if that endpoint lies on the other edge, using its right endpoint.
+	 * As long as no two edges intersect to the left of the sweep line, this order does not depend on the sweep position.
+	 */
+	private static int compareEdges(int[] xs, int[] ys, int[] left, int[] right, int a, int b) {
+		if (a == b) {
+			return 0;
+		}
+		if (compareVertices(xs, ys, left[a], left[b]) >= 0) {
+			return locate(xs, ys, left, right, a, b);
+		}
+		return -locate(xs, ys, left, right, b, a);
+	}
+
+	private static int locate(int[] xs, int[] ys, int[] left, int[] right, int s, int t) {
+		int o = orientation(xs, ys, left[t], right[t], left[s]);
+		if (o == 0) {
+			o = orientation(xs, ys, left[t], right[t], right[s]);
+		}
+		if (o != 0) {
+			return o;
+		}
+		return Integer.compare(s, t);
+	}
+
+	/**
+	 * Returns {@code true} iff the given edges have a point in common that is not a shared endpoint of two consecutive edges.
+	 */
+	private static boolean edgesConflict(int[] xs, int[] ys, int[] left, int[] right, int a, int b) {
+		int n = xs.length;
+		if ((a + 1) % n == b || (b + 1) % n == a) {
+			return false;
+		}
+
+		int a1 = left[a];
+		int a2 = right[a];
+		int b1 = left[b];
+		int b2 = right[b];
+		int o1 = orientation(xs, ys, a1, a2, b1);
+		int o2 = orientation(xs, ys, a1, a2, b2);
+		int o3 = orientation(xs, ys, b1, b2, a1);
+		int o4 = orientation(xs, ys, b1, b2, a2);
+
+		if (o1 * o2 < 0 && o3 * o4 < 0) {
+			return true;
+		}
+		return o1 == 0 && withinBox(xs, ys, a1, a2, b1)
+				|| o2 == 0 && withinBox(xs, ys, a1, a2, b2)
+				|| o3 == 0 && withinBox(xs, ys, b1, b2, a1)
+				|| o4 == 0 && withinBox(xs, ys, b1, b2, a2);
+	}
+
+	private static boolean withinBox(int[] xs, int[] ys, int a, int b, int c) {
+		return Math.min(xs[a], xs[b]) <= xs[c] && xs[c] <= Math.max(xs[a], xs[b])
+				&& Math.min(ys[a], ys[b]) <= ys[c] && ys[c] <= Math.max(ys[a], ys[b]);
+	}
+}
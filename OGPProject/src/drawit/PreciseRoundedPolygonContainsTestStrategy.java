@@ -1,5 +1,7 @@
 package drawit;
 
+import java.util.stream.IntStream;
+
 public class PreciseRoundedPolygonContainsTestStrategy implements RoundedPolygonContainsTestStrategy {
 	
 	/**
@@ -21,4 +23,27 @@ public class PreciseRoundedPolygonContainsTestStrategy implements RoundedPolygon
 		return polygon.contains(point);
 	}
 	
+	/**
+	 * Determines for each of the given points whether it is contained by polygon according to the precise method.
+	 * 
+	 * @inspects | polygon, xs, ys
+	 * @mutates | result
+	 * 
+	 * @throws IllegalArgumentException if argument {@code polygon} is {@code null}.
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if any of the arrays is {@code null} or the arrays do not all have the same length.
+	 *    | xs == null || ys == null || result == null || xs.length != ys.length || xs.length != result.length
+	 * 
+	 * @post Each element of {@code result} tells whether the corresponding point is contained by the polygon's vertices.
+	 *    | IntStream.range(0, result.length).allMatch(i -> result[i] == polygon.contains(xs[i], ys[i]))
+	 */
+	@Override
+	public void containsAll(RoundedPolygon polygon, int[] xs, int[] ys, boolean[] result) {
+		if (polygon == null) {
+			throw new IllegalArgumentException("polygon is null");
+		}
+		
+		polygon.containsAll(xs, ys, result);
+	}
+	
 }
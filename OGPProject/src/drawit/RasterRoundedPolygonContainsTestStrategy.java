@@ -0,0 +1,133 @@
+package drawit;
+
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Gives the same answers as {@link PreciseRoundedPolygonContainsTestStrategy}, using a mask over each polygon's bounding box
+ * that marks cells as inside, outside or on the boundary. Points in inside or outside cells are answered by looking up
+ * their cell; only points in boundary cells are tested precisely.
+ *
+ * A polygon's mask is built on the first query after its vertices change, so this strategy suits polygons that are
+ * queried often between changes. A mask takes two bits per cell and is dropped when its polygon is no longer in use.
+ */
+public class RasterRoundedPolygonContainsTestStrategy implements RoundedPolygonContainsTestStrategy {
+
+	public static final int DEFAULT_RESOLUTION = 256;
+	public static final int MAX_RESOLUTION = 4096;
+
+	/**
+	 * @invar | 1 <= resolution && resolution <= MAX_RESOLUTION
+	 * @invar | masks != null
+	 */
+	private final int resolution;
+	private final WeakHashMap<RoundedPolygon, OccupancyMask> masks = new WeakHashMap<>();
+
+	/**
+	 * Initializes this strategy to use masks of at most {@link #DEFAULT_RESOLUTION} by {@link #DEFAULT_RESOLUTION} cells.
+	 *
+	 * @post | getResolution() == DEFAULT_RESOLUTION
+	 */
+	public RasterRoundedPolygonContainsTestStrategy() {
+		this(DEFAULT_RESOLUTION);
+	}
+
+	/**
+	 * Initializes this strategy to use masks of at most {@code resolution} by {@code resolution} cells.
+	 *
+	 * @throws IllegalArgumentException if {@code resolution} is not between 1 and {@link #MAX_RESOLUTION} (inclusive).
+	 *    | !(1 <= resolution && resolution <= MAX_RESOLUTION)
+	 *
+	 * @post | getResolution() == resolution
+	 */
+	public RasterRoundedPolygonContainsTestStrategy(int resolution) {
+		if (!(1 <= resolution && resolution <= MAX_RESOLUTION)) {
+			throw new IllegalArgumentException("resolution out of range");
+		}
+		this.resolution = resolution;
+	}
+
+	/**
+	 * Returns the maximum number of cells along each side of the masks this strategy builds.
+	 */
+	public int getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * Returns the mask for the current vertices of the given polygon, building it if necessary.
+	 */
+	private OccupancyMask getMask(RoundedPolygon polygon) {
+		OccupancyMask mask = masks.get(polygon);
+		if (mask == null || !mask.isUpToDate(polygon)) {
+			mask = OccupancyMask.build(polygon, resolution);
+			masks.put(polygon, mask);
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns {@code true} iff point is contained by polygon according to the precise method.
+	 *
+	 * @inspects | polygon
+	 *
+	 * @throws IllegalArgumentException if argument {@code polygon} is {@code null}.
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if argument {@code point} is {@code null}.
+	 *    | point == null
+	 *
+	 * @post The result is {@code true} iff point is contained by the polygon's vertices.
+	 *    | result == polygon.contains(point)
+	 */
+	public boolean contains(RoundedPolygon polygon, IntPoint point) {
+		if (polygon == null) {
+			throw new IllegalArgumentException("polygon is null");
+		}
+		if (point == null) {
+			throw new IllegalArgumentException("point is null");
+		}
+
+		return contains(polygon, getMask(polygon), point.getX(), point.getY());
+	}
+
+	/**
+	 * Determines for each of the given points whether it is contained by polygon according to the precise method.
+	 *
+	 * @inspects | polygon, xs, ys
+	 * @mutates | result
+	 *
+	 * @throws IllegalArgumentException if argument {@code polygon} is {@code null}.
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if any of the arrays is {@code null} or the arrays do not all have the same length.
+	 *    | xs == null || ys == null || result == null || xs.length != ys.length || xs.length != result.length
+	 *
+	 * @post Each element of {@code result} tells whether the corresponding point is contained by the polygon's vertices.
+	 *    | IntStream.range(0, result.length).allMatch(i -> result[i] == polygon.contains(xs[i], ys[i]))
+	 */
+	@Override
+	public void containsAll(RoundedPolygon polygon, int[] xs, int[] ys, boolean[] result) {
+		if (polygon == null) {
+			throw new IllegalArgumentException("polygon is null");
+		}
+		if (xs == null || ys == null || result == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (xs.length != ys.length || xs.length != result.length) {
+			throw new IllegalArgumentException("arguments differ in length");
+		}
+
+		OccupancyMask mask = getMask(polygon);
+		for (int i = 0; i < result.length; i++) {
+			result[i] = contains(polygon, mask, xs[i], ys[i]);
+		}
+	}
+
+	private static boolean contains(RoundedPolygon polygon, OccupancyMask mask, int x, int y) {
+		int state = mask.classify(x, y);
+		if (state == OccupancyMask.BOUNDARY) {
+			return polygon.contains(x, y);
+		}
+		return state == OccupancyMask.INSIDE;
+	}
+
+}
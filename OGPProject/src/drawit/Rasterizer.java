@@ -0,0 +1,441 @@
+package drawit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draws display lists into a framebuffer of ARGB pixels, without a graphics toolkit, so that drawings can be rendered
+ * headlessly. The display list of a shape group is given by its {@code getDisplayList()}; any other sequence of drawing
+ * commands can be turned into one by a {@link DisplayListBuilder}.
+ *
+ * Each fill fills the outline drawn since the previous fill by the even-odd rule; lines and arcs that are not followed
+ * by a fill are not drawn. Pixel (x, y) of the framebuffer, at index {@code y * width + x}, is the square from (x, y) to
+ * (x + 1, y + 1) in the coordinates of the display list. It is blended with the color of a fill by the fraction of it
+ * that the fill covers, measured exactly along X and at {@link #SUBSAMPLES} rows along Y. Arcs are approximated by line
+ * segments that deviate from them by at most {@link #FLATNESS}.
+ *
+ * The framebuffer is divided into square tiles that are drawn in parallel on a fork-join pool. A tile only
+ * scan-converts the fills whose bounding boxes overlap it.
+ */
+public class Rasterizer {
+
+	public static final int DEFAULT_TILE_SIZE = 64;
+	public static final int SUBSAMPLES = 4;
+	public static final double FLATNESS = 0.25;
+
+	/**
+	 * @invar | 1 <= tileSize
+	 * @invar | pool != null
+	 */
+	private final int tileSize;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Initializes this rasterizer to draw tiles of {@link #DEFAULT_TILE_SIZE} by {@link #DEFAULT_TILE_SIZE} pixels on the
+	 * common fork-join pool.
+	 *
+	 * @post | getTileSize() == DEFAULT_TILE_SIZE
+	 * @post | getPool() == ForkJoinPool.commonPool()
+	 */
+	public Rasterizer() {
+		this(DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Initializes this rasterizer to draw tiles of {@code tileSize} by {@code tileSize} pixels on the given pool.
+	 *
+	 * @throws IllegalArgumentException if argument {@code tileSize} is not positive.
+	 *    | tileSize < 1
+	 * @throws IllegalArgumentException if argument {@code pool} is {@code null}.
+	 *    | pool == null
+	 *
+	 * @post | getTileSize() == tileSize
+	 * @post | getPool() == pool
+	 */
+	public Rasterizer(int tileSize, ForkJoinPool pool) {
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("tileSize is not positive");
+		}
+		if (pool == null) {
+			throw new IllegalArgumentException("pool is null");
+		}
+
+		this.tileSize = tileSize;
+		this.pool = pool;
+	}
+
+	/**
+	 * Returns the width and height, in pixels, of the tiles this rasterizer draws in parallel.
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Returns the pool this rasterizer draws its tiles on.
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Draws the given display list over the contents of the given framebuffer, which holds {@code height} rows of
+	 * {@code width} non-premultiplied ARGB pixels.
+	 *
+	 * @inspects | displayList
+	 * @mutates | framebuffer
+	 *
+	 * @throws IllegalArgumentException if argument {@code displayList} is {@code null}.
+	 *    | displayList == null
+	 * @throws IllegalArgumentException if argument {@code framebuffer} is {@code null}.
+	 *    | framebuffer == null
+	 * @throws IllegalArgumentException if the width or the height is not positive, or the framebuffer is too small for them.
+	 *    | width < 1 || height < 1 || framebuffer.length < (long) width * height
+	 */
+	public void render(DisplayList displayList, int[] framebuffer, int width, int height) {
+		if (displayList == null) {
+			throw new IllegalArgumentException("displayList is null");
+		}
+		if (framebuffer == null) {
+			throw new IllegalArgumentException("framebuffer is null");
+		}
+		if (width < 1 || height < 1 || framebuffer.length < (long) width * height) {
+			throw new IllegalArgumentException("framebuffer size out of range");
+		}
+
+		List<Fill> fills = Fill.flatten(displayList);
+		if (fills.isEmpty()) {
+			return;
+		}
+		int tilesX = (int) (((long) width + tileSize - 1) / tileSize);
+		int tilesY = (int) (((long) height + tileSize - 1) / tileSize);
+		pool.invoke(new TileTask(fills.toArray(new Fill[0]), framebuffer, width, height, tileSize, tilesX, 0, tilesX * tilesY));
+	}
+
+	/**
+	 * An outline to be filled with a color, flattened to line segments. Horizontal segments are left out, since they
+	 * never cross a sample row.
+	 */
+	private static final class Fill {
+
+		/**
+		 * The segments as X0 Y0 X1 Y1, with Y0 < Y1.
+		 */
+		final double[] edges;
+		final double minX;
+		final double minY;
+		final double maxX;
+		final double maxY;
+		final int argb;
+
+		Fill(double[] edges, double minX, double minY, double maxX, double maxY, int argb) {
+			this.edges = edges;
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+			this.argb = argb;
+		}
+
+		/**
+		 * Returns the fills of the given display list, in order. Fills of an outline without segments are left out.
+		 */
+		static List<Fill> flatten(DisplayList displayList) {
+			ArrayList<Fill> fills = new ArrayList<>();
+			double[] operands = displayList.getOperands();
+			int[] colors = displayList.getColors();
+			OutlineBuilder outline = new OutlineBuilder();
+			int operand = 0;
+			int color = 0;
+			for (byte operation : displayList.getOperations()) {
+				switch (operation) {
+				case DisplayList.LINE:
+					outline.addSegment(operands[operand], operands[operand + 1], operands[operand + 2], operands[operand + 3]);
+					operand += DisplayList.LINE_OPERANDS;
+					break;
+				case DisplayList.ARC:
+					outline.addArc(operands[operand], operands[operand + 1], operands[operand + 2], operands[operand + 3],
+						operands[operand + 4], operands[operand + 5]);
+					operand += DisplayList.ARC_OPERANDS;
+					break;
+				default:
+					int rgb = colors[color++];
+					if (outline.minX <= outline.maxX) {
+						fills.add(outline.build(0xFF000000 | rgb));
+					}
+					outline = new OutlineBuilder();
+					break;
+				}
+			}
+			return fills;
+		}
+
+	}
+
+	/**
+	 * Collects the segments of an outline and their bounding box.
+	 */
+	private static final class OutlineBuilder {
+
+		private double[] edges = new double[64];
+		private int edgeCount;
+		private double minX = Double.POSITIVE_INFINITY;
+		private double minY = Double.POSITIVE_INFINITY;
+		private double maxX = Double.NEGATIVE_INFINITY;
+		private double maxY = Double.NEGATIVE_INFINITY;
+
+		void addSegment(double x0, double y0, double x1, double y1) {
+			if (!(Double.isFinite(x0) && Double.isFinite(y0) && Double.isFinite(x1) && Double.isFinite(y1))) {
+				return;
+			}
+			minX = Math.min(minX, Math.min(x0, x1));
+			minY = Math.min(minY, Math.min(y0, y1));
+			maxX = Math.max(maxX, Math.max(x0, x1));
+			maxY = Math.max(maxY, Math.max(y0, y1));
+			if (y0 == y1) {
+				return;
+			}
+			if (edges.length < (edgeCount + 1) * 4) {
+				edges = Arrays.copyOf(edges, edges.length * 2);
+			}
+			int offset = edgeCount * 4;
+			if (y0 < y1) {
+				edges[offset] = x0;
+				edges[offset + 1] = y0;
+				edges[offset + 2] = x1;
+				edges[offset + 3] = y1;
+			} else {
+				edges[offset] = x1;
+				edges[offset + 1] = y1;
+				edges[offset + 2] = x0;
+				edges[offset + 3] = y0;
+			}
+			edgeCount++;
+		}
+
+		/**
+		 * Adds the part of the ellipse of the points (x + radiusX * cos(t), y + radiusY * sin(t)) from t = startAngle
+		 * over extentAngle, as segments.
+		 */
+		void addArc(double x, double y, double radiusX, double radiusY, double startAngle, double extentAngle) {
+			double radius = Math.max(Math.abs(radiusX), Math.abs(radiusY));
+			if (!(Double.isFinite(radius) && Double.isFinite(startAngle) && Double.isFinite(extentAngle))) {
+				return;
+			}
+			// A chord over angle a deviates from its arc by radius * (1 - cos(a / 2)).
+			int segments = 1;
+			if (radius > FLATNESS) {
+				double step = 2 * Math.acos(1 - FLATNESS / radius);
+				segments = (int) Math.max(1, Math.min(1 << 16, Math.ceil(Math.abs(extentAngle) / step)));
+			}
+			double previousX = x + radiusX * Math.cos(startAngle);
+			double previousY = y + radiusY * Math.sin(startAngle);
+			for (int i = 1; i <= segments; i++) {
+				double angle = startAngle + extentAngle * i / segments;
+				double nextX = x + radiusX * Math.cos(angle);
+				double nextY = y + radiusY * Math.sin(angle);
+				addSegment(previousX, previousY, nextX, nextY);
+				previousX = nextX;
+				previousY = nextY;
+			}
+		}
+
+		Fill build(int argb) {
+			return new Fill(Arrays.copyOf(edges, edgeCount * 4), minX, minY, maxX, maxY, argb);
+		}
+
+	}
+
+	/**
+	 * Draws the tiles with indices {@code from} (inclusive) to {@code to} (exclusive), splitting the range in halves
+	 * until a task draws a single tile. Tiles are numbered row by row.
+	 */
+	private static final class TileTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Fill[] fills;
+		private final int[] framebuffer;
+		private final int width;
+		private final int height;
+		private final int tileSize;
+		private final int tilesX;
+		private final int from;
+		private final int to;
+
+		TileTask(Fill[] fills, int[] framebuffer, int width, int height, int tileSize, int tilesX, int from, int to) {
+			this.fills = fills;
+			this.framebuffer = framebuffer;
+			this.width = width;
+			this.height = height;
+			this.tileSize = tileSize;
+			this.tilesX = tilesX;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new TileTask(fills, framebuffer, width, height, tileSize, tilesX, from, middle),
+					new TileTask(fills, framebuffer, width, height, tileSize, tilesX, middle, to));
+				return;
+			}
+
+			int tileLeft = from % tilesX * tileSize;
+			int tileTop = from / tilesX * tileSize;
+			new TileRenderer(framebuffer, width, tileLeft, tileTop, (int) Math.min(width, (long) tileLeft + tileSize),
+				(int) Math.min(height, (long) tileTop + tileSize)).render(fills);
+		}
+
+	}
+
+	/**
+	 * Scan-converts fills within one tile, reusing its buffers from fill to fill.
+	 */
+	private static final class TileRenderer {
+
+		private final int[] framebuffer;
+		private final int width;
+		private final int tileLeft;
+		private final int tileTop;
+		private final int tileRight;
+		private final int tileBottom;
+		/** The coverage of the pixels of the current row, indexed from {@code tileLeft}. */
+		private final float[] coverage;
+		/** The segments of the current fill that overlap the tile vertically. */
+		private double[] edges = new double[64];
+		private int edgeCount;
+		private double[] crossings = new double[16];
+
+		TileRenderer(int[] framebuffer, int width, int tileLeft, int tileTop, int tileRight, int tileBottom) {
+			this.framebuffer = framebuffer;
+			this.width = width;
+			this.tileLeft = tileLeft;
+			this.tileTop = tileTop;
+			this.tileRight = tileRight;
+			this.tileBottom = tileBottom;
+			this.coverage = new float[tileRight - tileLeft];
+		}
+
+		void render(Fill[] fills) {
+			for (Fill fill : fills) {
+				if (fill.maxX > tileLeft && fill.minX < tileRight && fill.maxY > tileTop && fill.minY < tileBottom) {
+					render(fill);
+				}
+			}
+		}
+
+		private void render(Fill fill) {
+			edgeCount = 0;
+			for (int offset = 0; offset < fill.edges.length; offset += 4) {
+				if (fill.edges[offset + 1] < tileBottom && fill.edges[offset + 3] > tileTop) {
+					if (edges.length < (edgeCount + 1) * 4) {
+						edges = Arrays.copyOf(edges, edges.length * 2);
+					}
+					System.arraycopy(fill.edges, offset, edges, edgeCount * 4, 4);
+					edgeCount++;
+				}
+			}
+			if (edgeCount == 0) {
+				return;
+			}
+
+			int left = (int) Math.max(tileLeft, Math.floor(fill.minX));
+			int right = (int) Math.min(tileRight, Math.ceil(fill.maxX));
+			int top = (int) Math.max(tileTop, Math.floor(fill.minY));
+			int bottom = (int) Math.min(tileBottom, Math.ceil(fill.maxY));
+			for (int row = top; row < bottom; row++) {
+				for (int sample = 0; sample < SUBSAMPLES; sample++) {
+					coverSampleRow(row + (sample + 0.5) / SUBSAMPLES);
+				}
+				blendRow(row, left, right, fill.argb);
+			}
+		}
+
+		/**
+		 * Adds the parts of the current row that lie inside the current fill along the sample row at the given Y.
+		 */
+		private void coverSampleRow(double y) {
+			int crossingCount = 0;
+			for (int offset = 0; offset < edgeCount * 4; offset += 4) {
+				double y0 = edges[offset + 1];
+				double y1 = edges[offset + 3];
+				if (y0 <= y && y < y1) {
+					if (crossingCount == crossings.length) {
+						crossings = Arrays.copyOf(crossings, crossings.length * 2);
+					}
+					double x0 = edges[offset];
+					crossings[crossingCount++] = x0 + (y - y0) * (edges[offset + 2] - x0) / (y1 - y0);
+				}
+			}
+			if (crossingCount < 2) {
+				return;
+			}
+			Arrays.sort(crossings, 0, crossingCount);
+
+			// By the even-odd rule, the sample row is inside between the first and second crossing, the third and fourth, and so on.
+			float weight = 1f / SUBSAMPLES;
+			for (int i = 0; i + 1 < crossingCount; i += 2) {
+				double start = Math.max(crossings[i], tileLeft);
+				double end = Math.min(crossings[i + 1], tileRight);
+				if (!(start < end)) {
+					continue;
+				}
+				int startPixel = (int) Math.floor(start);
+				int endPixel = (int) Math.floor(end);
+				if (startPixel == endPixel) {
+					coverage[startPixel - tileLeft] += (float) (end - start) * weight;
+					continue;
+				}
+				coverage[startPixel - tileLeft] += (float) (startPixel + 1 - start) * weight;
+				for (int pixel = startPixel + 1; pixel < endPixel; pixel++) {
+					coverage[pixel - tileLeft] += weight;
+				}
+				if (end > endPixel) {
+					coverage[endPixel - tileLeft] += (float) (end - endPixel) * weight;
+				}
+			}
+		}
+
+		/**
+		 * Blends the given color into the pixels of the given row by their coverage, and clears the coverage.
+		 */
+		private void blendRow(int row, int left, int right, int argb) {
+			int base = row * width;
+			for (int x = left; x < right; x++) {
+				float alpha = coverage[x - tileLeft];
+				coverage[x - tileLeft] = 0;
+				if (alpha <= 0) {
+					continue;
+				}
+				if (alpha >= 1) {
+					framebuffer[base + x] = argb;
+					continue;
+				}
+				framebuffer[base + x] = blend(framebuffer[base + x], argb, alpha);
+			}
+		}
+
+	}
+
+	/**
+	 * Returns the non-premultiplied ARGB color of the given opaque color drawn with the given opacity over the given color.
+	 */
+	private static int blend(int destination, int source, float alpha) {
+		float destinationAlpha = (destination >>> 24) / 255f;
+		float keep = destinationAlpha * (1 - alpha);
+		float resultAlpha = alpha + keep;
+		int result = Math.round(resultAlpha * 255) << 24;
+		for (int shift = 16; shift >= 0; shift -= 8) {
+			int channel = Math.round((((source >>> shift) & 0xFF) * alpha + ((destination >>> shift) & 0xFF) * keep) / resultAlpha);
+			result |= Math.min(255, channel) << shift;
+		}
+		return result;
+	}
+
+}
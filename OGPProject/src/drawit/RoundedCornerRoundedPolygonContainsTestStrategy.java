@@ -0,0 +1,91 @@
+package drawit;
+
+import java.util.stream.IntStream;
+import drawit.shapegroups1.Extent;
+
+/**
+ * Tests points against the shape drawn by {@link RoundedPolygon#getDrawingCommands()}, whose corners are rounded with
+ * the polygon's radius, rather than against the polygon's vertices.
+ *
+ * Rounding a corner cuts a small region off the polygon at a convex corner, or adds one at a reflex corner: the region
+ * between the corner's vertex, its two cut points and its arc. A point is only tested against the regions of the
+ * corners whose bounding boxes share a cell of the polygon's {@link CornerIndex} with it; everywhere else, the answer is
+ * that of {@link RoundedPolygon#contains(int, int)}. The corners are taken from the table the polygon caches for drawing,
+ * so a query does no trigonometry.
+ */
+public class RoundedCornerRoundedPolygonContainsTestStrategy implements RoundedPolygonContainsTestStrategy {
+
+	/**
+	 * Returns {@code true} iff point is contained by the shape drawn for polygon, with its rounded corners.
+	 *
+	 * @inspects | polygon
+	 *
+	 * @throws IllegalArgumentException if argument {@code polygon} is {@code null}.
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if argument {@code point} is {@code null}.
+	 *    | point == null
+	 *
+	 * @post If the polygon's corners are not rounded, the result is {@code true} iff point is contained by the polygon's vertices.
+	 *    | polygon.getRadius() != 0 || result == polygon.contains(point)
+	 */
+	public boolean contains(RoundedPolygon polygon, IntPoint point) {
+		if (polygon == null) {
+			throw new IllegalArgumentException("polygon is null");
+		}
+		if (point == null) {
+			throw new IllegalArgumentException("point is null");
+		}
+
+		return contains(polygon, point.getX(), point.getY());
+	}
+
+	/**
+	 * Determines for each of the given points whether it is contained by the shape drawn for polygon, with its rounded corners.
+	 *
+	 * @inspects | polygon, xs, ys
+	 * @mutates | result
+	 *
+	 * @throws IllegalArgumentException if argument {@code polygon} is {@code null}.
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if any of the arrays is {@code null} or the arrays do not all have the same length.
+	 *    | xs == null || ys == null || result == null || xs.length != ys.length || xs.length != result.length
+	 *
+	 * @post Each element of {@code result} is the result of {@code contains} for the corresponding point.
+	 *    | IntStream.range(0, result.length).allMatch(i -> result[i] == contains(polygon, new IntPoint(xs[i], ys[i])))
+	 */
+	@Override
+	public void containsAll(RoundedPolygon polygon, int[] xs, int[] ys, boolean[] result) {
+		if (polygon == null) {
+			throw new IllegalArgumentException("polygon is null");
+		}
+		if (xs == null || ys == null || result == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (xs.length != ys.length || xs.length != result.length) {
+			throw new IllegalArgumentException("arguments differ in length");
+		}
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = contains(polygon, xs[i], ys[i]);
+		}
+	}
+
+	private static boolean contains(RoundedPolygon polygon, int x, int y) {
+		int n = polygon.getVertexCount();
+		if (n < 3 || polygon.getRadius() == 0) {
+			return polygon.contains(x, y);
+		}
+		// Rounding only moves the outline within the bounding box of the vertices.
+		Extent box = polygon.getBoundingBox();
+		if (x < box.getLeft() || box.getRight() < x || y < box.getTop() || box.getBottom() < y) {
+			return false;
+		}
+
+		int corner = polygon.getCornerIndex().cutOffCornerAt(x, y);
+		if (corner < 0) {
+			return polygon.contains(x, y);
+		}
+		return polygon.getCornerGeometry()[corner * CornerGeometry.STRIDE + CornerGeometry.BEND] < 0;
+	}
+
+}
@@ -1,6 +1,10 @@
 package drawit;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.stream.IntStream;
 import drawit.shapegroups1.Extent;
@@ -24,20 +28,103 @@ import drawit.shapegroups1.Extent;
 public class RoundedPolygon {
 	
 	/**
+	 * Polygons with fewer vertices are scanned directly; for them, building a point-location index does not pay off.
+	 */
+	private static final int INDEX_MIN_VERTICES = 32;
+	private static final int INDEX_AFTER_QUERIES = 8;
+	private static final int INDEX_MAX_ENTRIES_PER_VERTEX = 32;
+	/**
+	 * Polygons with fewer vertices are scanned directly even if they are convex.
+	 */
+	private static final int CONVEX_MIN_VERTICES = 8;
+	/**
+	 * Simplified outlines are kept for tolerances of 1, 2, 4, ... units. Drawing at a scale is allowed to be off by at
+	 * most {@code SIMPLIFICATION_ERROR} device units.
+	 */
+	private static final int SIMPLIFICATION_LEVELS = 31;
+	private static final double SIMPLIFICATION_ERROR = 0.5;
+	
+	/**
+	 * The coordinates of the vertices are stored in two parallel arrays rather than as {@code IntPoint} objects,
+	 * so that the loops over the vertices read consecutive memory.
+	 * 
 	 * @invar | 0 <= radius
-	 * @invar | vertices != null
-	 * @invar | Arrays.stream(vertices).allMatch(e -> e != null)
-	 * @invar | PointArrays.checkDefinesProperPolygon(vertices) == null
+	 * @invar | xs != null && ys != null
+	 * @invar | xs.length == ys.length
+	 * @invar | PointArrays.checkDefinesProperPolygon(xs, ys) == null
 	 * @invar | color != null
 	 * @invar | box != null
 	 * 
 	 * @representationObject
 	 */
-	private IntPoint[] vertices;
+	private int[] xs;
+	private int[] ys;
 	private int radius;
 	private Color color;
 	private Extent box;
 	
+	/**
+	 * Index over the edges of this polygon, built on the first edit and kept up to date by later edits
+	 * so that they only need to check the edges they change.
+	 * 
+	 * @invar | edgeGrid == null || 4 <= xs.length
+	 */
+	private EdgeGrid edgeGrid;
+	
+	/**
+	 * Incremented whenever the vertices change, so that pending edits can tell they are out of date.
+	 */
+	private int modificationCount;
+	
+	/**
+	 * Point-location index answering {@code contains}, built once the vertices have been queried often enough
+	 * without changing, or {@code null}.
+	 */
+	private SlabIndex slabIndex;
+	private int unindexedQueries;
+	
+	/**
+	 * Rectangle of points known to be contained by this polygon, computed on first use as recorded by
+	 * {@code inscribedRectangleSearched}; see {@link InscribedRectangle#find(int[], int[])}.
+	 */
+	private InscribedRectangle inscribedRectangle;
+	private boolean inscribedRectangleSearched;
+	
+	/**
+	 * The two monotone chains of this polygon if it is convex, found on the first query after the vertices change
+	 * as recorded by {@code convexChainsSearched}; {@code null} otherwise.
+	 */
+	private ConvexChains convexChains;
+	private boolean convexChainsSearched;
+	
+	/**
+	 * The table computed by {@link CornerGeometry#compute(int[], int[], int)} for the current vertices and radius,
+	 * or {@code null} if it has not been computed yet.
+	 */
+	private double[] cornerGeometry;
+	
+	/**
+	 * Index over the rounded corners in {@code cornerGeometry}, or {@code null} if it has not been built yet.
+	 */
+	private CornerIndex cornerIndex;
+	
+	/**
+	 * For each level {@code k}, the indices of the vertices kept by simplifying this polygon with tolerance {@code 2^k},
+	 * or {@code null} if that has not been computed yet for the current vertices; see {@link PolygonSimplifier}.
+	 * 
+	 * @invar | simplifiedVertices.length == SIMPLIFICATION_LEVELS
+	 */
+	private final int[][] simplifiedVertices = new int[SIMPLIFICATION_LEVELS][];
+	
+	/**
+	 * Run whenever the vertices, radius or color of this polygon change; see {@link #addChangeListener(Runnable)}.
+	 * 
+	 * @invar | changeListeners != null
+	 * 
+	 * @representationObject
+	 */
+	private final ArrayList<Runnable> changeListeners = new ArrayList<>();
+	
 	/**
 	 * Initializes an unrounded (radius 0) and empty (no initial vertices) polygon.
 	 * 
@@ -53,7 +140,8 @@ public class RoundedPolygon {
 	 *    | this.getBoundingBox().equals(Extent.ofLeftTopRightBottom(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE))
 	 */
 	public RoundedPolygon() {
-		vertices = new IntPoint[]{};
+		xs = new int[0];
+		ys = new int[0];
 		radius = 0;
 		color = Color.WHITE;
 		box = Extent.ofLeftTopRightBottom(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
@@ -79,32 +167,191 @@ public class RoundedPolygon {
 			throw new IllegalArgumentException("point is null");
 		}
 		
+		return contains(point.getX(), point.getY());
+	}
+	
+	/**
+	 * Returns true if the point with the given coordinates is contained by the (non-rounded) polygon defined by this rounded polygon's vertices.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @post The result is the same as for the point with the given coordinates.
+	 *    | result == contains(new IntPoint(px, py))
+	 */
+	public boolean contains(int px, int py) {
+		ConvexChains convex = getConvexChains();
+		if (convex != null) {
+			return convex.contains(px, py);
+		}
+		SlabIndex index = getSlabIndex(1);
+		if (index != null) {
+			return index.contains(px, py);
+		}
+		
 		boolean contains = false;
-		for (int i = 0; i < vertices.length; i++) {
-			int j = (i + 1) % vertices.length;
-			IntPoint p1 = vertices[i];
-			IntPoint p2 = vertices[j];
+		for (int i = 0; i < xs.length; i++) {
+			int j = (i + 1) % xs.length;
+			int x1 = xs[i];
+			int y1 = ys[i];
+			int x2 = xs[j];
+			int y2 = ys[j];
 			
-			if (point.equals(p1) || point.equals(p2)) {
+			if (px == x1 && py == y1 || px == x2 && py == y2) {
 				return true;
 			}
 			
-			if ((point.getY() > p1.getY()) == point.getY() > p2.getY()) {
+			if ((py > y1) == py > y2) {
 				continue;
 			}
 			
-			int intersectX = p1.getX() + (p2.getX() - p1.getX()) * (point.getY() - p1.getY()) / (p2.getY() - p1.getY());
-			if (point.getX() == intersectX) {
+			int intersectX = x1 + (x2 - x1) * (py - y1) / (y2 - y1);
+			if (px == intersectX) {
 				return true;
 			}
 			
-			if (point.getX() < intersectX) {
+			if (px < intersectX) {
 				contains = !contains;
 			}
 		}
 		return contains;
 	}
 	
+	/**
+	 * Determines for each of the given points whether it is contained by the (non-rounded) polygon defined by this rounded polygon's vertices.
+	 * The point at index {@code i} has coordinates {@code pxs[i]} and {@code pys[i]}; its result is stored in {@code result[i]}.
+	 * 
+	 * @inspects | this, pxs, pys
+	 * @mutates | result
+	 * 
+	 * @throws IllegalArgumentException if any of the arguments is {@code null}.
+	 *    | pxs == null || pys == null || result == null
+	 * @throws IllegalArgumentException if the arguments do not all have the same length.
+	 *    | pxs.length != pys.length || pxs.length != result.length
+	 * 
+	 * @post Each element of {@code result} tells whether the corresponding point is contained by this polygon.
+	 *    | IntStream.range(0, result.length).allMatch(i -> result[i] == contains(pxs[i], pys[i]))
+	 */
+	public void containsAll(int[] pxs, int[] pys, boolean[] result) {
+		if (pxs == null || pys == null || result == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (pxs.length != pys.length || pxs.length != result.length) {
+			throw new IllegalArgumentException("arguments differ in length");
+		}
+		
+		int m = result.length;
+		ConvexChains convex = getConvexChains();
+		if (convex != null) {
+			for (int k = 0; k < m; k++) {
+				result[k] = convex.contains(pxs[k], pys[k]);
+			}
+			return;
+		}
+		SlabIndex index = getSlabIndex(m);
+		if (index != null) {
+			for (int k = 0; k < m; k++) {
+				result[k] = index.contains(pxs[k], pys[k]);
+			}
+			return;
+		}
+		
+		// Visit the edges in the outer loop, so that each edge is loaded once for all points.
+		boolean[] onBoundary = new boolean[m];
+		Arrays.fill(result, false);
+		for (int i = 0; i < xs.length; i++) {
+			int j = (i + 1) % xs.length;
+			int x1 = xs[i];
+			int y1 = ys[i];
+			int x2 = xs[j];
+			int y2 = ys[j];
+			
+			for (int k = 0; k < m; k++) {
+				int px = pxs[k];
+				int py = pys[k];
+				if (px == x1 && py == y1 || px == x2 && py == y2) {
+					onBoundary[k] = true;
+					continue;
+				}
+				
+				if ((py > y1) == py > y2) {
+					continue;
+				}
+				
+				int intersectX = x1 + (x2 - x1) * (py - y1) / (y2 - y1);
+				if (px == intersectX) {
+					onBoundary[k] = true;
+				} else if (px < intersectX) {
+					result[k] = !result[k];
+				}
+			}
+		}
+		for (int k = 0; k < m; k++) {
+			result[k] |= onBoundary[k];
+		}
+	}
+	
+	/**
+	 * Returns the point-location index for this polygon, building it if the vertices have now been queried
+	 * often enough, counting {@code queries} more queries; or {@code null} if the vertices should be scanned.
+	 */
+	private SlabIndex getSlabIndex(int queries) {
+		if (slabIndex == null && INDEX_MIN_VERTICES <= xs.length && unindexedQueries < INDEX_AFTER_QUERIES) {
+			unindexedQueries = (int) Math.min(INDEX_AFTER_QUERIES, (long) unindexedQueries + queries);
+			if (unindexedQueries == INDEX_AFTER_QUERIES) {
+				slabIndex = SlabIndex.build(xs, ys, INDEX_MAX_ENTRIES_PER_VERTEX * xs.length);
+			}
+		}
+		return slabIndex;
+	}
+	
+	/**
+	 * Returns the monotone chains of this polygon if it is convex and large enough for them to pay off, or {@code null}.
+	 */
+	private ConvexChains getConvexChains() {
+		if (!convexChainsSearched) {
+			convexChains = CONVEX_MIN_VERTICES <= xs.length ? ConvexChains.build(xs, ys) : null;
+			convexChainsSearched = true;
+		}
+		return convexChains;
+	}
+	
+	/**
+	 * Returns the geometry of this polygon's rounded corners, as laid out by {@link CornerGeometry}.
+	 * The table is shared and must not be modified.
+	 * 
+	 * @pre | 3 <= getVertexCount()
+	 */
+	double[] getCornerGeometry() {
+		if (cornerGeometry == null) {
+			cornerGeometry = CornerGeometry.compute(xs, ys, radius);
+		}
+		return cornerGeometry;
+	}
+	
+	/**
+	 * Returns an index over this polygon's rounded corners, built from {@link #getCornerGeometry()}.
+	 * 
+	 * @pre | 3 <= getVertexCount()
+	 */
+	CornerIndex getCornerIndex() {
+		if (cornerIndex == null) {
+			cornerIndex = new CornerIndex(xs, ys, getCornerGeometry());
+		}
+		return cornerIndex;
+	}
+	
+	/**
+	 * Returns a rectangle of points this polygon contains, or {@code null} if {@code contains} does not follow this
+	 * polygon's shape.
+	 */
+	InscribedRectangle getInscribedRectangle() {
+		if (!inscribedRectangleSearched) {
+			inscribedRectangle = InscribedRectangle.find(xs, ys);
+			inscribedRectangleSearched = true;
+		}
+		return inscribedRectangle;
+	}
+	
 	/**
 	 * Changes the point at the given index in this polygon's vertices to the given point.
 	 * 
@@ -125,7 +372,7 @@ public class RoundedPolygon {
 	 *    | IntStream.range(0, this.getVertices().length).allMatch(i -> 
 	 *    |     i == index || this.getVertices()[i].equals(old(this.getVertices())[i]))
 	 * @post This polygon's vertex at index {@code index} is equal to {@code point}.
-	 *    | this.getVertices()[index] == point
+	 *    | this.getVertices()[index].equals(point)
 	 * @post The bounding box gets updated. 
 	 *    | this.getBoundingBox() != old(this.getBoundingBox())
 	 */
@@ -133,19 +380,96 @@ public class RoundedPolygon {
 		if (point == null) {
 			throw new IllegalArgumentException("point is null");
 		}
-		if (!(0 <= index && index < getVertices().length)) {
+		if (!(0 <= index && index < xs.length)) {
 			throw new IllegalArgumentException("invalid index");
 		}
 		
-		IntPoint[] newVertices = PointArrays.update(vertices, index, point);
-		String properCheck = PointArrays.checkDefinesProperPolygon(newVertices);
+		int n = xs.length;
+		if (n < 4) {
+			int[] newXs = xs.clone();
+			int[] newYs = ys.clone();
+			newXs[index] = point.getX();
+			newYs[index] = point.getY();
+			replaceVertices(newXs, newYs);
+			return;
+		}
+		
+		// Only the two edges meeting at the changed vertex can introduce a violation.
+		if (edgeGrid == null) {
+			edgeGrid = new EdgeGrid(xs, ys);
+		}
+		int before = (index + n - 1) % n;
+		int oldX = xs[index];
+		int oldY = ys[index];
+		
+		moveVertex(index, before, point.getX(), point.getY());
+		String properCheck = edgeGrid.checkEdges(xs, ys, before, index);
 		
 		if (properCheck != null) {
+			moveVertex(index, before, oldX, oldY);
 			throw new IllegalArgumentException("new vertices do not define a proper polygon: " + properCheck);
 		}
 		
-		vertices = newVertices;
+		verticesChanged();
+		dropOutgrownEdgeGrid();
+		// A vertex moving within the interior of the bounding box cannot change it.
+		if (box.getLeft() < oldX && oldX < box.getRight() && box.getTop() < oldY && oldY < box.getBottom()
+				&& box.getLeft() <= point.getX() && point.getX() <= box.getRight() && box.getTop() <= point.getY() && point.getY() <= box.getBottom()) {
+			box = Extent.ofLeftTopRightBottom(box.getLeft(), box.getTop(), box.getRight(), box.getBottom());
+		} else {
+			updateBox();
+		}
+		changed();
+	}
+	
+	/**
+	 * Moves the vertex at {@code index} to (x, y), keeping the edge grid up to date.
+	 */
+	private void moveVertex(int index, int before, int x, int y) {
+		int after = (index + 1) % xs.length;
+		edgeGrid.removeEdge(before, xs[before], ys[before], xs[index], ys[index]);
+		edgeGrid.removeEdge(index, xs[index], ys[index], xs[after], ys[after]);
+		xs[index] = x;
+		ys[index] = y;
+		edgeGrid.addEdge(before, xs[before], ys[before], x, y);
+		edgeGrid.addEdge(index, x, y, xs[after], ys[after]);
+	}
+	
+	/**
+	 * Drops the edge grid once edits have moved or added enough edges that building a new one on the next edit pays off.
+	 */
+	private void dropOutgrownEdgeGrid() {
+		if (edgeGrid.isOutgrown()) {
+			edgeGrid = null;
+		}
+	}
+	
+	/**
+	 * Checks whether the vertices with coordinates {@code newXs} and {@code newYs}, which have fewer than 4 vertices
+	 * or replace a polygon with fewer than 4 vertices, define a proper polygon, and if so, makes them the new vertices
+	 * of this polygon.
+	 * 
+	 * @throws IllegalArgumentException if the new vertices do not define a proper polygon.
+	 */
+	private void replaceVertices(int[] newXs, int[] newYs) {
+		String properCheck = PointArrays.checkDefinesProperPolygon(newXs, newYs);
+		if (properCheck != null) {
+			throw new IllegalArgumentException("new vertices do not define a proper polygon: " + properCheck);
+		}
+		
+		setCheckedVertices(newXs, newYs);
+	}
+	
+	/**
+	 * Makes the vertices with coordinates {@code newXs} and {@code newYs}, which are known to define a proper polygon,
+	 * the new vertices of this polygon.
+	 */
+	private void setCheckedVertices(int[] newXs, int[] newYs) {
+		xs = newXs;
+		ys = newYs;
+		verticesChanged();
 		updateBox();
+		changed();
 	}
 	
 	/**
@@ -179,19 +503,38 @@ public class RoundedPolygon {
 		if (point == null) {
 			throw new IllegalArgumentException("point is null");
 		}
-		if (!(0 <= index && index <= getVertices().length)) {
+		if (!(0 <= index && index <= xs.length)) {
 			throw new IllegalArgumentException("invalid index");
 		}
 		
-		IntPoint[] newVertices = PointArrays.insert(vertices, index, point);
-		String properCheck = PointArrays.checkDefinesProperPolygon(newVertices);
+		int n = xs.length + 1;
+		int[] newXs = new int[n];
+		int[] newYs = new int[n];
+		System.arraycopy(xs, 0, newXs, 0, index);
+		System.arraycopy(ys, 0, newYs, 0, index);
+		newXs[index] = point.getX();
+		newYs[index] = point.getY();
+		System.arraycopy(xs, index, newXs, index + 1, n - index - 1);
+		System.arraycopy(ys, index, newYs, index + 1, n - index - 1);
+		if (n < 5) {
+			replaceVertices(newXs, newYs);
+			return;
+		}
+		
+		// Only the two edges meeting at the new vertex can introduce a violation.
+		if (edgeGrid == null) {
+			edgeGrid = new EdgeGrid(xs, ys);
+		}
+		edgeGrid.insertVertex(newXs, newYs, index);
+		String properCheck = edgeGrid.checkEdges(newXs, newYs, (index + n - 1) % n, index);
 		
 		if (properCheck != null) {
+			edgeGrid.removeVertex(newXs, newYs, index);
 			throw new IllegalArgumentException("new vertices do not define a proper polygon: " + properCheck);
 		}
 		
-		vertices = newVertices;
-		updateBox();
+		setCheckedVertices(newXs, newYs);
+		dropOutgrownEdgeGrid();
 	}
 
 	/**
@@ -215,19 +558,37 @@ public class RoundedPolygon {
 	 *    | this.getBoundingBox() != old(this.getBoundingBox())
 	 */
 	public void remove(int index) {
-		if (!(0 <= index && index < getVertices().length)) {
+		if (!(0 <= index && index < xs.length)) {
 			throw new IllegalArgumentException("invalid index");
 		}
 		
-		IntPoint[] newVertices = PointArrays.remove(vertices, index);
-		String properCheck = PointArrays.checkDefinesProperPolygon(newVertices);
+		int n = xs.length - 1;
+		int[] newXs = new int[n];
+		int[] newYs = new int[n];
+		System.arraycopy(xs, 0, newXs, 0, index);
+		System.arraycopy(ys, 0, newYs, 0, index);
+		System.arraycopy(xs, index + 1, newXs, index, n - index);
+		System.arraycopy(ys, index + 1, newYs, index, n - index);
+		if (n < 4) {
+			edgeGrid = null;
+			replaceVertices(newXs, newYs);
+			return;
+		}
+		
+		// Only the edge joining the neighbours of the removed vertex can introduce a violation.
+		if (edgeGrid == null) {
+			edgeGrid = new EdgeGrid(xs, ys);
+		}
+		edgeGrid.removeVertex(xs, ys, index);
+		String properCheck = edgeGrid.checkEdges(newXs, newYs, (index + n - 1) % n);
 		
 		if (properCheck != null) {
+			edgeGrid.insertVertex(xs, ys, index);
 			throw new IllegalArgumentException("new vertices do not define a proper polygon: " + properCheck);
 		}
 		
-		vertices = newVertices;
-		updateBox();
+		setCheckedVertices(newXs, newYs);
+		dropOutgrownEdgeGrid();
 	}
 	
 	/**
@@ -256,9 +617,9 @@ public class RoundedPolygon {
 		int left = Integer.MAX_VALUE;
 		int right = Integer.MIN_VALUE;
 		
-		for(IntPoint vertex : vertices) {
-			int x = vertex.getX();
-			int y = vertex.getY();
+		for(int i = 0; i < xs.length; i++) {
+			int x = xs[i];
+			int y = ys[i];
 			if(x < left) left = x;
 			if(x > right) right = x;
 			if(y < top) top = y;
@@ -287,61 +648,164 @@ public class RoundedPolygon {
      *      the result is a string detailing the drawing instructions of this polygon using the 'line' and 'arc' drawing operators.
 	 */
 	public String getDrawingCommands() {
-		if (vertices.length < 3) {
-			return "";
+		StringBuilder commands = new StringBuilder();
+		try {
+			writeDrawingCommands(commands);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return commands.toString();
+	}
+	
+	/**
+	 * Appends the drawing commands for this rounded polygon, as returned by {@link #getDrawingCommands()}, to the given
+	 * output, without building them as a string first.
+	 * 
+	 * @inspects | this
+	 * @mutates | out
+	 * 
+	 * @throws IllegalArgumentException if argument {@code out} is {@code null}.
+	 *    | out == null
+	 * @throws IOException if the output throws it.
+	 */
+	public void writeDrawingCommands(Appendable out) throws IOException {
+		if (out == null) {
+			throw new IllegalArgumentException("out is null");
+		}
+		if (xs.length < 3) {
+			return;
 		}
 		
-		String bc = "\n";
-		String commands = "";
-		
-		for (int i = 0; i < vertices.length; i++) {
-			int j = (i + 1) % vertices.length;
-			int k = (i + 2) % vertices.length;
-			IntPoint a = vertices[i];
-			IntPoint b = vertices[j];
-			IntPoint c = vertices[k];
-
-			DoubleVector baVector = new DoubleVector((a.getX() - b.getX()), a.getY() - b.getY());
-			DoubleVector bcVector = new DoubleVector((c.getX() - b.getX()), c.getY() - b.getY());
-			DoubleVector baUnitVector = new DoubleVector(baVector.getX() / baVector.getSize(), baVector.getY() / baVector.getSize());
-			DoubleVector bcUnitVector = new DoubleVector(bcVector.getX() / bcVector.getSize(),bcVector.getY() / bcVector.getSize());
-			DoubleVector bisectorVector = baUnitVector.plus(bcUnitVector);
-			DoubleVector bisectorUnitVector = new DoubleVector(bisectorVector.getX() / bisectorVector.getSize(), 
-					bisectorVector.getY() / bisectorVector.getSize());
-			
-			double unitCutOff = Math.abs(baUnitVector.dotProduct(bisectorUnitVector));
-			double unitRadius = Math.abs(bisectorUnitVector.crossProduct(baUnitVector));
-			double scaleFactor = Math.min(radius / unitRadius, Math.min(baVector.getSize() / 2, bcVector.getSize() / 2) / unitCutOff);
-			double cutOff = unitCutOff * scaleFactor;
-			
-			DoublePoint baCutPoint = new DoublePoint(b.getX() + baVector.getX() / baVector.getSize() * cutOff, 
-					b.getY() + baVector.getY() / baVector.getSize() * cutOff);
-			DoublePoint bcCutPoint = new DoublePoint(b.getX() + bcVector.getX() / bcVector.getSize() * cutOff, 
-					b.getY() + bcVector.getY() / bcVector.getSize() * cutOff);
-			DoublePoint cornerCenterPoint = new DoublePoint(b.getX() + bisectorVector.getX() / bisectorVector.getSize() * scaleFactor,
-					b.getY() + bisectorVector.getY() / bisectorVector.getSize() * scaleFactor);
-
-			double startAngle = baCutPoint.minus(cornerCenterPoint).asAngle();
-			double endAngle = bcCutPoint.minus(cornerCenterPoint).asAngle();
-			double extentAngle = endAngle - startAngle;
-			if (extentAngle > Math.PI) {
-				extentAngle -= Math.PI * 2;
-			} else if (extentAngle <= -Math.PI) {
-				extentAngle += Math.PI * 2;
+		writeDrawingCommands(out, getCornerGeometry(), xs.length, color);
+	}
+	
+	/**
+	 * Appends the drawing commands for a polygon with the given corner table, vertex count and color.
+	 */
+	private static void writeDrawingCommands(Appendable out, double[] corners, int n, Color color) throws IOException {
+		// Corner i rounds vertex i + 1; the line leading up to it starts at the cut point where the previous corner ends.
+		for (int i = 0; i < n; i++) {
+			int corner = i * CornerGeometry.STRIDE;
+			int previous = (i + n - 1) % n * CornerGeometry.STRIDE;
+			if (i > 0) {
+				out.append('\n');
 			}
-			
-			commands += " " + baCutPoint.getX() + " " + baCutPoint.getY();			
-			if (extentAngle != 0) {
-				commands += bc + "arc " + cornerCenterPoint.getX() + " " + cornerCenterPoint.getY() + " " + 
-						unitRadius * scaleFactor + " " + startAngle + " " + extentAngle;
+			out.append("line ").append(String.valueOf(corners[previous + CornerGeometry.BC_CUT_X])).append(' ')
+				.append(String.valueOf(corners[previous + CornerGeometry.BC_CUT_Y])).append(' ')
+				.append(String.valueOf(corners[corner + CornerGeometry.BA_CUT_X])).append(' ')
+				.append(String.valueOf(corners[corner + CornerGeometry.BA_CUT_Y]));
+			if (corners[corner + CornerGeometry.EXTENT_ANGLE] != 0) {
+				out.append("\narc ").append(String.valueOf(corners[corner + CornerGeometry.CENTER_X])).append(' ')
+					.append(String.valueOf(corners[corner + CornerGeometry.CENTER_Y])).append(' ')
+					.append(String.valueOf(corners[corner + CornerGeometry.RADIUS])).append(' ')
+					.append(String.valueOf(corners[corner + CornerGeometry.START_ANGLE])).append(' ')
+					.append(String.valueOf(corners[corner + CornerGeometry.EXTENT_ANGLE]));
 			}
-			commands += bc + "line " + bcCutPoint.getX() + " " + bcCutPoint.getY();
-
+		}
+		out.append("\nfill ").append(String.valueOf(color.getRed())).append(' ')
+			.append(String.valueOf(color.getGreen())).append(' ').append(String.valueOf(color.getBlue()));
+	}
+	
+	/**
+	 * Returns the drawing commands for this rounded polygon, simplified for drawing it at the given scale, that is,
+	 * with {@code scale} device units per unit of this polygon's coordinate system. Vertices that make no visible
+	 * difference at that scale are left out, so that a detailed polygon drawn small takes few commands.
+	 * The simplified outlines are computed once per level of detail and kept until the vertices change.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code scale} is not positive and finite.
+	 *    | !(0 < scale && scale < Double.POSITIVE_INFINITY)
+	 * 
+	 * @post At scales where a unit is drawn larger than half a device unit, the commands are not simplified.
+	 *    | scale <= 0.5 || result.equals(getDrawingCommands())
+	 */
+	public String getDrawingCommands(double scale) {
+		if (!(0 < scale && scale < Double.POSITIVE_INFINITY)) {
+			throw new IllegalArgumentException("scale is not positive and finite");
 		}
 		
-		commands = commands.substring(commands.lastIndexOf(bc) + 1, commands.length()) + commands.substring(0, commands.lastIndexOf(bc));
-		commands += bc + "fill " + color.getRed() + " " + color.getGreen() + " " + color.getBlue();
-		return commands;
+		// The level whose tolerance is the largest power of two within the allowed error, measured in polygon units.
+		int level = Math.getExponent(SIMPLIFICATION_ERROR / scale);
+		if (xs.length <= 3 || level < 0) {
+			return getDrawingCommands();
+		}
+		level = Math.min(level, SIMPLIFICATION_LEVELS - 1);
+		if (simplifiedVertices[level] == null) {
+			simplifiedVertices[level] = PolygonSimplifier.simplify(xs, ys, Math.scalb(1.0, level));
+		}
+		int[] kept = simplifiedVertices[level];
+		if (kept.length == xs.length) {
+			return getDrawingCommands();
+		}
+		
+		int[] keptXs = new int[kept.length];
+		int[] keptYs = new int[kept.length];
+		for (int i = 0; i < kept.length; i++) {
+			keptXs[i] = xs[kept[i]];
+			keptYs[i] = ys[kept[i]];
+		}
+		StringBuilder commands = new StringBuilder();
+		try {
+			writeDrawingCommands(commands, CornerGeometry.compute(keptXs, keptYs, radius), kept.length, color);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return commands.toString();
+	}
+	
+	/**
+	 * Passes the drawing commands for this rounded polygon, as returned by {@link #getDrawingCommands()}, to the given
+	 * consumer, one call per command.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code consumer} is {@code null}.
+	 *    | consumer == null
+	 */
+	public void forEachDrawingCommand(DrawingCommandConsumer consumer) {
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer is null");
+		}
+		if (xs.length < 3) {
+			return;
+		}
+		
+		double[] corners = getCornerGeometry();
+		int n = xs.length;
+		for (int i = 0; i < n; i++) {
+			int corner = i * CornerGeometry.STRIDE;
+			int previous = (i + n - 1) % n * CornerGeometry.STRIDE;
+			consumer.line(corners[previous + CornerGeometry.BC_CUT_X], corners[previous + CornerGeometry.BC_CUT_Y],
+				corners[corner + CornerGeometry.BA_CUT_X], corners[corner + CornerGeometry.BA_CUT_Y]);
+			if (corners[corner + CornerGeometry.EXTENT_ANGLE] != 0) {
+				consumer.arc(corners[corner + CornerGeometry.CENTER_X], corners[corner + CornerGeometry.CENTER_Y],
+					corners[corner + CornerGeometry.RADIUS], corners[corner + CornerGeometry.START_ANGLE],
+					corners[corner + CornerGeometry.EXTENT_ANGLE]);
+			}
+		}
+		consumer.fill(color.getRed(), color.getGreen(), color.getBlue());
+	}
+	
+	/**
+	 * Writes the drawing commands for this rounded polygon to the given stream, as one block in the binary format of
+	 * {@link BinaryDrawingCommandWriter}.
+	 * 
+	 * @inspects | this
+	 * @mutates | out
+	 * 
+	 * @throws IllegalArgumentException if argument {@code out} is {@code null}.
+	 *    | out == null
+	 * @throws IOException if the stream throws it.
+	 */
+	public void writeBinaryDrawingCommands(OutputStream out) throws IOException {
+		if (out == null) {
+			throw new IllegalArgumentException("out is null");
+		}
+		
+		BinaryDrawingCommandWriter writer = new BinaryDrawingCommandWriter();
+		forEachDrawingCommand(writer);
+		writer.writeTo(out);
 	}
 	
 	/**
@@ -370,7 +834,12 @@ public class RoundedPolygon {
 			throw new IllegalArgumentException("negative radius");
 		}
 		
-		radius = newRadius;
+		if (radius != newRadius) {
+			radius = newRadius;
+			cornerGeometry = null;
+			cornerIndex = null;
+			changed();
+		}
 	}
 	
 	/**
@@ -384,7 +853,76 @@ public class RoundedPolygon {
 	 *    | Arrays.stream(result).allMatch(e -> e != null)
 	 */
 	public IntPoint[] getVertices() {
-		return vertices.clone();
+		IntPoint[] result = new IntPoint[xs.length];
+		for (int i = 0; i < xs.length; i++) {
+			result[i] = new IntPoint(xs[i], ys[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the number of vertices of this rounded polygon.
+	 * 
+	 * @post The result equals the length of {@code getVertices()}.
+	 *    | result == getVertices().length
+	 */
+	public int getVertexCount() {
+		return xs.length;
+	}
+	
+	/**
+	 * Returns the X coordinate of the vertex at the given index.
+	 * 
+	 * @throws IllegalArgumentException if argument {@code index} is not between 0 (inclusive)
+	 *         and the amount of vertices in this polygon (exclusive).
+	 *    | !(0 <= index && index < getVertexCount())
+	 * 
+	 * @post The result equals the X coordinate of the vertex at index {@code index}.
+	 *    | result == getVertices()[index].getX()
+	 */
+	public int getX(int index) {
+		if (!(0 <= index && index < xs.length)) {
+			throw new IllegalArgumentException("invalid index");
+		}
+		
+		return xs[index];
+	}
+	
+	/**
+	 * Returns the Y coordinate of the vertex at the given index.
+	 * 
+	 * @throws IllegalArgumentException if argument {@code index} is not between 0 (inclusive)
+	 *         and the amount of vertices in this polygon (exclusive).
+	 *    | !(0 <= index && index < getVertexCount())
+	 * 
+	 * @post The result equals the Y coordinate of the vertex at index {@code index}.
+	 *    | result == getVertices()[index].getY()
+	 */
+	public int getY(int index) {
+		if (!(0 <= index && index < ys.length)) {
+			throw new IllegalArgumentException("invalid index");
+		}
+		
+		return ys[index];
+	}
+	
+	/**
+	 * Calls the given consumer with the coordinates of each vertex of this rounded polygon, in order.
+	 * Unlike {@link #getVertices()}, this does not allocate anything per vertex.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code consumer} is {@code null}.
+	 *    | consumer == null
+	 */
+	public void forEachVertex(IntBinaryConsumer consumer) {
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer is null");
+		}
+		
+		for (int i = 0; i < xs.length; i++) {
+			consumer.accept(xs[i], ys[i]);
+		}
 	}
 	
 	/**
@@ -409,13 +947,122 @@ public class RoundedPolygon {
 		if (newVertices == null || Arrays.stream(newVertices).anyMatch(e -> e == null)) {
 			throw new IllegalArgumentException("given vertices or one of its elements is null");
 		}
-		String polygonError = PointArrays.checkDefinesProperPolygon(newVertices);
+		int[] newXs = new int[newVertices.length];
+		int[] newYs = new int[newVertices.length];
+		for (int i = 0; i < newVertices.length; i++) {
+			newXs[i] = newVertices[i].getX();
+			newYs[i] = newVertices[i].getY();
+		}
+		commitVertices(newXs, newYs);
+	}
+	
+	/**
+	 * Records that the vertices changed, dropping everything derived from them.
+	 */
+	private void verticesChanged() {
+		modificationCount++;
+		slabIndex = null;
+		unindexedQueries = 0;
+		inscribedRectangle = null;
+		inscribedRectangleSearched = false;
+		convexChains = null;
+		convexChainsSearched = false;
+		cornerGeometry = null;
+		cornerIndex = null;
+		Arrays.fill(simplifiedVertices, null);
+	}
+	
+	/**
+	 * Runs the change listeners of this polygon. Called once a change is complete, so that the listeners see the new
+	 * bounding box.
+	 */
+	private void changed() {
+		if (changeListeners.isEmpty()) {
+			return;
+		}
+		// Run the listeners registered when the change completed, even if one of them unregisters itself.
+		for (Runnable listener : changeListeners.toArray(new Runnable[0])) {
+			listener.run();
+		}
+	}
+	
+	/**
+	 * Registers the given listener to be run whenever the vertices, the radius or the color of this polygon change,
+	 * so that anything derived from them, such as a cached drawing, can be dropped.
+	 * A listener must not change this polygon or register listeners, but it may unregister itself.
+	 * 
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code listener} is {@code null}.
+	 *    | listener == null
+	 */
+	public void addChangeListener(Runnable listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("listener is null");
+		}
+		
+		changeListeners.add(listener);
+	}
+	
+	/**
+	 * Unregisters the given listener, if it is registered; if it was registered more than once, one registration is removed.
+	 * 
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code listener} is {@code null}.
+	 *    | listener == null
+	 */
+	public void removeChangeListener(Runnable listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("listener is null");
+		}
+		
+		changeListeners.remove(listener);
+	}
+	
+	/**
+	 * Starts a batch of edits to this polygon's vertices. The edits are applied to a copy of the vertices
+	 * and only validated, and applied to this polygon, when the batch is committed.
+	 * 
+	 * @inspects | this
+	 * @creates | result
+	 * 
+	 * @post The result is not {@code null}
+	 *    | result != null
+	 * @post The result holds a copy of this polygon's vertices.
+	 *    | result.getVertices().length == this.getVertices().length &&
+	 *    | IntStream.range(0, this.getVertices().length).allMatch(i -> 
+	 *    |     result.getVertices()[i].equals(this.getVertices()[i]))
+	 */
+	public RoundedPolygonEdit beginEdit() {
+		return new RoundedPolygonEdit(this, xs, ys, modificationCount);
+	}
+	
+	/**
+	 * Returns the number of times the vertices of this polygon have been changed.
+	 */
+	int getModificationCount() {
+		return modificationCount;
+	}
+	
+	/**
+	 * Sets the vertices of this polygon to the ones with the given coordinates. The arrays are not copied.
+	 * 
+	 * @throws IllegalArgumentException if the given coordinates do not define a proper polygon.
+	 *    | PointArrays.checkDefinesProperPolygon(newXs, newYs) != null
+	 */
+	void commitVertices(int[] newXs, int[] newYs) {
+		String polygonError = PointArrays.checkDefinesProperPolygon(newXs, newYs);
 		if (polygonError != null) {
 			throw new IllegalArgumentException(polygonError);
 		}
 		
-		vertices = newVertices.clone();
+		xs = newXs;
+		ys = newYs;
+		edgeGrid = null;
+		verticesChanged();
 		updateBox();
+		changed();
 	}
 	
 	/**
@@ -445,6 +1092,7 @@ public class RoundedPolygon {
 		}
 		
 		this.color = color;
+		changed();
 	}
 	
 	/**
@@ -1,5 +1,7 @@
 package drawit;
 
+import java.util.stream.IntStream;
+
 public interface RoundedPolygonContainsTestStrategy {
 	
 	/**
@@ -12,4 +14,32 @@ public interface RoundedPolygonContainsTestStrategy {
 	 */
 	boolean contains(RoundedPolygon polygon, IntPoint point);
 	
+	/**
+	 * Determines for each of the given points whether it is contained by polygon.
+	 * The point at index {@code i} has coordinates {@code xs[i]} and {@code ys[i]}; its result is stored in {@code result[i]}.
+	 * 
+	 * @inspects | polygon, xs, ys
+	 * @mutates | result
+	 * 
+	 * @throws IllegalArgumentException if any of the arguments is {@code null}.
+	 *    | polygon == null || xs == null || ys == null || result == null
+	 * @throws IllegalArgumentException if the arrays do not all have the same length.
+	 *    | xs.length != ys.length || xs.length != result.length
+	 * 
+	 * @post Each element of {@code result} is the result of {@code contains} for the corresponding point.
+	 *    | IntStream.range(0, result.length).allMatch(i -> result[i] == contains(polygon, new IntPoint(xs[i], ys[i])))
+	 */
+	default void containsAll(RoundedPolygon polygon, int[] xs, int[] ys, boolean[] result) {
+		if (polygon == null || xs == null || ys == null || result == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (xs.length != ys.length || xs.length != result.length) {
+			throw new IllegalArgumentException("arguments differ in length");
+		}
+		
+		for (int i = 0; i < result.length; i++) {
+			result[i] = contains(polygon, new IntPoint(xs[i], ys[i]));
+		}
+	}
+	
 }
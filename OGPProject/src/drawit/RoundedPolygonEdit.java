@@ -0,0 +1,203 @@
+package drawit;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Each instance of this class represents a batch of edits to the vertices of a {@link RoundedPolygon}.
+ * 
+ * The edits are applied to a private copy of the polygon's vertices, stored as coordinate arrays, and are not validated
+ * one by one. Calling {@link #commit()} checks the result once and, if it defines a proper polygon,
+ * replaces the polygon's vertices with it; otherwise, the polygon is left unchanged.
+ * 
+ * @invar This edit's vertices are not {@code null}.
+ *    | getVertices() != null && Arrays.stream(getVertices()).allMatch(e -> e != null)
+ */
+public class RoundedPolygonEdit {
+	
+	/**
+	 * @invar | polygon != null
+	 * @invar | xs != null && ys != null && xs.length == ys.length
+	 * @invar | 0 <= count && count <= xs.length
+	 * 
+	 * @representationObject
+	 */
+	private final RoundedPolygon polygon;
+	private final int expectedModificationCount;
+	private int[] xs;
+	private int[] ys;
+	private int count;
+	private boolean finished;
+	
+	RoundedPolygonEdit(RoundedPolygon polygon, int[] xs, int[] ys, int expectedModificationCount) {
+		this.polygon = polygon;
+		this.expectedModificationCount = expectedModificationCount;
+		count = xs.length;
+		this.xs = Arrays.copyOf(xs, Math.max(4, count));
+		this.ys = Arrays.copyOf(ys, Math.max(4, count));
+	}
+	
+	private void checkNotFinished() {
+		if (finished) {
+			throw new IllegalStateException("this edit has already been committed or aborted");
+		}
+	}
+	
+	/**
+	 * Returns the number of vertices after the edits made so far.
+	 * 
+	 * @post The result is not negative.
+	 *    | 0 <= result
+	 */
+	public int getVertexCount() {
+		return count;
+	}
+	
+	/**
+	 * Returns a new array whose elements are the vertices after the edits made so far.
+	 * 
+	 * @creates | result
+	 * 
+	 * @post The result is not {@code null}
+	 *    | result != null
+	 * @post The result has {@code getVertexCount()} elements.
+	 *    | result.length == getVertexCount()
+	 */
+	public IntPoint[] getVertices() {
+		IntPoint[] result = new IntPoint[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = new IntPoint(xs[i], ys[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Changes the vertex at the given index to the given point.
+	 * 
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code point} is {@code null}.
+	 *    | point == null
+	 * @throws IllegalArgumentException if argument {@code index} is not between 0 (inclusive)
+	 *         and the current amount of vertices (exclusive).
+	 *    | !(0 <= index && index < getVertexCount())
+	 * @throws IllegalStateException if this edit has already been committed or aborted.
+	 * 
+	 * @post The amount of vertices remains unchanged.
+	 *    | getVertexCount() == old(getVertexCount())
+	 * @post The vertex at index {@code index} is equal to {@code point}.
+	 *    | getVertices()[index].equals(point)
+	 */
+	public void update(int index, IntPoint point) {
+		if (point == null) {
+			throw new IllegalArgumentException("point is null");
+		}
+		if (!(0 <= index && index < count)) {
+			throw new IllegalArgumentException("invalid index");
+		}
+		checkNotFinished();
+		
+		xs[index] = point.getX();
+		ys[index] = point.getY();
+	}
+	
+	/**
+	 * Inserts the given point into the vertices at the given index.
+	 * 
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code point} is {@code null}.
+	 *    | point == null
+	 * @throws IllegalArgumentException if argument {@code index} is not between 0 (inclusive)
+	 *         and the current amount of vertices (inclusive).
+	 *    | !(0 <= index && index <= getVertexCount())
+	 * @throws IllegalStateException if this edit has already been committed or aborted.
+	 * 
+	 * @post The amount of vertices is increased by 1.
+	 *    | getVertexCount() == old(getVertexCount()) + 1
+	 * @post The vertices before index {@code index} remain unchanged.
+	 *    | IntStream.range(0, index).allMatch(i -> getVertices()[i].equals(old(getVertices())[i]))
+	 * @post The vertex at index {@code index} is equal to {@code point}.
+	 *    | getVertices()[index].equals(point)
+	 * @post The vertices after index {@code index} are shifted up by 1.
+	 *    | IntStream.range(index + 1, getVertexCount()).allMatch(i -> getVertices()[i].equals(old(getVertices())[i - 1]))
+	 */
+	public void insert(int index, IntPoint point) {
+		if (point == null) {
+			throw new IllegalArgumentException("point is null");
+		}
+		if (!(0 <= index && index <= count)) {
+			throw new IllegalArgumentException("invalid index");
+		}
+		checkNotFinished();
+		
+		if (count == xs.length) {
+			xs = Arrays.copyOf(xs, count * 2);
+			ys = Arrays.copyOf(ys, count * 2);
+		}
+		System.arraycopy(xs, index, xs, index + 1, count - index);
+		System.arraycopy(ys, index, ys, index + 1, count - index);
+		xs[index] = point.getX();
+		ys[index] = point.getY();
+		count++;
+	}
+	
+	/**
+	 * Removes the vertex at the given index.
+	 * 
+	 * @mutates | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code index} is not between 0 (inclusive)
+	 *         and the current amount of vertices (exclusive).
+	 *    | !(0 <= index && index < getVertexCount())
+	 * @throws IllegalStateException if this edit has already been committed or aborted.
+	 * 
+	 * @post The amount of vertices is decreased by 1.
+	 *    | getVertexCount() == old(getVertexCount()) - 1
+	 * @post The vertices before index {@code index} remain unchanged.
+	 *    | IntStream.range(0, index).allMatch(i -> getVertices()[i].equals(old(getVertices())[i]))
+	 * @post The vertices starting at index {@code index} are shifted down by 1.
+	 *    | IntStream.range(index, getVertexCount()).allMatch(i -> getVertices()[i].equals(old(getVertices())[i + 1]))
+	 */
+	public void remove(int index) {
+		if (!(0 <= index && index < count)) {
+			throw new IllegalArgumentException("invalid index");
+		}
+		checkNotFinished();
+		
+		System.arraycopy(xs, index + 1, xs, index, count - index - 1);
+		System.arraycopy(ys, index + 1, ys, index, count - index - 1);
+		count--;
+	}
+	
+	/**
+	 * Validates the edited vertices and, if they define a proper polygon, makes them the vertices of the polygon
+	 * this edit was started on. Whether or not it succeeds, this edit is finished afterwards.
+	 * 
+	 * @mutates | this
+	 * 
+	 * @throws IllegalStateException if this edit has already been committed or aborted.
+	 * @throws IllegalStateException if the polygon's vertices were changed after this edit was started.
+	 * @throws IllegalArgumentException if the edited vertices do not define a proper polygon;
+	 *         the polygon is left unchanged.
+	 *    | PointArrays.checkDefinesProperPolygon(getVertices()) != null
+	 */
+	public void commit() {
+		checkNotFinished();
+		finished = true;
+		if (polygon.getModificationCount() != expectedModificationCount) {
+			throw new IllegalStateException("the polygon was changed after this edit was started");
+		}
+		
+		polygon.commitVertices(Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
+	}
+	
+	/**
+	 * Discards the edits made so far; the polygon this edit was started on is left unchanged.
+	 * 
+	 * @mutates | this
+	 */
+	public void abort() {
+		finished = true;
+	}
+}
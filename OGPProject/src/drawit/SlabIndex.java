@@ -0,0 +1,239 @@
+package drawit;
+
+import java.util.Arrays;
+
+/**
+ * A point-location index that answers {@link RoundedPolygon#contains(IntPoint)} for a fixed polygon in logarithmic time.
+ *
+ * The plane is cut into horizontal slabs at the distinct Y coordinates of the vertices. The edges crossing a slab
+ * do not intersect each other, so within a slab they can be sorted from left to right once, and a query only has to
+ * binary search the slab it falls in. The result is exactly that of the ray-crossing scan in {@code contains},
+ * including its rounding of the crossing points towards the start vertex of each edge.
+ */
+class SlabIndex {
+
+	/**
+	 * Coordinates beyond this bound make the orientation tests below, and the ones used to validate polygons, overflow.
+	 */
+	private static final int COORDINATE_LIMIT = 1 << 30;
+
+	/**
+	 * @invar | xs.length == ys.length
+	 * @invar | slabYs.length + 1 == slabStarts.length
+	 * @invar {@code vertexKeys} holds the vertices as returned by {@code key}, in ascending order.
+	 */
+	private final int[] xs;
+	private final int[] ys;
+	private final long[] vertexKeys;
+	private final int[] slabYs;
+	private final int[] slabStarts;
+	private final int[] slabEdges;
+
+	private SlabIndex(int[] xs, int[] ys, long[] vertexKeys, int[] slabYs, int[] slabStarts, int[] slabEdges) {
+		this.xs = xs;
+		this.ys = ys;
+		this.vertexKeys = vertexKeys;
+		this.slabYs = slabYs;
+		this.slabStarts = slabStarts;
+		this.slabEdges = slabEdges;
+	}
+
+	/**
+	 * Returns an index for the proper polygon with the given vertex coordinates, or {@code null} if the polygon's coordinates
+	 * are too large for the index to reproduce the scan exactly, or if the index would take more than {@code maxEntries}
+	 * edge entries. The arrays are not copied and must not change while the index is in use.
+	 *
+	 * @pre The given coordinates define a proper polygon with at least 3 vertices.
+	 *    | 3 <= xs.length && PointArrays.checkDefinesProperPolygon(xs, ys) == null
+	 */
+	static SlabIndex build(int[] xs, int[] ys, int maxEntries) {
+		int n = xs.length;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			if (Math.abs(xs[i]) > COORDINATE_LIMIT || Math.abs(ys[i]) > COORDINATE_LIMIT) {
+				return null;
+			}
+			// The scan multiplies these in int arithmetic; only index polygons for which that does not overflow.
+			if (Math.abs((long) xs[j] - xs[i]) * Math.abs((long) ys[j] - ys[i]) > Integer.MAX_VALUE) {
+				return null;
+			}
+		}
+
+		long[] vertexKeys = new long[n];
+		for (int i = 0; i < n; i++) {
+			vertexKeys[i] = key(xs[i], ys[i]);
+		}
+		Arrays.sort(vertexKeys);
+
+		int[] slabYs = ys.clone();
+		Arrays.sort(slabYs);
+		int distinct = 0;
+		for (int i = 0; i < n; i++) {
+			if (distinct == 0 || slabYs[distinct - 1] != slabYs[i]) {
+				slabYs[distinct++] = slabYs[i];
+			}
+		}
+		slabYs = Arrays.copyOf(slabYs, distinct);
+
+		// Slab k holds the points whose Y coordinate is in (slabYs[k], slabYs[k + 1]]; the last slab is empty.
+		int[] slabStarts = new int[distinct + 1];
+		long entries = 0;
+		for (int e = 0; e < n; e++) {
+			int f = (e + 1) % n;
+			int low = Arrays.binarySearch(slabYs, Math.min(ys[e], ys[f]));
+			int high = Arrays.binarySearch(slabYs, Math.max(ys[e], ys[f]));
+			entries += high - low;
+			for (int k = low; k < high; k++) {
+				slabStarts[k + 1]++;
+			}
+			if (entries > maxEntries) {
+				return null;
+			}
+		}
+		for (int k = 0; k < distinct; k++) {
+			slabStarts[k + 1] += slabStarts[k];
+		}
+
+		Integer[] slabEdges = new Integer[(int) entries];
+		int[] filled = Arrays.copyOf(slabStarts, distinct);
+		for (int e = 0; e < n; e++) {
+			int f = (e + 1) % n;
+			int low = Arrays.binarySearch(slabYs, Math.min(ys[e], ys[f]));
+			int high = Arrays.binarySearch(slabYs, Math.max(ys[e], ys[f]));
+			for (int k = low; k < high; k++) {
+				slabEdges[filled[k]++] = e;
+			}
+		}
+		for (int k = 0; k < distinct; k++) {
+			Arrays.sort(slabEdges, slabStarts[k], slabStarts[k + 1], (a, b) -> compareEdges(xs, ys, a, b));
+		}
+
+		int[] result = new int[slabEdges.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = slabEdges[i];
+		}
+		return new SlabIndex(xs, ys, vertexKeys, slabYs, slabStarts, result);
+	}
+
+	private static long key(int x, int y) {
+		return (long) x << 32 | (y & 0xffffffffL);
+	}
+
+	/**
+	 * Orders two edges that both cross a slab from left to right. The edge that starts higher up is located relative to
+	 * the other one using its lower endpoint, or, if that endpoint is shared with the other edge, using its upper endpoint.
+	 */
+	private static int compareEdges(int[] xs, int[] ys, int a, int b) {
+		if (a == b) {
+			return 0;
+		}
+		int n = xs.length;
+		int aLow = ys[a] < ys[(a + 1) % n] ? a : (a + 1) % n;
+		int bLow = ys[b] < ys[(b + 1) % n] ? b : (b + 1) % n;
+		if (ys[aLow] >= ys[bLow]) {
+			return side(xs, ys, a, aLow, b);
+		}
+		return -side(xs, ys, b, bLow, a);
+	}
+
+	/**
+	 * Returns 1 if edge {@code s}, whose lower endpoint is {@code sLow}, lies to the right of edge {@code t} within
+	 * the slabs they share, and -1 if it lies to the left.
+	 */
+	private static int side(int[] xs, int[] ys, int s, int sLow, int t) {
+		int n = xs.length;
+		int tLow = ys[t] < ys[(t + 1) % n] ? t : (t + 1) % n;
+		int tHigh = tLow == t ? (t + 1) % n : t;
+		int sHigh = sLow == s ? (s + 1) % n : s;
+
+		long o = orientation(xs, ys, tLow, tHigh, sLow);
+		if (o == 0) {
+			o = orientation(xs, ys, tLow, tHigh, sHigh);
+		}
+		return o < 0 ? 1 : -1;
+	}
+
+	private static long orientation(int[] xs, int[] ys, int a, int b, int c) {
+		return ((long) xs[b] - xs[a]) * ((long) ys[c] - ys[a]) - ((long) ys[b] - ys[a]) * ((long) xs[c] - xs[a]);
+	}
+
+	/**
+	 * Returns the sign of {@code n / d - k}.
+	 *
+	 * @pre | d != 0 && Math.abs(n) <= Integer.MAX_VALUE && Math.abs(d) <= 1L << 32
+	 */
+	private static int compareQuotient(long n, long d, long k) {
+		if (d < 0) {
+			n = -n;
+			d = -d;
+		}
+		if (k > Integer.MAX_VALUE) {
+			return -1;
+		}
+		if (k < -Integer.MAX_VALUE) {
+			return 1;
+		}
+		return Long.compare(n, k * d);
+	}
+
+	/**
+	 * Returns the sign of the difference between the exact X coordinate at which edge {@code e} crosses the horizontal line
+	 * through {@code py}, and {@code x}.
+	 */
+	private int compareCrossing(int e, int py, long x) {
+		int f = (e + 1) % xs.length;
+		long n = ((long) xs[f] - xs[e]) * ((long) py - ys[e]);
+		return compareQuotient(n, (long) ys[f] - ys[e], x - xs[e]);
+	}
+
+	/**
+	 * Returns the index of the first edge in {@code slabEdges[from, to)} that crosses the horizontal line through {@code py}
+	 * at an X coordinate greater than {@code x}, or equal to it if {@code inclusive}.
+	 */
+	private int firstCrossingBeyond(int from, int to, int py, long x, boolean inclusive) {
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			int sign = compareCrossing(slabEdges[middle], py, x);
+			if (sign > 0 || inclusive && sign == 0) {
+				to = middle;
+			} else {
+				from = middle + 1;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * Returns the same result as {@link RoundedPolygon#contains(IntPoint)} for the point (px, py).
+	 */
+	boolean contains(int px, int py) {
+		if (Arrays.binarySearch(vertexKeys, key(px, py)) >= 0) {
+			return true;
+		}
+
+		int k = Arrays.binarySearch(slabYs, py);
+		k = k >= 0 ? k - 1 : -k - 2;
+		if (k < 0 || k >= slabYs.length - 1) {
+			return false;
+		}
+		int start = slabStarts[k];
+		int end = slabStarts[k + 1];
+
+		// The scan rounds each crossing to within 1 of its exact position, so only edges crossing near px need the exact formula.
+		int near = firstCrossingBeyond(start, end, py, (long) px - 1, true);
+		int beyond = firstCrossingBeyond(near, end, py, (long) px + 1, false);
+		int crossings = end - beyond;
+		for (int i = near; i < beyond; i++) {
+			int e = slabEdges[i];
+			int f = (e + 1) % xs.length;
+			int intersectX = xs[e] + (xs[f] - xs[e]) * (py - ys[e]) / (ys[f] - ys[e]);
+			if (px == intersectX) {
+				return true;
+			}
+			if (px < intersectX) {
+				crossings++;
+			}
+		}
+		return crossings % 2 == 1;
+	}
+}
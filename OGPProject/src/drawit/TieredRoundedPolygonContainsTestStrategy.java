@@ -0,0 +1,84 @@
+package drawit;
+
+import java.util.stream.IntStream;
+import drawit.shapegroups1.Extent;
+
+/**
+ * Gives the same answers as {@link PreciseRoundedPolygonContainsTestStrategy}, but settles most points without visiting the
+ * polygon's vertices: points outside the bounding box are rejected, and points inside a rectangle the polygon is known to
+ * contain are accepted. Only the points in between are tested precisely.
+ */
+public class TieredRoundedPolygonContainsTestStrategy implements RoundedPolygonContainsTestStrategy {
+
+	/**
+	 * Returns {@code true} iff point is contained by polygon according to the precise method.
+	 *
+	 * @inspects | polygon
+	 *
+	 * @throws IllegalArgumentException if argument {@code polygon} is {@code null}.
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if argument {@code point} is {@code null}.
+	 *    | point == null
+	 *
+	 * @post The result is {@code true} iff point is contained by the polygon's vertices.
+	 *    | result == polygon.contains(point)
+	 */
+	public boolean contains(RoundedPolygon polygon, IntPoint point) {
+		if (polygon == null) {
+			throw new IllegalArgumentException("polygon is null");
+		}
+		if (point == null) {
+			throw new IllegalArgumentException("point is null");
+		}
+
+		return contains(polygon, polygon.getBoundingBox(), polygon.getInscribedRectangle(), point.getX(), point.getY());
+	}
+
+	/**
+	 * Determines for each of the given points whether it is contained by polygon according to the precise method.
+	 *
+	 * @inspects | polygon, xs, ys
+	 * @mutates | result
+	 *
+	 * @throws IllegalArgumentException if argument {@code polygon} is {@code null}.
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if any of the arrays is {@code null} or the arrays do not all have the same length.
+	 *    | xs == null || ys == null || result == null || xs.length != ys.length || xs.length != result.length
+	 *
+	 * @post Each element of {@code result} tells whether the corresponding point is contained by the polygon's vertices.
+	 *    | IntStream.range(0, result.length).allMatch(i -> result[i] == polygon.contains(xs[i], ys[i]))
+	 */
+	@Override
+	public void containsAll(RoundedPolygon polygon, int[] xs, int[] ys, boolean[] result) {
+		if (polygon == null) {
+			throw new IllegalArgumentException("polygon is null");
+		}
+		if (xs == null || ys == null || result == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (xs.length != ys.length || xs.length != result.length) {
+			throw new IllegalArgumentException("arguments differ in length");
+		}
+
+		Extent box = polygon.getBoundingBox();
+		InscribedRectangle inner = polygon.getInscribedRectangle();
+		for (int i = 0; i < result.length; i++) {
+			result[i] = contains(polygon, box, inner, xs[i], ys[i]);
+		}
+	}
+
+	private static boolean contains(RoundedPolygon polygon, Extent box, InscribedRectangle inner, int x, int y) {
+		if (inner == null) {
+			return polygon.contains(x, y);
+		}
+		// Unless its arithmetic overflows, the precise method never accepts a point outside the bounding box.
+		if (x < box.getLeft() || box.getRight() < x || y < box.getTop() || box.getBottom() < y) {
+			return false;
+		}
+		if (inner.contains(x, y)) {
+			return true;
+		}
+		return polygon.contains(x, y);
+	}
+
+}
@@ -0,0 +1,109 @@
+package drawit;
+
+import java.util.Arrays;
+
+/**
+ * A stack of transformations that each scale and then translate, kept as primitive values so that pushing and
+ * popping allocates nothing once the stack has grown to its largest depth. Each transformation pushed is composed with
+ * the one below it, so the top of the stack always maps the coordinates of the current command to those of the bottom.
+ */
+class TransformStack {
+	
+	/**
+	 * The transformations, as scale and translation: a point (x, y) is mapped to
+	 * (scaleX * x + translateX, scaleY * y + translateY). Element 0 is the initial transformation.
+	 * 
+	 * @invar | 1 <= depth && depth * 4 <= transforms.length
+	 * 
+	 * @representationObject
+	 */
+	private double[] transforms;
+	private int depth;
+	
+	/**
+	 * Initializes this stack to hold only the given transformation.
+	 */
+	TransformStack(double scaleX, double scaleY, double translateX, double translateY) {
+		transforms = new double[] {scaleX, scaleY, translateX, translateY, 0, 0, 0, 0};
+		depth = 1;
+	}
+	
+	private int top() {
+		return (depth - 1) * 4;
+	}
+	
+	private void push(double scaleX, double scaleY, double translateX, double translateY) {
+		if (transforms.length < (depth + 1) * 4) {
+			transforms = Arrays.copyOf(transforms, transforms.length * 2);
+		}
+		int offset = depth * 4;
+		transforms[offset] = scaleX;
+		transforms[offset + 1] = scaleY;
+		transforms[offset + 2] = translateX;
+		transforms[offset + 3] = translateY;
+		depth++;
+	}
+	
+	/**
+	 * Pushes the composition of the current transformation with a translation by (dx, dy).
+	 */
+	void pushTranslate(double dx, double dy) {
+		int top = top();
+		push(transforms[top], transforms[top + 1],
+			transforms[top + 2] + transforms[top] * dx, transforms[top + 3] + transforms[top + 1] * dy);
+	}
+	
+	/**
+	 * Pushes the composition of the current transformation with a scaling by (sx, sy).
+	 */
+	void pushScale(double sx, double sy) {
+		int top = top();
+		push(transforms[top] * sx, transforms[top + 1] * sy, transforms[top + 2], transforms[top + 3]);
+	}
+	
+	/**
+	 * Pops the transformation that was pushed last.
+	 * 
+	 * @throws IllegalStateException if no transformation has been pushed that has not been popped yet.
+	 */
+	void pop() {
+		if (depth == 1) {
+			throw new IllegalStateException("no transformation to pop");
+		}
+		
+		depth--;
+	}
+	
+	double getScaleX() {
+		return transforms[top()];
+	}
+	
+	double getScaleY() {
+		return transforms[top() + 1];
+	}
+	
+	double getTranslateX() {
+		return transforms[top() + 2];
+	}
+	
+	double getTranslateY() {
+		return transforms[top() + 3];
+	}
+	
+	/**
+	 * Returns the X coordinate that the current transformation maps the given X coordinate to.
+	 */
+	double transformX(double x) {
+		int top = top();
+		return transforms[top] * x + transforms[top + 2];
+	}
+	
+	/**
+	 * Returns the Y coordinate that the current transformation maps the given Y coordinate to.
+	 */
+	double transformY(double y) {
+		int top = top();
+		return transforms[top + 1] * y + transforms[top + 3];
+	}
+	
+}
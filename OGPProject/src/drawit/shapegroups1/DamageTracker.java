@@ -0,0 +1,238 @@
+package drawit.shapegroups1;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Each instance of this class records which regions of a tree of shape groups need to be redrawn, so that a viewer
+ * can repaint only those regions instead of the whole tree.
+ *
+ * The tracker is told about every change in the tree: a change of a shape group's extent damages the bounds of the
+ * shapes in its tree both before and after the change, a change in the order of a shape group's subgroups damages the
+ * bounds of the shapes in the tree of the subgroup that was moved, and a change of a shape's vertices, radius or color
+ * damages both its old and its new bounding box. The bounds of the shapes are used rather than extents, since a
+ * shape need not lie within the extent of its shape group. Regions are
+ * expressed in the outer coordinate system of the root, rounded outwards to whole coordinates.
+ *
+ * Overlapping regions are merged as they are recorded, so that no two damaged regions intersect. Two overlapping
+ * regions are replaced by their bounding box, so the damaged regions cover the union of the damage but may also cover
+ * undamaged parts around it; this keeps the regions few at the cost of some redrawing.
+ *
+ * @invar | getRoot() != null
+ * @invar | getDamagedRegions() != null
+ * @invar | getDamagedRegions().stream().allMatch(r -> getDamagedRegions().stream().allMatch(s -> r == s || !r.intersects(s)))
+ */
+public class DamageTracker {
+
+	/**
+	 * @invar | root != null
+	 * @invar | regions != null
+	 * @invar | regions.stream().allMatch(r -> r != null && regions.stream().allMatch(s -> r == s || !r.intersects(s)))
+	 *
+	 * @representationObject
+	 */
+	private final ShapeGroup root;
+	private final ArrayList<Extent> regions = new ArrayList<>();
+
+	/**
+	 * Initializes this tracker to record the damage to the tree of shape groups rooted at the given shape group.
+	 * Nothing is damaged initially.
+	 *
+	 * @mutates | root
+	 *
+	 * @throws IllegalArgumentException if argument {@code root} is {@code null}.
+	 *    | root == null
+	 * @throws IllegalArgumentException if argument {@code root} is part of a parent group.
+	 *    | root.getParentGroup() != null
+	 * @throws IllegalArgumentException if argument {@code root} is already tracked by another damage tracker.
+	 *
+	 * @post | getRoot() == root
+	 * @post | getDamagedRegions().isEmpty()
+	 */
+	public DamageTracker(ShapeGroup root) {
+		if (root == null) {
+			throw new IllegalArgumentException("argument root is null");
+		}
+		if (root.getParentGroup() != null) {
+			throw new IllegalArgumentException("argument root is part of a parent group");
+		}
+		if (root.damageTracker != null) {
+			throw new IllegalArgumentException("argument root is already tracked");
+		}
+
+		this.root = root;
+		root.damageTracker = this;
+		updateListening(root);
+	}
+
+	/**
+	 * Returns the root of the tree of shape groups this tracker records the damage to.
+	 *
+	 * @basic
+	 */
+	public ShapeGroup getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns {@code true} iff any region has been damaged since this tracker was created or last cleared.
+	 *
+	 * @post | result == !getDamagedRegions().isEmpty()
+	 */
+	public boolean isDamaged() {
+		return !regions.isEmpty();
+	}
+
+	/**
+	 * Returns the regions that have been damaged since this tracker was created or last cleared, expressed in the outer
+	 * coordinate system of the root. No two of the regions intersect.
+	 *
+	 * @creates | result
+	 *
+	 * @basic
+	 */
+	public List<Extent> getDamagedRegions() {
+		return new ArrayList<Extent>(regions);
+	}
+
+	/**
+	 * Returns the leaf shape groups of the tree whose shapes overlap any of the damaged regions, in the order in which
+	 * they are drawn. These are the shapes that have to be redrawn, clipped to the damaged regions.
+	 *
+	 * @inspects | this
+	 * @creates | result
+	 *
+	 * @post The result is empty if nothing is damaged.
+	 *    | isDamaged() || result.isEmpty()
+	 */
+	public List<LeafShapeGroup> getDamagedShapes() {
+		ArrayList<LeafShapeGroup> shapes = new ArrayList<>();
+		if (!regions.isEmpty()) {
+			collectDamagedShapes(root, shapes);
+		}
+		return shapes;
+	}
+
+	private void collectDamagedShapes(ShapeGroup group, List<LeafShapeGroup> shapes) {
+		if (group instanceof LeafShapeGroup) {
+			LeafShapeGroup leaf = (LeafShapeGroup) group;
+			Extent shapeBox = leaf.shapeBox;
+			Extent box = toRootExtent(leaf, shapeBox.getLeft(), shapeBox.getTop(), shapeBox.getRight(), shapeBox.getBottom());
+			for (Extent region : regions) {
+				if (region.intersects(box)) {
+					shapes.add(leaf);
+					return;
+				}
+			}
+		} else {
+			// A shape need not lie within the extents of its ancestors, so no subtree can be skipped.
+			List<ShapeGroup> subgroups = ((NonleafShapeGroup) group).subgroups;
+			for (int i = subgroups.size() - 1; i >= 0; i--) {
+				collectDamagedShapes(subgroups.get(i), shapes);
+			}
+		}
+	}
+
+	/**
+	 * Forgets all damaged regions, typically after they have been redrawn.
+	 *
+	 * @mutates | this
+	 *
+	 * @post | getDamagedRegions().isEmpty()
+	 */
+	public void clear() {
+		regions.clear();
+	}
+
+	/**
+	 * Stops recording the damage to the root's tree, so that another tracker can be created for it.
+	 *
+	 * @mutates | this, getRoot()
+	 *
+	 * @throws IllegalStateException if this tracker was already detached.
+	 */
+	public void detach() {
+		if (root.damageTracker != this) {
+			throw new IllegalStateException("this tracker is already detached");
+		}
+
+		root.damageTracker = null;
+		updateListening(root);
+	}
+	
+	/**
+	 * Makes the leaf shape groups in the tree of the given shape group listen for changes to their shapes if the tree
+	 * is tracked, or stop listening if they have no other use for it.
+	 */
+	private static void updateListening(ShapeGroup group) {
+		if (group instanceof LeafShapeGroup) {
+			LeafShapeGroup leafGroup = (LeafShapeGroup) group;
+			if (leafGroup.getDamageTracker() != null) {
+				leafGroup.listen();
+			} else {
+				leafGroup.stopListeningIfUnused();
+			}
+		} else {
+			for (ShapeGroup subgroup : ((NonleafShapeGroup) group).subgroups) {
+				updateListening(subgroup);
+			}
+		}
+	}
+
+	/**
+	 * Records the region with the given bounds, expressed in the outer coordinate system of the given shape group, as
+	 * damaged.
+	 *
+	 * @pre The given shape group is the root or one of its descendants.
+	 */
+	void addOuterDamage(ShapeGroup group, double left, double top, double right, double bottom) {
+		addDamage(group == root ? null : group.parentShapegroup, left, top, right, bottom);
+	}
+
+	/**
+	 * Records the given region, expressed in the inner coordinate system of the given shape group, as damaged.
+	 *
+	 * @pre The given shape group is the root or one of its descendants.
+	 */
+	void addInnerDamage(ShapeGroup group, Extent region) {
+		addDamage(group, region.getLeft(), region.getTop(), region.getRight(), region.getBottom());
+	}
+
+	private void addDamage(ShapeGroup group, double left, double top, double right, double bottom) {
+		Extent merged = toRootExtent(group, left, top, right, bottom);
+		// Two overlapping regions are merged into their bounding box, which can overlap regions that neither overlapped,
+		// so repeat until none does.
+		boolean grown = true;
+		while (grown) {
+			grown = false;
+			for (Iterator<Extent> iterator = regions.iterator(); iterator.hasNext(); ) {
+				Extent other = iterator.next();
+				if (merged.intersects(other)) {
+					merged = Extent.ofLeftTopRightBottom(Math.min(merged.getLeft(), other.getLeft()), Math.min(merged.getTop(), other.getTop()),
+							Math.max(merged.getRight(), other.getRight()), Math.max(merged.getBottom(), other.getBottom()));
+					iterator.remove();
+					grown = true;
+				}
+			}
+		}
+		regions.add(merged);
+	}
+
+	/**
+	 * Returns the smallest extent in the outer coordinate system of the root that contains the region with the given
+	 * bounds, expressed in the inner coordinate system of the given shape group, or in that of the root if the group is
+	 * {@code null}.
+	 */
+	private Extent toRootExtent(ShapeGroup group, double left, double top, double right, double bottom) {
+		// Each transformation scales by a positive factor, so it maps the corners of the region to those of the result.
+		for (; group != null; group = group == root ? null : group.parentShapegroup) {
+			left = group.toOuterX(left);
+			top = group.toOuterY(top);
+			right = group.toOuterX(right);
+			bottom = group.toOuterY(bottom);
+		}
+		return ShapeGroup.coveringExtent(left, top, right, bottom);
+	}
+
+}
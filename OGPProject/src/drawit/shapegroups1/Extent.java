@@ -127,6 +127,55 @@ public class Extent {
 		return false;
 	}
 	
+	/**
+	 * Returns whether this extent and the given extent, both considered as closed sets of points, have a point in common.
+	 * 
+	 * @throws IllegalArgumentException if argument {@code other} is {@code null}.
+	 *    | other == null
+	 * 
+	 * @post The result equals {@code true} iff the extents overlap or touch along both axes.
+	 *    | result == (getLeft() <= other.getRight() && other.getLeft() <= getRight() &&
+	 *    |     getTop() <= other.getBottom() && other.getTop() <= getBottom())
+	 */
+	public boolean intersects(Extent other) {
+		if (other == null) {
+			throw new IllegalArgumentException("argument other is null");
+		}
+		
+		return getLeft() <= other.getRight() && other.getLeft() <= getRight() && getTop() <= other.getBottom() && other.getTop() <= getBottom();
+	}
+	
+	/**
+	 * Returns the extent of the points contained by both this extent and the given extent, or {@code null} if they
+	 * have no points in common or only share an edge or a vertex, which does not make a nonempty extent.
+	 * 
+	 * @throws IllegalArgumentException if argument {@code other} is {@code null}.
+	 *    | other == null
+	 * 
+	 * @post If the extents overlap, the result is the overlap; otherwise, it is {@code null}.
+	 *    | Math.max(getLeft(), other.getLeft()) < Math.min(getRight(), other.getRight()) &&
+	 *    | Math.max(getTop(), other.getTop()) < Math.min(getBottom(), other.getBottom()) ?
+	 *    |     result != null &&
+	 *    |     result.getLeft() == Math.max(getLeft(), other.getLeft()) && result.getTop() == Math.max(getTop(), other.getTop()) &&
+	 *    |     result.getRight() == Math.min(getRight(), other.getRight()) && result.getBottom() == Math.min(getBottom(), other.getBottom())
+	 *    | :
+	 *    |     result == null
+	 */
+	public Extent intersection(Extent other) {
+		if (other == null) {
+			throw new IllegalArgumentException("argument other is null");
+		}
+		
+		int newLeft = Math.max(getLeft(), other.getLeft());
+		int newTop = Math.max(getTop(), other.getTop());
+		int newRight = Math.min(getRight(), other.getRight());
+		int newBottom = Math.min(getBottom(), other.getBottom());
+		if (newLeft >= newRight || newTop >= newBottom) {
+			return null;
+		}
+		return ofLeftTopRightBottom(newLeft, newTop, newRight, newBottom);
+	}
+	
 	/**
 	 * Returns an Extent object with the given left, top, width and height parameters.
 	 * 
@@ -28,6 +28,12 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 */
 	List<ShapeGroup> subgroups;
 	
+	/**
+	 * An index over the extents of the subgroups, present iff there are at least {@link SubgroupIndex#THRESHOLD}
+	 * subgroups.
+	 */
+	SubgroupIndex subgroupIndex;
+	
 
 	//TODO: Add @mutates_properties | this, ...Arrays.stream(subgroups).peek(subgroup -> subgroup.getParentGroup()).toArray(). Currently gives compilation errors when added.
 	/**
@@ -80,6 +86,7 @@ public class NonleafShapeGroup extends ShapeGroup {
 				throw new IllegalArgumentException("element of argument subgroups is already in a ShapeGroup or has multiple occurences in the given array");
 			}
 			subgroup.parentShapegroup = this;
+			subgroup.invalidateGlobalTransforms();
 			
 			if (subgroup.getExtent().getRight() > right) {
 				right = subgroup.getExtent().getRight();
@@ -98,6 +105,9 @@ public class NonleafShapeGroup extends ShapeGroup {
 		this.extent = this.originalExtent = Extent.ofLeftTopRightBottom(left, top, right, bottom);
 		this.subgroups = new ArrayList<ShapeGroup>(Arrays.asList(subgroups));
 		this.parentShapegroup = null;
+		if (subgroups.length >= SubgroupIndex.THRESHOLD) {
+			this.subgroupIndex = new SubgroupIndex(subgroups);
+		}
 	}
 	
 	/**
@@ -121,6 +131,8 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 * Return the first subgroup in this non-leaf shape group's list of subgroups whose extent contains the given point,
 	 * expressed in this shape group's inner coordinate system.
 	 * 
+	 * For a shape group with many subgroups, the subgroup is looked up in a spatial index over their extents.
+	 * 
 	 * @throws IllegalArgumentException if argument {@code innerCoordinates} is {@code null}.
 	 *    | innerCoordinates == null
 	 *     
@@ -133,7 +145,11 @@ public class NonleafShapeGroup extends ShapeGroup {
 			throw new IllegalArgumentException("argument innerCoordinates is null");
 		}
 		
-		for (ShapeGroup subgroup : getSubgroups()) {
+		if (subgroupIndex != null) {
+			return subgroupIndex.getSubgroupAt(innerCoordinates.getX(), innerCoordinates.getY());
+		}
+		
+		for (ShapeGroup subgroup : subgroups) {
 			if (subgroup.getExtent().contains(innerCoordinates)) {
 				return subgroup;
 			}
@@ -1,6 +1,8 @@
 package drawit.shapegroups1;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -8,8 +10,13 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.IntStream;
 
+import drawit.BinaryDrawingCommandWriter;
+import drawit.DisplayList;
+import drawit.DisplayListBuilder;
+import drawit.DrawingCommandConsumer;
 import drawit.IntPoint;
 import drawit.IntVector;
+import drawit.RoundedPolygon;
 import logicalcollections.LogicalMap;
 import logicalcollections.LogicalSet;
 import logicalcollections.LogicalList;
@@ -36,6 +43,66 @@ public class ShapeGroup {
 	Extent extent;
 	Extent originalExtent;
 	
+	/**
+	 * The display list last compiled for this shape group, or {@code null} if it has to be recompiled, and the
+	 * transformation from this shape group's outer coordinate system it was compiled for, as scale X, scale Y,
+	 * translate X, translate Y. If the display list of this shape group is cached, so are those of its subgroups.
+	 */
+	private DisplayList displayList;
+	private double[] displayListTransform;
+	
+	/**
+	 * The tracker recording the damage to the tree rooted at this shape group, or {@code null} if this shape group
+	 * is not the root of a tracked tree.
+	 */
+	DamageTracker damageTracker;
+	
+	/**
+	 * The transformation from this shape group's inner coordinate system to the global coordinate system, if
+	 * {@code globalTransformsValid}: it maps {@code x} to
+	 * {@code globalLeft + (x - originalExtent.getLeft()) * globalScaleX} and {@code y} to
+	 * {@code globalTop + (y - originalExtent.getTop()) * globalScaleY}. Its inverse multiplies by
+	 * {@code inverseGlobalScaleX} and {@code inverseGlobalScaleY} instead, the products of the quotients of the original
+	 * and the current sizes. Results are truncated towards zero.
+	 * The transformation is composed from the parent's, so it is dropped, together with those of the descendants,
+	 * whenever an extent changes or the shape group gets a parent. Since the descendants of a shape group whose
+	 * transformation is dropped have dropped theirs as well, each change visits each transformation at most once.
+	 * 
+	 * @invar | !globalTransformsValid || parentShapegroup == null || parentShapegroup.globalTransformsValid
+	 */
+	private boolean globalTransformsValid;
+	private double globalLeft;
+	private double globalTop;
+	private double globalScaleX;
+	private double globalScaleY;
+	private double inverseGlobalScaleX;
+	private double inverseGlobalScaleY;
+	
+	/**
+	 * The bounds, in this shape group's outer coordinate system, of the shapes in this shape group's tree, as left, top,
+	 * right and bottom; or {@code null} if they are not cached. Since a shape group's bounds are computed from those of
+	 * its subgroups, a shape group without cached bounds has a parent without cached bounds as well.
+	 * 
+	 * @invar | bounds == null || bounds.length == 4
+	 * @invar | bounds != null || parentShapegroup == null || parentShapegroup.bounds == null
+	 * 
+	 * @representationObject
+	 */
+	private double[] bounds;
+	
+	/**
+	 * The bounds, in the global coordinate system, of the points that {@link #hitTest(IntPoint)} can find in this shape
+	 * group's tree, as left, top, right and bottom; or {@code null} if they are not cached. They are computed with this
+	 * shape group's global transformation and those of its subgroups, so they are dropped together with them.
+	 * 
+	 * @invar | hitBounds == null || hitBounds.length == 4
+	 * @invar | hitBounds == null || globalTransformsValid
+	 * @invar | hitBounds != null || parentShapegroup == null || parentShapegroup.hitBounds == null
+	 * 
+	 * @representationObject
+	 */
+	private int[] hitBounds;
+	
 	
 	/**
 	 * Returns the set of the ancestors of this shape group.
@@ -99,6 +166,11 @@ public class ShapeGroup {
 
 		parentShapegroup.subgroups.remove(this);
 		parentShapegroup.subgroups.add(0, this);
+		if (parentShapegroup.subgroupIndex != null) {
+			parentShapegroup.subgroupIndex.movedToFront(this);
+		}
+		parentShapegroup.invalidateDrawing();
+		damage();
 	}
 	
 	/**
@@ -131,6 +203,11 @@ public class ShapeGroup {
 		
 		parentShapegroup.subgroups.remove(this);
 		parentShapegroup.subgroups.add(this);
+		if (parentShapegroup.subgroupIndex != null) {
+			parentShapegroup.subgroupIndex.movedToBack(this);
+		}
+		parentShapegroup.invalidateDrawing();
+		damage();
 	}
 
 	//TODO: Add @mutates | nothing. Currently gives compilation errors when added.
@@ -147,21 +224,8 @@ public class ShapeGroup {
 		if (innerCoordinates == null) {
 			throw new IllegalArgumentException("argument innerCoordinates is null");
 		}
-
-		double x = innerCoordinates.getX();
-		double y = innerCoordinates.getY();
-		
-		ShapeGroup operatingShapegroup = this;
-		while (operatingShapegroup != null) {
-			x = (double) operatingShapegroup.getExtent().getLeft() + ((double) x - (double) operatingShapegroup.getOriginalExtent().getLeft()) /
-					(double) operatingShapegroup.getOriginalExtent().getWidth() * (double) operatingShapegroup.getExtent().getWidth();
-			y = (double) operatingShapegroup.getExtent().getTop() + ((double) y - (double) operatingShapegroup.getOriginalExtent().getTop()) /
-					(double) operatingShapegroup.getOriginalExtent().getHeight() * (double) operatingShapegroup.getExtent().getHeight();
-			
-			operatingShapegroup = operatingShapegroup.getParentGroup();
-		}
 		
-		return new IntPoint((int) x, (int) y);
+		return new IntPoint((int) innerToGlobalX(innerCoordinates.getX()), (int) innerToGlobalY(innerCoordinates.getY()));
 	}
 
 	//TODO: Add @mutates | nothing. Currently gives compilation errors when added.
@@ -179,24 +243,7 @@ public class ShapeGroup {
 			throw new IllegalArgumentException("argument globalCoordinates is null");
 		}
 		
-		double x = globalCoordinates.getX();
-		double y = globalCoordinates.getY();
-		
-		List<ShapeGroup> operatingShapegroups = new ArrayList<ShapeGroup>();
-		ShapeGroup testOperatingShapegroup = this;
-		while (testOperatingShapegroup != null) {
-			operatingShapegroups.add(0, testOperatingShapegroup);
-			testOperatingShapegroup = testOperatingShapegroup.getParentGroup();
-		}
-		
-		for (ShapeGroup operatingShapegroup : operatingShapegroups) {
-			x = (double) operatingShapegroup.getOriginalExtent().getLeft() + (x - (double) operatingShapegroup.getExtent().getLeft()) /
-					(double) operatingShapegroup.getExtent().getWidth() * (double) operatingShapegroup.getOriginalExtent().getWidth();
-			y = (double) operatingShapegroup.getOriginalExtent().getTop() + (y - (double) operatingShapegroup.getExtent().getTop()) /
-					(double) operatingShapegroup.getExtent().getHeight() * (double) operatingShapegroup.getOriginalExtent().getHeight();
-		}
-		
-		return new IntPoint((int) x, (int) y);
+		return new IntPoint((int) globalToInnerX(globalCoordinates.getX()), (int) globalToInnerY(globalCoordinates.getY()));
 	}
 
 	//TODO: Add @mutates | nothing. Currently gives compilation errors when added.
@@ -214,22 +261,382 @@ public class ShapeGroup {
 			throw new IllegalArgumentException("argument relativeGlobalCoordinates is null");
 		}
 		
-		double x = relativeGlobalCoordinates.getX();
-		double y = relativeGlobalCoordinates.getY();
+		validateGlobalTransforms();
+		return new IntVector((int) (relativeGlobalCoordinates.getX() * inverseGlobalScaleX),
+				(int) (relativeGlobalCoordinates.getY() * inverseGlobalScaleY));
+	}
+	
+	/**
+	 * Replaces the points with coordinates {@code xs[i]} and {@code ys[i]}, for {@code i} from {@code from} (inclusive)
+	 * to {@code to} (exclusive), expressed in this shape group's inner coordinate system, by their coordinates in the
+	 * global coordinate system.
+	 * 
+	 * @inspects | this
+	 * @mutates | xs, ys
+	 * 
+	 * @throws IllegalArgumentException if argument {@code xs} or argument {@code ys} is {@code null}.
+	 *    | xs == null || ys == null
+	 * @throws IllegalArgumentException if the range does not lie within both arrays.
+	 *    | !(0 <= from && from <= to && to <= xs.length && to <= ys.length)
+	 * 
+	 * @post Each point in the range is replaced by the result of {@link #toGlobalCoordinates(IntPoint)} for it.
+	 */
+	public void toGlobalCoordinates(int[] xs, int[] ys, int from, int to) {
+		toGlobalCoordinates(xs, ys, from, to, xs, ys, from);
+	}
+	
+	/**
+	 * Stores the global coordinates of the points with coordinates {@code xs[i]} and {@code ys[i]}, for {@code i} from
+	 * {@code from} (inclusive) to {@code to} (exclusive), expressed in this shape group's inner coordinate system, in
+	 * {@code resultXs} and {@code resultYs}, starting at index {@code resultFrom}. The result arrays may be the given
+	 * arrays, also if the ranges overlap.
+	 * 
+	 * @inspects | this, xs, ys
+	 * @mutates | resultXs, resultYs
+	 * 
+	 * @throws IllegalArgumentException if any of the arrays is {@code null}.
+	 *    | xs == null || ys == null || resultXs == null || resultYs == null
+	 * @throws IllegalArgumentException if the range does not lie within both given arrays, or the result range does
+	 *         not lie within both result arrays.
+	 *    | !(0 <= from && from <= to && to <= xs.length && to <= ys.length) ||
+	 *    | !(0 <= resultFrom && resultFrom <= resultXs.length - (to - from) && resultFrom <= resultYs.length - (to - from))
+	 * 
+	 * @post Each point in the result range is the result of {@link #toGlobalCoordinates(IntPoint)} for the
+	 *       corresponding point in the given range.
+	 */
+	public void toGlobalCoordinates(int[] xs, int[] ys, int from, int to, int[] resultXs, int[] resultYs, int resultFrom) {
+		checkRanges(xs, ys, from, to, resultXs, resultYs, resultFrom);
+		
+		validateGlobalTransforms();
+		transform(originalExtent.getLeft(), originalExtent.getTop(), globalLeft, globalTop, globalScaleX, globalScaleY,
+				xs, ys, from, to, resultXs, resultYs, resultFrom);
+	}
+	
+	/**
+	 * Replaces the points with coordinates {@code xs[i]} and {@code ys[i]}, for {@code i} from {@code from} (inclusive)
+	 * to {@code to} (exclusive), expressed in the global coordinate system, by their coordinates in this shape group's
+	 * inner coordinate system.
+	 * 
+	 * @inspects | this
+	 * @mutates | xs, ys
+	 * 
+	 * @throws IllegalArgumentException if argument {@code xs} or argument {@code ys} is {@code null}.
+	 *    | xs == null || ys == null
+	 * @throws IllegalArgumentException if the range does not lie within both arrays.
+	 *    | !(0 <= from && from <= to && to <= xs.length && to <= ys.length)
+	 * 
+	 * @post Each point in the range is replaced by the result of {@link #toInnerCoordinates(IntPoint)} for it.
+	 */
+	public void toInnerCoordinates(int[] xs, int[] ys, int from, int to) {
+		toInnerCoordinates(xs, ys, from, to, xs, ys, from);
+	}
+	
+	/**
+	 * Stores the coordinates in this shape group's inner coordinate system of the points with coordinates {@code xs[i]}
+	 * and {@code ys[i]}, for {@code i} from {@code from} (inclusive) to {@code to} (exclusive), expressed in the global
+	 * coordinate system, in {@code resultXs} and {@code resultYs}, starting at index {@code resultFrom}. The result
+	 * arrays may be the given arrays, also if the ranges overlap.
+	 * 
+	 * @inspects | this, xs, ys
+	 * @mutates | resultXs, resultYs
+	 * 
+	 * @throws IllegalArgumentException if any of the arrays is {@code null}.
+	 *    | xs == null || ys == null || resultXs == null || resultYs == null
+	 * @throws IllegalArgumentException if the range does not lie within both given arrays, or the result range does
+	 *         not lie within both result arrays.
+	 *    | !(0 <= from && from <= to && to <= xs.length && to <= ys.length) ||
+	 *    | !(0 <= resultFrom && resultFrom <= resultXs.length - (to - from) && resultFrom <= resultYs.length - (to - from))
+	 * 
+	 * @post Each point in the result range is the result of {@link #toInnerCoordinates(IntPoint)} for the
+	 *       corresponding point in the given range.
+	 */
+	public void toInnerCoordinates(int[] xs, int[] ys, int from, int to, int[] resultXs, int[] resultYs, int resultFrom) {
+		checkRanges(xs, ys, from, to, resultXs, resultYs, resultFrom);
+		
+		validateGlobalTransforms();
+		transform(globalLeft, globalTop, originalExtent.getLeft(), originalExtent.getTop(), inverseGlobalScaleX,
+				inverseGlobalScaleY, xs, ys, from, to, resultXs, resultYs, resultFrom);
+	}
+	
+	private static void checkRanges(int[] xs, int[] ys, int from, int to, int[] resultXs, int[] resultYs, int resultFrom) {
+		if (xs == null || ys == null || resultXs == null || resultYs == null) {
+			throw new IllegalArgumentException("argument is null");
+		}
+		if (!(0 <= from && from <= to && to <= xs.length && to <= ys.length)) {
+			throw new IllegalArgumentException("range out of bounds");
+		}
+		if (!(0 <= resultFrom && resultFrom <= resultXs.length - (to - from) && resultFrom <= resultYs.length - (to - from))) {
+			throw new IllegalArgumentException("result range out of bounds");
+		}
+	}
+	
+	/**
+	 * Stores the results of the transformation that maps {@code x} to {@code toLeft + (x - fromLeft) * scaleX} and
+	 * {@code y} to {@code toTop + (y - fromTop) * scaleY}, truncated, for the points in the given range in the result
+	 * range.
+	 */
+	private static void transform(double fromLeft, double fromTop, double toLeft, double toTop, double scaleX, double scaleY,
+			int[] xs, int[] ys, int from, int to, int[] resultXs, int[] resultYs, int resultFrom) {
+		int shift = resultFrom - from;
+		// Like System.arraycopy, go backwards when writing ahead of the reads in the same arrays.
+		if (shift > 0 && (resultXs == xs || resultXs == ys || resultYs == xs || resultYs == ys)) {
+			for (int i = to - 1; i >= from; i--) {
+				int x = (int) (toLeft + (xs[i] - fromLeft) * scaleX);
+				int y = (int) (toTop + (ys[i] - fromTop) * scaleY);
+				resultXs[i + shift] = x;
+				resultYs[i + shift] = y;
+			}
+		} else {
+			for (int i = from; i < to; i++) {
+				int x = (int) (toLeft + (xs[i] - fromLeft) * scaleX);
+				int y = (int) (toTop + (ys[i] - fromTop) * scaleY);
+				resultXs[i + shift] = x;
+				resultYs[i + shift] = y;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the frontmost leaf shape group in this shape group's tree whose shape contains the point with the given
+	 * global coordinates, together with that point expressed in the leaf shape group's inner coordinate system, or
+	 * {@code null} if no shape contains the point. A shape contains a point as defined by
+	 * {@link RoundedPolygon#contains(IntPoint)}.
+	 * 
+	 * The subgroups of a non-leaf shape group are tried from the first to the last, so that a point that misses the
+	 * shapes of a subgroup falls through to the subgroups behind it. Each shape group caches the global bounds of the
+	 * points that can hit a shape in its tree, so that subtrees away from the point are skipped; the bounds are
+	 * recomputed only after a change to a shape within or to the extent of the shape group, a descendant or an ancestor.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code globalCoordinates} is {@code null}.
+	 *    | globalCoordinates == null
+	 * 
+	 * @post | result == null || result.getLeafGroup().getShape().contains(result.getInnerCoordinates())
+	 * @post | result == null || result.getInnerCoordinates().equals(result.getLeafGroup().toInnerCoordinates(globalCoordinates))
+	 */
+	public HitTestResult hitTest(IntPoint globalCoordinates) {
+		if (globalCoordinates == null) {
+			throw new IllegalArgumentException("argument globalCoordinates is null");
+		}
+		
+		return hitTest(globalCoordinates.getX(), globalCoordinates.getY());
+	}
+	
+	/**
+	 * Returns the result of {@link #hitTest(IntPoint)} for the point with the given global coordinates.
+	 */
+	private HitTestResult hitTest(int globalX, int globalY) {
+		int[] hitBounds = getHitBounds();
+		if (!(hitBounds[0] <= globalX && globalX <= hitBounds[2] && hitBounds[1] <= globalY && globalY <= hitBounds[3])) {
+			return null;
+		}
 		
-		List<ShapeGroup> operatingShapegroups = new ArrayList<ShapeGroup>();
-		ShapeGroup testOperatingShapegroup = this;
-		while (testOperatingShapegroup != null) {
-			operatingShapegroups.add(0, testOperatingShapegroup);
-			testOperatingShapegroup = testOperatingShapegroup.getParentGroup();
+		if (this instanceof LeafShapeGroup) {
+			LeafShapeGroup leafGroup = (LeafShapeGroup) this;
+			int x = (int) globalToInnerX(globalX);
+			int y = (int) globalToInnerY(globalY);
+			return leafGroup.shape.contains(x, y) ? new HitTestResult(leafGroup, new IntPoint(x, y)) : null;
 		}
 		
-		for (ShapeGroup operatingShapegroup : operatingShapegroups) {
-			x *= ((double) operatingShapegroup.getOriginalExtent().getWidth()) / ((double) operatingShapegroup.getExtent().getWidth());
-			y *= ((double) operatingShapegroup.getOriginalExtent().getHeight()) / ((double) operatingShapegroup.getExtent().getHeight());
-		}		
+		for (ShapeGroup subgroup : ((NonleafShapeGroup) this).subgroups) {
+			HitTestResult result = subgroup.hitTest(globalX, globalY);
+			if (result != null) {
+				return result;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the bounds, in this shape group's outer coordinate system, of the shapes in this shape group's tree, as
+	 * left, top, right and bottom, computing them if they are not cached. The array is not copied and must not be
+	 * modified.
+	 */
+	private double[] getBounds() {
+		if (bounds == null) {
+			double[] result = new double[4];
+			if (this instanceof LeafShapeGroup) {
+				LeafShapeGroup leafGroup = (LeafShapeGroup) this;
+				leafGroup.listen();
+				Extent shapeBox = leafGroup.shapeBox;
+				result[0] = shapeBox.getLeft();
+				result[1] = shapeBox.getTop();
+				result[2] = shapeBox.getRight();
+				result[3] = shapeBox.getBottom();
+			} else {
+				for (int i = 0; i < 4; i++) {
+					result[i] = i < 2 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+				}
+				for (ShapeGroup subgroup : ((NonleafShapeGroup) this).subgroups) {
+					double[] subgroupBounds = subgroup.getBounds();
+					for (int i = 0; i < 4; i++) {
+						result[i] = i < 2 ? Math.min(result[i], subgroupBounds[i]) : Math.max(result[i], subgroupBounds[i]);
+					}
+				}
+			}
+			
+			result[0] = toOuterX(result[0]);
+			result[1] = toOuterY(result[1]);
+			result[2] = toOuterX(result[2]);
+			result[3] = toOuterY(result[3]);
+			bounds = result;
+		}
+		return bounds;
+	}
+	
+	/**
+	 * Returns the bounds, in the global coordinate system, of the points that {@link #hitTest(IntPoint)} can find in this
+	 * shape group's tree, as left, top, right and bottom, computing them if they are not cached. The array is not copied
+	 * and must not be modified.
+	 */
+	private int[] getHitBounds() {
+		if (hitBounds == null) {
+			int[] result;
+			if (this instanceof LeafShapeGroup) {
+				LeafShapeGroup leafGroup = (LeafShapeGroup) this;
+				leafGroup.listen();
+				Extent shapeBox = leafGroup.shapeBox;
+				// A leaf is hit only at points that map into its shape's bounding box. Since the mapping is monotonic
+				// also after rounding, those points form a range along each axis, which a binary search finds exactly.
+				result = new int[] {lowestGlobalCoordinate(true, shapeBox.getLeft()), lowestGlobalCoordinate(false, shapeBox.getTop()),
+						highestGlobalCoordinate(true, shapeBox.getRight()), highestGlobalCoordinate(false, shapeBox.getBottom())};
+			} else {
+				result = new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+				for (ShapeGroup subgroup : ((NonleafShapeGroup) this).subgroups) {
+					int[] subgroupBounds = subgroup.getHitBounds();
+					for (int i = 0; i < 4; i++) {
+						result[i] = i < 2 ? Math.min(result[i], subgroupBounds[i]) : Math.max(result[i], subgroupBounds[i]);
+					}
+				}
+			}
+			hitBounds = result;
+		}
+		return hitBounds;
+	}
+	
+	/**
+	 * Returns the lowest global coordinate along the X axis, if {@code alongX} is {@code true}, or along the Y axis that
+	 * {@link #toInnerCoordinates(IntPoint)} maps to at least the given inner coordinate, or {@link Integer#MAX_VALUE} if
+	 * there is none.
+	 */
+	private int lowestGlobalCoordinate(boolean alongX, int inner) {
+		long low = Integer.MIN_VALUE;
+		long high = Integer.MAX_VALUE;
+		while (low < high) {
+			long middle = (low + high) >> 1;
+			if ((int) (alongX ? globalToInnerX(middle) : globalToInnerY(middle)) >= inner) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return (int) low;
+	}
+	
+	/**
+	 * Returns the highest global coordinate along the X axis, if {@code alongX} is {@code true}, or along the Y axis
+	 * that {@link #toInnerCoordinates(IntPoint)} maps to at most the given inner coordinate, or
+	 * {@link Integer#MIN_VALUE} if there is none.
+	 */
+	private int highestGlobalCoordinate(boolean alongX, int inner) {
+		long low = Integer.MIN_VALUE;
+		long high = Integer.MAX_VALUE;
+		while (low < high) {
+			long middle = (low + high + 1) >> 1;
+			if ((int) (alongX ? globalToInnerX(middle) : globalToInnerY(middle)) <= inner) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return (int) low;
+	}
+	
+	/**
+	 * Composes the transformation from this shape group's inner coordinate system to the global coordinate system from
+	 * its extents and its parent's transformation, unless it is valid.
+	 */
+	private void validateGlobalTransforms() {
+		if (globalTransformsValid) {
+			return;
+		}
 		
-		return new IntVector((int) x, (int) y);
+		double left = extent.getLeft();
+		double top = extent.getTop();
+		double scaleX = getScaleX();
+		double scaleY = getScaleY();
+		double inverseScaleX = (double) originalExtent.getWidth() / (double) extent.getWidth();
+		double inverseScaleY = (double) originalExtent.getHeight() / (double) extent.getHeight();
+		ShapeGroup parent = parentShapegroup;
+		if (parent != null) {
+			left = parent.innerToGlobalX(left);
+			top = parent.innerToGlobalY(top);
+			scaleX *= parent.globalScaleX;
+			scaleY *= parent.globalScaleY;
+			inverseScaleX *= parent.inverseGlobalScaleX;
+			inverseScaleY *= parent.inverseGlobalScaleY;
+		}
+		globalLeft = left;
+		globalTop = top;
+		globalScaleX = scaleX;
+		globalScaleY = scaleY;
+		inverseGlobalScaleX = inverseScaleX;
+		inverseGlobalScaleY = inverseScaleY;
+		globalTransformsValid = true;
+	}
+	
+	/**
+	 * Drops the transformations from the inner coordinate systems of this shape group and of its descendants to the
+	 * global coordinate system, which are composed from this shape group's extents and its ancestors', together with
+	 * the hit test bounds computed with them.
+	 */
+	void invalidateGlobalTransforms() {
+		if (globalTransformsValid) {
+			globalTransformsValid = false;
+			hitBounds = null;
+			if (this instanceof NonleafShapeGroup) {
+				for (ShapeGroup subgroup : ((NonleafShapeGroup) this).subgroups) {
+					subgroup.invalidateGlobalTransforms();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the global X coordinate of the given X coordinate in this shape group's inner coordinate system, before
+	 * truncation.
+	 */
+	double innerToGlobalX(double x) {
+		validateGlobalTransforms();
+		return globalLeft + (x - originalExtent.getLeft()) * globalScaleX;
+	}
+	
+	/**
+	 * Returns the global Y coordinate of the given Y coordinate in this shape group's inner coordinate system, before
+	 * truncation.
+	 */
+	double innerToGlobalY(double y) {
+		validateGlobalTransforms();
+		return globalTop + (y - originalExtent.getTop()) * globalScaleY;
+	}
+	
+	/**
+	 * Returns the X coordinate in this shape group's inner coordinate system of the given global X coordinate, before
+	 * truncation.
+	 */
+	double globalToInnerX(double x) {
+		validateGlobalTransforms();
+		return originalExtent.getLeft() + (x - globalLeft) * inverseGlobalScaleX;
+	}
+	
+	/**
+	 * Returns the Y coordinate in this shape group's inner coordinate system of the given global Y coordinate, before
+	 * truncation.
+	 */
+	double globalToInnerY(double y) {
+		validateGlobalTransforms();
+		return originalExtent.getTop() + (y - globalTop) * inverseGlobalScaleY;
 	}
 
 	//TODO: Add @mutates | nothing. Currently gives compilation errors when added.
@@ -240,53 +647,498 @@ public class ShapeGroup {
 	 * @inspects | this
 	 */
 	public String getDrawingCommands() {
+		StringBuilder commands = new StringBuilder();
+		try {
+			writeDrawingCommands(commands);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return commands.toString();
+	}
+	
+	/**
+	 * Returns a textual representation of a sequence of drawing commands for drawing the shapes contained directly or indirectly by this shape group
+	 * that may be visible within the given viewport, expressed in this shape group's outer coordinate system.
+	 * The viewport is expressed in the global coordinate system, so that it can be the visible area of the drawing
+	 * whichever shape group is drawn. The result is that of {@link #getDrawingCommands()} without the commands for the
+	 * subgroups whose extent does not intersect the viewport; it is empty if this shape group's extent does not.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code viewport} is {@code null}.
+	 *    | viewport == null
+	 * 
+	 * @post | getParentGroup() != null || viewport.intersects(getExtent()) || result.isEmpty()
+	 */
+	public String getDrawingCommands(Extent viewport) {
+		if (viewport == null) {
+			throw new IllegalArgumentException("argument viewport is null");
+		}
+		
+		viewport = toOuterViewport(viewport);
+		if (!viewport.intersects(getExtent())) {
+			return "";
+		}
+		if (getExtent().equals(viewport.intersection(getExtent()))) {
+			return getDrawingCommands();
+		}
+		StringBuilder commands = new StringBuilder();
+		try {
+			appendDrawingCommands(commands, viewport);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return commands.toString();
+	}
+	
+	/**
+	 * Appends the drawing commands for the parts of this shape group that may be visible within the given viewport,
+	 * which intersects this shape group's extent.
+	 */
+	private void appendDrawingCommands(Appendable commands, Extent viewport) throws IOException {
 		String bc = "\n";
+		int operations = appendPushTransforms(commands);
 		
-		int operations = 0;
-		String commands = "";
+		if (this instanceof LeafShapeGroup) {
+			((LeafShapeGroup) this).shape.writeDrawingCommands(commands);
+			commands.append(bc);
+		} else {
+			// Subgroups within the viewport are drawn in full, from the cached commands of their leaves.
+			Extent innerViewport = toInnerViewport(viewport);
+			List<ShapeGroup> subgroups = ((NonleafShapeGroup) this).getSubgroups();
+			for (int i = subgroups.size() - 1; i >= 0; i--) {
+				ShapeGroup subgroup = subgroups.get(i);
+				Extent subgroupExtent = subgroup.getExtent();
+				if (!innerViewport.intersects(subgroupExtent)) {
+					continue;
+				}
+				if (subgroupExtent.equals(innerViewport.intersection(subgroupExtent))) {
+					subgroup.writeDrawingCommands(commands);
+				} else {
+					subgroup.appendDrawingCommands(commands, innerViewport);
+				}
+				commands.append(bc);
+			}
+		}
 		
-		int translateX = getExtent().getLeft() - getOriginalExtent().getLeft();
-		int translateY = getExtent().getTop() - getOriginalExtent().getTop();
-		double scaleX = (double) getExtent().getWidth() / (double) getOriginalExtent().getWidth();
-		double scaleY = (double) getExtent().getHeight() / (double) getOriginalExtent().getHeight();
+		appendPopTransforms(commands, operations);
+	}
+	
+	/**
+	 * Returns a textual representation of a sequence of drawing commands for drawing the shapes contained directly or indirectly by this shape group,
+	 * expressed in this shape group's outer coordinate system, for drawing at the given scale: with {@code scale} device
+	 * units per unit of that coordinate system. Each shape is simplified as by {@link RoundedPolygon#getDrawingCommands(double)}
+	 * for the scale at which it ends up being drawn, taking into account the scalings of the shape groups in between.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code scale} is not positive and finite.
+	 *    | !(0 < scale && scale < Double.POSITIVE_INFINITY)
+	 */
+	public String getDrawingCommands(double scale) {
+		if (!(0 < scale && scale < Double.POSITIVE_INFINITY)) {
+			throw new IllegalArgumentException("argument scale is not positive and finite");
+		}
+		
+		StringBuilder commands = new StringBuilder();
+		try {
+			appendDrawingCommands(commands, scale);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return commands.toString();
+	}
+	
+	/**
+	 * Appends the drawing commands for this shape group, simplified for drawing at the given scale.
+	 */
+	private void appendDrawingCommands(Appendable commands, double scale) throws IOException {
+		String bc = "\n";
+		int operations = appendPushTransforms(commands);
+		
+		// A shape is drawn no larger than its largest scaling factor allows, so that is the one that must not lose detail.
+		double innerScale = scale * Math.max(getScaleX(), getScaleY());
+		if (this instanceof LeafShapeGroup) {
+			commands.append(((LeafShapeGroup) this).shape.getDrawingCommands(innerScale)).append(bc);
+		} else {
+			List<ShapeGroup> subgroups = ((NonleafShapeGroup) this).getSubgroups();
+			for (int i = subgroups.size() - 1; i >= 0; i--) {
+				subgroups.get(i).appendDrawingCommands(commands, innerScale);
+				commands.append(bc);
+			}
+		}
+		
+		appendPopTransforms(commands, operations);
+	}
+	
+	/**
+	 * Returns the smallest extent in this shape group's inner coordinate system that covers the given viewport in its
+	 * outer coordinate system, rounding outwards so that no point of the viewport is lost.
+	 */
+	private Extent toInnerViewport(Extent viewport) {
+		return coveringExtent(toInnerX(viewport.getLeft()), toInnerY(viewport.getTop()),
+				toInnerX(viewport.getRight()), toInnerY(viewport.getBottom()));
+	}
+	
+	/**
+	 * Returns the extent in this shape group's outer coordinate system that covers the given viewport in the global
+	 * coordinate system. The viewport is mapped down from the root one level at a time, exactly as when the root is
+	 * drawn, so that this shape group is culled against the same viewport either way.
+	 */
+	private Extent toOuterViewport(Extent viewport) {
+		ShapeGroup parent = parentShapegroup;
+		return parent == null ? viewport : parent.toInnerViewport(parent.toOuterViewport(viewport));
+	}
+	
+	/**
+	 * Returns the smallest extent with whole-numbered bounds that contains the region with the given bounds, clamped to
+	 * the range of {@code int}.
+	 */
+	static Extent coveringExtent(double left, double top, double right, double bottom) {
+		// Clamp to the int range, keeping the extent nonempty.
+		int newLeft = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE - 1, Math.floor(left)));
+		int newTop = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE - 1, Math.floor(top)));
+		int newRight = (int) Math.max(newLeft + 1L, Math.min(Integer.MAX_VALUE, Math.ceil(right)));
+		int newBottom = (int) Math.max(newTop + 1L, Math.min(Integer.MAX_VALUE, Math.ceil(bottom)));
+		return Extent.ofLeftTopRightBottom(newLeft, newTop, newRight, newBottom);
+	}
+	
+	/**
+	 * Returns the factor by which this shape group scales its contents along the X axis: the width of its extent
+	 * divided by that of its original extent.
+	 */
+	double getScaleX() {
+		return (double) extent.getWidth() / (double) originalExtent.getWidth();
+	}
+	
+	/**
+	 * Returns the factor by which this shape group scales its contents along the Y axis: the height of its extent
+	 * divided by that of its original extent.
+	 */
+	double getScaleY() {
+		return (double) extent.getHeight() / (double) originalExtent.getHeight();
+	}
+	
+	/**
+	 * Returns the X coordinate in this shape group's outer coordinate system of the given X coordinate in its inner
+	 * coordinate system. Drawing, culling, compiling and damage tracking all map coordinates through this method and
+	 * the three below, so that they agree.
+	 */
+	double toOuterX(double x) {
+		return extent.getLeft() + (x - originalExtent.getLeft()) * getScaleX();
+	}
+	
+	/**
+	 * Returns the Y coordinate in this shape group's outer coordinate system of the given Y coordinate in its inner
+	 * coordinate system.
+	 */
+	double toOuterY(double y) {
+		return extent.getTop() + (y - originalExtent.getTop()) * getScaleY();
+	}
+	
+	/**
+	 * Returns the X coordinate in this shape group's inner coordinate system of the given X coordinate in its outer
+	 * coordinate system.
+	 */
+	double toInnerX(double x) {
+		return originalExtent.getLeft() + (x - extent.getLeft()) / getScaleX();
+	}
+	
+	/**
+	 * Returns the Y coordinate in this shape group's inner coordinate system of the given Y coordinate in its outer
+	 * coordinate system.
+	 */
+	double toInnerY(double y) {
+		return originalExtent.getTop() + (y - extent.getTop()) / getScaleY();
+	}
+	
+	/**
+	 * Passes the commands that push the transformation of this shape group to the given consumer, and returns how many
+	 * there are. The textual commands are written from these as well.
+	 */
+	int pushTransforms(DrawingCommandConsumer consumer) {
+		int translateX = extent.getLeft() - originalExtent.getLeft();
+		int translateY = extent.getTop() - originalExtent.getTop();
+		double scaleX = getScaleX();
+		double scaleY = getScaleY();
 		
 		if (scaleX != 1 || scaleY != 1) {
-			commands += "pushTranslate " + (translateX + getOriginalExtent().getLeft()) + " " + (translateY + getOriginalExtent().getTop()) + bc;
-			operations++;
-			
-			commands += "pushScale " + scaleX + " " + scaleY + bc;
-			operations++;
-			
-			if (getOriginalExtent().getLeft() != 0 || getOriginalExtent().getTop() != 0) {
-				commands += "pushTranslate " + -getOriginalExtent().getLeft() + " " + -getOriginalExtent().getTop() + bc;
-				operations++;
+			consumer.pushTranslate(extent.getLeft(), extent.getTop());
+			consumer.pushScale(scaleX, scaleY);
+			if (originalExtent.getLeft() == 0 && originalExtent.getTop() == 0) {
+				return 2;
 			}
-		} else {
-			if (translateX != 0 || translateY != 0) {
-				commands += "pushTranslate " + (translateX) + " " + (translateY) + bc;
-				operations++;
+			consumer.pushTranslate(-originalExtent.getLeft(), -originalExtent.getTop());
+			return 3;
+		}
+		if (translateX != 0 || translateY != 0) {
+			consumer.pushTranslate(translateX, translateY);
+			return 1;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Appends the commands that push the transformation of this shape group, and returns how many there are.
+	 */
+	private int appendPushTransforms(Appendable commands) throws IOException {
+		TransformTextWriter writer = new TransformTextWriter();
+		int operations = pushTransforms(writer);
+		commands.append(writer.commands);
+		return operations;
+	}
+	
+	/**
+	 * Writes the transformations a shape group pushes in the textual format of {@link #getDrawingCommands()}.
+	 * A shape group only translates by whole numbers of units, which the format writes without a fraction.
+	 */
+	private static class TransformTextWriter implements DrawingCommandConsumer {
+		
+		private final StringBuilder commands = new StringBuilder();
+		
+		@Override
+		public void pushTranslate(double dx, double dy) {
+			commands.append("pushTranslate ").append((int) dx).append(' ').append((int) dy).append('\n');
+		}
+		
+		@Override
+		public void pushScale(double sx, double sy) {
+			commands.append("pushScale ").append(sx).append(' ').append(sy).append('\n');
+		}
+		
+		@Override
+		public void popTransform() {
+			throw new UnsupportedOperationException("a shape group only pushes transformations");
+		}
+		
+		@Override
+		public void line(double x1, double y1, double x2, double y2) {
+			throw new UnsupportedOperationException("a shape group only pushes transformations");
+		}
+		
+		@Override
+		public void arc(double x, double y, double radius, double startAngle, double extentAngle) {
+			throw new UnsupportedOperationException("a shape group only pushes transformations");
+		}
+		
+		@Override
+		public void fill(int red, int green, int blue) {
+			throw new UnsupportedOperationException("a shape group only pushes transformations");
+		}
+		
+	}
+	
+	/**
+	 * Appends the given number of commands that pop a transformation.
+	 */
+	private static void appendPopTransforms(Appendable commands, int operations) throws IOException {
+		for (int i = 0; i < operations; i++) {
+			commands.append("popTransform");
+			if (i < operations - 1) {
+				commands.append('\n');
 			}
 		}
+	}
+	
+	/**
+	 * Appends the drawing commands for this shape group, as returned by {@link #getDrawingCommands()}, to the given output.
+	 * The commands of the subgroups are written straight to the output, so that no intermediate strings are built.
+	 * 
+	 * @inspects | this
+	 * @mutates | out
+	 * 
+	 * @throws IllegalArgumentException if argument {@code out} is {@code null}.
+	 *    | out == null
+	 * @throws IOException if the output throws it.
+	 */
+	public void writeDrawingCommands(Appendable out) throws IOException {
+		if (out == null) {
+			throw new IllegalArgumentException("out is null");
+		}
+		
+		String bc = "\n";
 		
+		// Only leaves cache their commands: a group writes those of its subgroups straight to the output, so that the
+		// text of a shape is held once rather than once more by every enclosing group.
 		if (this instanceof LeafShapeGroup) {
 			LeafShapeGroup leafGroup = (LeafShapeGroup) this;
-			commands += leafGroup.shape.getDrawingCommands() + bc;
+			if (leafGroup.drawingCommands == null) {
+				leafGroup.listen();
+				StringBuilder commands = new StringBuilder();
+				int operations = appendPushTransforms(commands);
+				leafGroup.shape.writeDrawingCommands(commands);
+				commands.append(bc);
+				appendPopTransforms(commands, operations);
+				leafGroup.drawingCommands = commands.toString();
+			}
+			out.append(leafGroup.drawingCommands);
+			return;
+		}
+		
+		int operations = appendPushTransforms(out);
+		List<ShapeGroup> subgroups = ((NonleafShapeGroup) this).getSubgroups();
+		for (int i = subgroups.size() - 1; i >= 0; i--) {
+			subgroups.get(i).writeDrawingCommands(out);
+			out.append(bc);
+		}
+		appendPopTransforms(out, operations);
+	}
+	
+	/**
+	 * Passes the drawing commands for this shape group, as returned by {@link #getDrawingCommands()}, to the given
+	 * consumer, one call per command.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @throws IllegalArgumentException if argument {@code consumer} is {@code null}.
+	 *    | consumer == null
+	 */
+	public void forEachDrawingCommand(DrawingCommandConsumer consumer) {
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer is null");
+		}
+		
+		int operations = pushTransforms(consumer);
+		
+		if (this instanceof LeafShapeGroup) {
+			((LeafShapeGroup) this).shape.forEachDrawingCommand(consumer);
 		} else {
-			NonleafShapeGroup nonleafGroup = (NonleafShapeGroup) this;
-			List<ShapeGroup> subgroups = nonleafGroup.getSubgroups();
+			List<ShapeGroup> subgroups = ((NonleafShapeGroup) this).getSubgroups();
 			for (int i = subgroups.size() - 1; i >= 0; i--) {
-				commands += subgroups.get(i).getDrawingCommands() + bc;				
+				subgroups.get(i).forEachDrawingCommand(consumer);
 			}
 		}
 		
 		for (int i = 0; i < operations; i++) {
-			commands += "popTransform";
-			if (i < operations - 1) {
-				commands += bc;
-			}
+			consumer.popTransform();
+		}
+	}
+	
+	/**
+	 * Writes the drawing commands for this shape group to the given stream, as one block in the binary format of
+	 * {@link BinaryDrawingCommandWriter}.
+	 * 
+	 * @inspects | this
+	 * @mutates | out
+	 * 
+	 * @throws IllegalArgumentException if argument {@code out} is {@code null}.
+	 *    | out == null
+	 * @throws IOException if the stream throws it.
+	 */
+	public void writeBinaryDrawingCommands(OutputStream out) throws IOException {
+		if (out == null) {
+			throw new IllegalArgumentException("out is null");
+		}
+		
+		BinaryDrawingCommandWriter writer = new BinaryDrawingCommandWriter();
+		forEachDrawingCommand(writer);
+		writer.writeTo(out);
+	}
+	
+	/**
+	 * Returns a display list for the shapes contained directly or indirectly by this shape group, expressed in this
+	 * shape group's outer coordinate system. It draws what {@link #getDrawingCommands()} draws, with the transformations
+	 * folded into the geometry.
+	 * 
+	 * The display lists of the subgroups are kept, so that after a change only the subgroups affected by it are
+	 * compiled again.
+	 * 
+	 * @inspects | this
+	 * 
+	 * @post | result != null
+	 */
+	public DisplayList getDisplayList() {
+		return compileDisplayList(1, 1, 0, 0);
+	}
+	
+	/**
+	 * Returns a display list for this shape group, drawing a point (x, y) in its outer coordinate system at
+	 * (scaleX * x + translateX, scaleY * y + translateY).
+	 */
+	DisplayList compileDisplayList(double scaleX, double scaleY, double translateX, double translateY) {
+		if (displayList != null && displayListTransform[0] == scaleX && displayListTransform[1] == scaleY
+				&& displayListTransform[2] == translateX && displayListTransform[3] == translateY) {
+			return displayList;
 		}
 		
-		return commands;
+		double totalScaleX = scaleX * getScaleX();
+		double totalScaleY = scaleY * getScaleY();
+		double totalTranslateX = scaleX * toOuterX(0) + translateX;
+		double totalTranslateY = scaleY * toOuterY(0) + translateY;
+		
+		if (this instanceof LeafShapeGroup) {
+			LeafShapeGroup leafGroup = (LeafShapeGroup) this;
+			leafGroup.listen();
+			DisplayListBuilder builder = new DisplayListBuilder(totalScaleX, totalScaleY, totalTranslateX, totalTranslateY);
+			leafGroup.shape.forEachDrawingCommand(builder);
+			displayList = builder.build();
+		} else {
+			List<ShapeGroup> subgroups = ((NonleafShapeGroup) this).getSubgroups();
+			DisplayList[] parts = new DisplayList[subgroups.size()];
+			for (int i = 0; i < parts.length; i++) {
+				parts[i] = subgroups.get(parts.length - 1 - i).compileDisplayList(totalScaleX, totalScaleY, totalTranslateX, totalTranslateY);
+			}
+			displayList = DisplayList.concatenate(parts);
+		}
+		displayListTransform = new double[] {scaleX, scaleY, translateX, translateY};
+		return displayList;
+	}
+	
+	/**
+	 * Drops the cached drawing commands of this shape group, if it is a leaf, and the cached display lists of this shape
+	 * group and of its ancestors, which include its own.
+	 */
+	void invalidateDrawing() {
+		if (this instanceof LeafShapeGroup) {
+			((LeafShapeGroup) this).drawingCommands = null;
+		}
+		// A group with a cached display list has those of its subgroups cached as well, so the walk can stop at the
+		// first group that has none.
+		for (ShapeGroup group = this; group != null && group.displayList != null; group = group.parentShapegroup) {
+			group.displayList = null;
+		}
+	}
+	
+	/**
+	 * Returns whether this shape group caches drawing commands, a display list or bounds.
+	 */
+	boolean hasCachedDrawingOrBounds() {
+		return this instanceof LeafShapeGroup && ((LeafShapeGroup) this).drawingCommands != null || displayList != null
+				|| bounds != null || hitBounds != null;
+	}
+	
+	/**
+	 * Drops the cached bounds and hit test bounds of this shape group and of its ancestors, which include them.
+	 */
+	void invalidateBounds() {
+		for (ShapeGroup group = this; group != null && (group.bounds != null || group.hitBounds != null); group = group.parentShapegroup) {
+			group.bounds = null;
+			group.hitBounds = null;
+		}
+	}
+	
+	/**
+	 * Returns the damage tracker of the tree this shape group belongs to, or {@code null} if the tree is not tracked.
+	 */
+	DamageTracker getDamageTracker() {
+		for (ShapeGroup group = this; group != null; group = group.parentShapegroup) {
+			if (group.damageTracker != null) {
+				return group.damageTracker;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Records the bounds of the shapes in this shape group's tree as damaged, if the tree this shape group belongs to is
+	 * tracked.
+	 */
+	private void damage() {
+		DamageTracker tracker = getDamageTracker();
+		if (tracker != null) {
+			double[] bounds = getBounds();
+			tracker.addOuterDamage(this, bounds[0], bounds[1], bounds[2], bounds[3]);
+		}
 	}
 	
 	/**
@@ -341,6 +1193,15 @@ public class ShapeGroup {
 			throw new IllegalArgumentException("argument newExtent is null");
 		}
 		
+		damage();
 		this.extent = newExtent;
+		if (parentShapegroup != null && parentShapegroup.subgroupIndex != null) {
+			parentShapegroup.subgroupIndex.extentChanged(this);
+		}
+		invalidateDrawing();
+		invalidateBounds();
+		// Only after the bounds, since dropping the hit test bounds first would stop the walk up the ancestors at once.
+		invalidateGlobalTransforms();
+		damage();
 	}
 }
@@ -0,0 +1,304 @@
+package drawit.shapegroups1;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Each instance of this class is a packed Hilbert R-tree over the extents of the subgroups of a non-leaf shape group,
+ * used to find the first subgroup whose extent contains a given point without testing every subgroup.
+ *
+ * The subgroups are sorted once by the Hilbert value of the centers of their extents and packed, level by level, into
+ * nodes of {@link #FANOUT} entries. Since the subgroups of a non-leaf shape group never change, the tree is kept current
+ * rather than rebuilt: when a subgroup's extent changes, the bounds of the nodes above it are recomputed, and when a
+ * subgroup is moved to the front or the back of the list, it is given a rank below or above that of any other
+ * subgroup. Each node records the lowest rank in its subtree, so that a query skips the subtrees that cannot hold a
+ * subgroup in front of the best one found so far.
+ *
+ * Recomputing the bounds keeps each subgroup in the node it was packed into, so as subgroups move away from their
+ * neighbours the nodes grow and overlap, and queries visit more of them. Once the total area of the lowest nodes has
+ * more than doubled since the subgroups were packed, they are sorted and packed again.
+ */
+final class SubgroupIndex {
+
+	/**
+	 * The number of entries of each node.
+	 */
+	static final int FANOUT = 16;
+
+	/**
+	 * The number of subgroups from which a non-leaf shape group uses an index.
+	 */
+	static final int THRESHOLD = 32;
+
+	/**
+	 * The number of bits per coordinate of the grid on which Hilbert values are computed.
+	 */
+	private static final int HILBERT_ORDER = 15;
+
+	/**
+	 * The factor by which the total area of the lowest nodes may grow before the subgroups are packed again.
+	 */
+	private static final double AREA_GROWTH_LIMIT = 2;
+
+	/**
+	 * @invar | subgroups != null && slots != null && ranks != null
+	 * @invar | ranks.length == subgroups.length
+	 * @invar Level 0 holds the bounds of the subgroups; level {@code k + 1} holds the bounds of the nodes that group
+	 *        {@code FANOUT} consecutive entries of level {@code k}. The last level has a single node.
+	 *    | lefts.length == tops.length && lefts.length == rights.length && lefts.length == bottoms.length &&
+	 *    | lefts.length == minRanks.length && lefts[lefts.length - 1].length == 1
+	 * @invar The rank of each subgroup is lower than that of every subgroup after it in the list of subgroups.
+	 * @invar {@code nodeArea} is the total area of the nodes on level 1, and {@code packedNodeArea} was that total just
+	 *        after the subgroups were last packed, {@code changesSincePacking} extent changes ago.
+	 */
+	private final ShapeGroup[] subgroups;
+	private final IdentityHashMap<ShapeGroup, Integer> slots;
+	private final long[] ranks;
+	private final int[][] lefts;
+	private final int[][] tops;
+	private final int[][] rights;
+	private final int[][] bottoms;
+	private final long[][] minRanks;
+	private long frontRank;
+	private long backRank;
+	private double nodeArea;
+	private double packedNodeArea;
+	private int changesSincePacking;
+
+	/**
+	 * Initializes this index over the given subgroups, in the given order.
+	 *
+	 * @pre | subgroups != null && subgroups.length > 0
+	 * @inspects | subgroups
+	 */
+	SubgroupIndex(ShapeGroup[] subgroups) {
+		int count = subgroups.length;
+		this.subgroups = subgroups.clone();
+		this.slots = new IdentityHashMap<>(count);
+		this.ranks = new long[count];
+		for (int i = 0; i < count; i++) {
+			ranks[i] = i;
+		}
+		this.frontRank = 0;
+		this.backRank = count - 1;
+
+		int levelCount = 1;
+		for (int size = count; size > 1; size = (size + FANOUT - 1) / FANOUT) {
+			levelCount++;
+		}
+		lefts = new int[levelCount][];
+		tops = new int[levelCount][];
+		rights = new int[levelCount][];
+		bottoms = new int[levelCount][];
+		minRanks = new long[levelCount][];
+		for (int level = 0, size = count; level < levelCount; level++, size = (size + FANOUT - 1) / FANOUT) {
+			lefts[level] = new int[size];
+			tops[level] = new int[size];
+			rights[level] = new int[size];
+			bottoms[level] = new int[size];
+			minRanks[level] = level == 0 ? ranks : new long[size];
+		}
+		pack();
+	}
+
+	/**
+	 * Sorts the subgroups by the Hilbert value of the centers of their current extents, with their current order in
+	 * this index as a tie breaker, and recomputes all nodes.
+	 */
+	private void pack() {
+		int count = subgroups.length;
+
+		long minX = Long.MAX_VALUE;
+		long minY = Long.MAX_VALUE;
+		long maxX = Long.MIN_VALUE;
+		long maxY = Long.MIN_VALUE;
+		for (ShapeGroup subgroup : subgroups) {
+			Extent extent = subgroup.getExtent();
+			long x = (long) extent.getLeft() + extent.getRight();
+			long y = (long) extent.getTop() + extent.getBottom();
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+
+		double gridScaleX = maxX == minX ? 0 : ((1 << HILBERT_ORDER) - 1) / (double) (maxX - minX);
+		double gridScaleY = maxY == minY ? 0 : ((1 << HILBERT_ORDER) - 1) / (double) (maxY - minY);
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++) {
+			Extent extent = subgroups[i].getExtent();
+			int x = (int) ((((long) extent.getLeft() + extent.getRight()) - minX) * gridScaleX);
+			int y = (int) ((((long) extent.getTop() + extent.getBottom()) - minY) * gridScaleY);
+			keys[i] = (long) hilbertValue(x, y) << 32 | i;
+		}
+		Arrays.sort(keys);
+
+		ShapeGroup[] oldSubgroups = subgroups.clone();
+		long[] oldRanks = ranks.clone();
+		for (int slot = 0; slot < count; slot++) {
+			int index = (int) keys[slot];
+			subgroups[slot] = oldSubgroups[index];
+			ranks[slot] = oldRanks[index];
+			slots.put(subgroups[slot], slot);
+			setEntry(slot);
+		}
+		for (int level = 1; level < lefts.length; level++) {
+			for (int node = 0; node < lefts[level].length; node++) {
+				fitNode(level, node);
+			}
+		}
+		packedNodeArea = nodeArea;
+		changesSincePacking = 0;
+	}
+
+	/**
+	 * Returns the distance along the Hilbert curve of the given order of the given grid cell.
+	 */
+	private static int hilbertValue(int x, int y) {
+		int result = 0;
+		for (int s = 1 << (HILBERT_ORDER - 1); s > 0; s >>= 1) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			result += s * s * ((3 * rx) ^ ry);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return result;
+	}
+
+	private void setEntry(int slot) {
+		Extent extent = subgroups[slot].getExtent();
+		lefts[0][slot] = extent.getLeft();
+		tops[0][slot] = extent.getTop();
+		rights[0][slot] = extent.getRight();
+		bottoms[0][slot] = extent.getBottom();
+	}
+
+	/**
+	 * Recomputes the bounds and the lowest rank of the given node from its entries on the level below.
+	 */
+	private void fitNode(int level, int node) {
+		int below = level - 1;
+		int start = node * FANOUT;
+		int end = Math.min(start + FANOUT, lefts[below].length);
+		int left = Integer.MAX_VALUE;
+		int top = Integer.MAX_VALUE;
+		int right = Integer.MIN_VALUE;
+		int bottom = Integer.MIN_VALUE;
+		long minRank = Long.MAX_VALUE;
+		if (level == 1) {
+			nodeArea -= area(level, node);
+		}
+		for (int i = start; i < end; i++) {
+			left = Math.min(left, lefts[below][i]);
+			top = Math.min(top, tops[below][i]);
+			right = Math.max(right, rights[below][i]);
+			bottom = Math.max(bottom, bottoms[below][i]);
+			minRank = Math.min(minRank, minRanks[below][i]);
+		}
+		lefts[level][node] = left;
+		tops[level][node] = top;
+		rights[level][node] = right;
+		bottoms[level][node] = bottom;
+		minRanks[level][node] = minRank;
+		if (level == 1) {
+			nodeArea += area(level, node);
+		}
+	}
+
+	private double area(int level, int node) {
+		return ((double) rights[level][node] - lefts[level][node]) * ((double) bottoms[level][node] - tops[level][node]);
+	}
+
+	/**
+	 * Recomputes the nodes above the given subgroup's entry.
+	 */
+	private void fitPath(int slot) {
+		for (int level = 1, node = slot / FANOUT; level < lefts.length; level++, node /= FANOUT) {
+			fitNode(level, node);
+		}
+	}
+
+	/**
+	 * Updates this index after the extent of the given subgroup has changed.
+	 *
+	 * @pre The given shape group is one of the indexed subgroups.
+	 * @mutates | this
+	 */
+	void extentChanged(ShapeGroup subgroup) {
+		int slot = slots.get(subgroup);
+		setEntry(slot);
+		fitPath(slot);
+		// Waiting for a number of changes proportional to the number of subgroups spreads the cost of packing over them.
+		changesSincePacking++;
+		if (nodeArea > AREA_GROWTH_LIMIT * packedNodeArea && 4 * changesSincePacking >= subgroups.length) {
+			pack();
+		}
+	}
+
+	/**
+	 * Updates this index after the given subgroup has been moved to the front of the list of subgroups.
+	 *
+	 * @pre The given shape group is one of the indexed subgroups.
+	 * @mutates | this
+	 */
+	void movedToFront(ShapeGroup subgroup) {
+		int slot = slots.get(subgroup);
+		ranks[slot] = --frontRank;
+		fitPath(slot);
+	}
+
+	/**
+	 * Updates this index after the given subgroup has been moved to the back of the list of subgroups.
+	 *
+	 * @pre The given shape group is one of the indexed subgroups.
+	 * @mutates | this
+	 */
+	void movedToBack(ShapeGroup subgroup) {
+		int slot = slots.get(subgroup);
+		ranks[slot] = ++backRank;
+		fitPath(slot);
+	}
+
+	/**
+	 * Returns the first subgroup in the list of subgroups whose extent contains the given point, or {@code null} if
+	 * there is none.
+	 *
+	 * @inspects | this
+	 */
+	ShapeGroup getSubgroupAt(int x, int y) {
+		int top = lefts.length - 1;
+		int slot = search(top, 0, x, y, -1);
+		return slot < 0 ? null : subgroups[slot];
+	}
+
+	/**
+	 * Returns the slot of the lowest-ranked subgroup in the subtree of the given node that contains the given point and
+	 * is ranked below the subgroup in the given slot, or the given slot if there is none.
+	 */
+	private int search(int level, int node, int x, int y, int best) {
+		if (!(lefts[level][node] <= x && x <= rights[level][node] && tops[level][node] <= y && y <= bottoms[level][node])) {
+			return best;
+		}
+		if (best >= 0 && minRanks[level][node] >= ranks[best]) {
+			return best;
+		}
+		if (level == 0) {
+			return node;
+		}
+		int start = node * FANOUT;
+		int end = Math.min(start + FANOUT, lefts[level - 1].length);
+		for (int i = start; i < end; i++) {
+			best = search(level - 1, i, x, y, best);
+		}
+		return best;
+	}
+
+}
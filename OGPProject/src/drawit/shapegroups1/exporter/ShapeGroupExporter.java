@@ -5,7 +5,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import drawit.IntPoint;
 import drawit.shapegroups1.Extent;
 import drawit.shapegroups1.LeafShapeGroup;
 import drawit.shapegroups1.NonleafShapeGroup;
@@ -42,11 +41,9 @@ public class ShapeGroupExporter {
 			LeafShapeGroup leafShapeGroup = (LeafShapeGroup) shapeGroup;
 			List<Object> vertices = new ArrayList<Object>();
 			
-			for (IntPoint vertex : leafShapeGroup.getShape().getVertices()) {
-				vertices.add(Map.of(
-						"x", vertex.getX(),
-						"y", vertex.getY()));
-			}
+			leafShapeGroup.getShape().forEachVertex((x, y) -> vertices.add(Map.of(
+					"x", x,
+					"y", y)));
 			
 			plainData.put("shape", Map.of(
 					"vertices", vertices,
@@ -0,0 +1,54 @@
+package drawit.shapegroups2;
+
+import drawit.IntPoint;
+
+/**
+ * Each instance of this class represents the outcome of a successful hit test: the leaf shape group whose shape
+ * contains the tested point, and that point expressed in the leaf shape group's inner coordinate system, which is
+ * the coordinate system of its shape.
+ *
+ * @immutable
+ *
+ * @invar | getLeafGroup() != null
+ * @invar | getInnerCoordinates() != null
+ */
+public final class HitTestResult {
+
+	/**
+	 * @invar | leafGroup != null
+	 * @invar | innerCoordinates != null
+	 */
+	private final LeafShapeGroup leafGroup;
+	private final IntPoint innerCoordinates;
+
+	/**
+	 * @pre | leafGroup != null
+	 * @pre | innerCoordinates != null
+	 *
+	 * @post | getLeafGroup() == leafGroup
+	 * @post | getInnerCoordinates().equals(innerCoordinates)
+	 */
+	HitTestResult(LeafShapeGroup leafGroup, IntPoint innerCoordinates) {
+		this.leafGroup = leafGroup;
+		this.innerCoordinates = innerCoordinates;
+	}
+
+	/**
+	 * Returns the leaf shape group whose shape contains the tested point.
+	 *
+	 * @basic
+	 */
+	public LeafShapeGroup getLeafGroup() {
+		return leafGroup;
+	}
+
+	/**
+	 * Returns the tested point, expressed in the inner coordinate system of the leaf shape group.
+	 *
+	 * @basic
+	 */
+	public IntPoint getInnerCoordinates() {
+		return innerCoordinates;
+	}
+
+}
@@ -2,7 +2,6 @@ package drawit.shapegroups2;
 
 import java.util.Arrays;
 
-import drawit.IntPoint;
 import drawit.RoundedPolygon;
 
 /**
@@ -21,6 +20,29 @@ public class LeafShapeGroup extends ShapeGroup {
 	 */
 	RoundedPolygon shape;
 	
+	/**
+	 * The bounding box of the shape when this shape group last saw it change, so that a change can damage the region
+	 * the shape used to cover. Only current while this shape group listens for changes to the shape.
+	 * 
+	 * @invar | shapeBox != null
+	 */
+	Extent shapeBox;
+	
+	/**
+	 * The drawing commands of this shape group, as written by {@link #writeDrawingCommands(Appendable)}, or {@code null}
+	 * if they have to be regenerated. Only leaves cache their commands, so that nested groups do not hold copies of them.
+	 */
+	String drawingCommands;
+	
+	/**
+	 * Registered with the shape only while this shape group caches a drawing or bounds derived from it or its tree is
+	 * tracked, so that the shape does not keep an unused tree reachable and does not report changes to it.
+	 * 
+	 * @invar | shapeListener != null
+	 */
+	private final Runnable shapeListener = this::shapeChanged;
+	private boolean listening;
+	
 	
 	//TODO: Add @mutates_properties | this. Currently gives compilation errors when added.
 	/**
@@ -57,23 +79,75 @@ public class LeafShapeGroup extends ShapeGroup {
 		int bottom = Integer.MIN_VALUE;
 		int left = Integer.MAX_VALUE;
 		int right = Integer.MIN_VALUE;
-		for (IntPoint vertex : shape.getVertices()) {
-			if (vertex.getX() > right) {
-				right = vertex.getX();
+		for (int i = 0; i < shape.getVertexCount(); i++) {
+			int x = shape.getX(i);
+			int y = shape.getY(i);
+			if (x > right) {
+				right = x;
 			}
-			if (vertex.getX() < left) {
-				left = vertex.getX();
+			if (x < left) {
+				left = x;
 			}
-			if (vertex.getY() < top) {
-				top = vertex.getY();
+			if (y < top) {
+				top = y;
 			}
-			if (vertex.getY() > bottom) {
-				bottom = vertex.getY();
+			if (y > bottom) {
+				bottom = y;
 			}
 		}
 		
 		this.extent = this.originalExtent = Extent.ofLeftTopRightBottom(left, top, right, bottom);
 		this.shape = shape;
+		this.shapeBox = getShapeBox();
+	}
+	
+	/**
+	 * Returns the current bounding box of the shape.
+	 */
+	private Extent getShapeBox() {
+		drawit.shapegroups1.Extent box = shape.getBoundingBox();
+		return Extent.ofLeftTopRightBottom(box.getLeft(), box.getTop(), box.getRight(), box.getBottom());
+	}
+	
+	/**
+	 * Makes this shape group listen for changes to the shape, if it does not already. Called before this shape group
+	 * caches anything derived from the shape and when its tree starts being tracked.
+	 */
+	void listen() {
+		if (!listening) {
+			shapeBox = getShapeBox();
+			shape.addChangeListener(shapeListener);
+			listening = true;
+		}
+	}
+	
+	/**
+	 * Makes this shape group stop listening for changes to the shape, if it caches nothing derived from the shape and
+	 * its tree is not tracked.
+	 */
+	void stopListeningIfUnused() {
+		if (listening && !hasCachedDrawingOrBounds() && getDamageTracker() == null) {
+			shape.removeChangeListener(shapeListener);
+			listening = false;
+		}
+	}
+	
+	/**
+	 * Drops the cached drawing and bounds of this shape group and records the old and the new bounding box of the shape as damaged.
+	 * Stops listening for further changes if the tree is not tracked, since nothing derived from the shape is cached any more.
+	 */
+	private void shapeChanged() {
+		Extent oldShapeBox = shapeBox;
+		shapeBox = getShapeBox();
+		invalidateDrawing();
+		invalidateBounds();
+		
+		DamageTracker tracker = getDamageTracker();
+		if (tracker != null) {
+			tracker.addInnerDamage(this, oldShapeBox);
+			tracker.addInnerDamage(this, shapeBox);
+		}
+		stopListeningIfUnused();
 	}
 	
 	/**
@@ -29,6 +29,12 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 */
 	ShapeGroup firstChildShapegroup;
 	
+	/**
+	 * An index over the extents of the subgroups, present iff there are at least {@link SubgroupIndex#THRESHOLD}
+	 * subgroups.
+	 */
+	SubgroupIndex subgroupIndex;
+	
 	
 	//TODO: Add @mutates_properties | this, ...Arrays.stream(subgroups).peek(subgroup -> subgroup.getParentGroup()).toArray(). Currently gives compilation errors when added.
 	/**
@@ -86,6 +92,7 @@ public class NonleafShapeGroup extends ShapeGroup {
 			}
 			
 			subgroup.parentShapegroup = this;
+			subgroup.invalidateGlobalTransforms();
 			subgroup.nextShapegroup = subgroups[(i + 1) % subgroups.length];
 			subgroup.previousShapegroup = subgroups[Math.floorMod(i - 1, subgroups.length)];
 			
@@ -108,6 +115,9 @@ public class NonleafShapeGroup extends ShapeGroup {
 		this.nextShapegroup = null;
 		this.previousShapegroup = null;
 		this.parentShapegroup = null;
+		if (subgroups.length >= SubgroupIndex.THRESHOLD) {
+			this.subgroupIndex = new SubgroupIndex(subgroups);
+		}
 	}
 
 	/**
@@ -131,6 +141,8 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 * Return the first subgroup in this non-leaf shape group's list of subgroups whose extent contains the given point,
 	 * expressed in this shape group's inner coordinate system.
 	 * 
+	 * For a shape group with many subgroups, the subgroup is looked up in a spatial index over their extents.
+	 * 
 	 * @throws IllegalArgumentException if argument {@code innerCoordinates} is {@code null}.
 	 *    | innerCoordinates == null
 	 *     
@@ -143,12 +155,18 @@ public class NonleafShapeGroup extends ShapeGroup {
 			throw new IllegalArgumentException("argument innerCoordinates is null");
 		}
 		
-		for (ShapeGroup subgroup : getSubgroups()) {
-			if (subgroup.getExtent().contains(innerCoordinates)) {
-				return subgroup;
-			}
+		if (subgroupIndex != null) {
+			return subgroupIndex.getSubgroupAt(innerCoordinates.getX(), innerCoordinates.getY());
 		}
 		
+		ShapeGroup currentShapegroup = firstChildShapegroup;
+		do {
+			if (currentShapegroup.getExtent().contains(innerCoordinates)) {
+				return currentShapegroup;
+			}
+			currentShapegroup = currentShapegroup.nextShapegroup;
+		} while (currentShapegroup != firstChildShapegroup);
+		
 		return null;
 	}
 	
@@ -70,16 +70,17 @@ public class RoundedPolygonShape implements Shape{
 	 * There is one exception: a client can perform any number of consecutive move calls on the same ControlPoint object.
 	 */
 	public ControlPoint[] createControlPoints() {
-		IntPoint[] vertices = polygon.getVertices();
-		ControlPoint[] result = new ControlPoint[vertices.length];
-		for (int i = 0 ; i < vertices.length ; i++) {
+		ControlPoint[] result = new ControlPoint[polygon.getVertexCount()];
+		for (int i = 0 ; i < result.length ; i++) {
 			final int j = i;
+			final int x = polygon.getX(i);
+			final int y = polygon.getY(i);
 			result[i] = (new ControlPoint() {				
 				public IntPoint getLocation() {
-					return vertices[j];
+					return new IntPoint(x, y);
 				}
 				public void move(IntVector delta) {
-					IntPoint newVertex = vertices[j].plus(toShapeCoordinates(delta));
+					IntPoint newVertex = new IntPoint(x, y).plus(toShapeCoordinates(delta));
 					polygon.update(j, newVertex);
 				}
 				public void remove() {
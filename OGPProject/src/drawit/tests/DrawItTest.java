@@ -1,6 +1,7 @@
 package drawit.tests;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -16,8 +17,22 @@ import drawit.IntPoint;
 import drawit.IntVector;
 import drawit.PointArrays;
 import drawit.RoundedPolygon;
+import drawit.RoundedPolygonEdit;
 
 class DrawItTest {
+	
+	/**
+	 * Records the commands passed to it as text, one string per command, with all numbers as passed.
+	 */
+	private static class RecordingConsumer implements drawit.DrawingCommandConsumer {
+		List<String> commands = new ArrayList<String>();
+		public void pushTranslate(double dx, double dy) { commands.add("pushTranslate " + dx + " " + dy); }
+		public void pushScale(double sx, double sy) { commands.add("pushScale " + sx + " " + sy); }
+		public void popTransform() { commands.add("popTransform"); }
+		public void line(double x1, double y1, double x2, double y2) { commands.add("line " + x1 + " " + y1 + " " + x2 + " " + y2); }
+		public void arc(double x, double y, double r, double s, double e) { commands.add("arc " + x + " " + y + " " + r + " " + s + " " + e); }
+		public void fill(int red, int green, int blue) { commands.add("fill " + red + " " + green + " " + blue); }
+	}
 
 	@Test
 	void testIntVector() {
@@ -229,6 +244,26 @@ class DrawItTest {
 		IntPoint[] array1Removed = {intPoint1, intPoint2, intPoint4, intPoint5};
 		IntPoint[] arrayRemove = PointArrays.remove(array1, 2);
 		assert Arrays.equals(array1Removed, arrayRemove);
+
+		// PointArrays: checkDefinesProperPolygon tests
+		assert PointArrays.checkDefinesProperPolygon(new IntPoint[] {
+				new IntPoint(0, 0), new IntPoint(4, 0), new IntPoint(8, 0), new IntPoint(8, 8), new IntPoint(0, 8)}) == null;
+		assert PointArrays.checkDefinesProperPolygon(new IntPoint[] {
+				new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 10), new IntPoint(5, 0), new IntPoint(0, 10)}).equals(
+				"Vertex (5, 0) at index 3 lies on edge from (0, 0) at index 0 to (10, 0) at index 1");
+		assert PointArrays.checkDefinesProperPolygon(new IntPoint[] {
+				new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 10), new IntPoint(0, 10), new IntPoint(10, 10)}).equals(
+				"Vertices at index 2 and 4 coincide: (10, 10)");
+		assert PointArrays.checkDefinesProperPolygon(new IntPoint[] {
+				new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(0, 10), new IntPoint(10, 10)}).equals(
+				"Edge from (10, 0) at index 1 to (0, 10) at index 2 intersects with edge from (10, 10) at index 3 to (0, 0) at index 0");
+		assert PointArrays.checkDefinesProperPolygon(new IntPoint[] {
+				new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(5, 0)}).equals(
+				"Vertex (5, 0) at index 2 lies on edge from (0, 0) at index 0 to (10, 0) at index 1");
+		// The violation is found exactly, even where coordinate differences do not fit in an int.
+		assert PointArrays.checkDefinesProperPolygon(new IntPoint[] {
+				new IntPoint(-2000000000, 0), new IntPoint(2000000000, 0), new IntPoint(10, 10), new IntPoint(0, 0), new IntPoint(-10, 10)}).equals(
+				"Vertex (0, 0) at index 3 lies on edge from (-2000000000, 0) at index 0 to (2000000000, 0) at index 1");
 	}
 	
 	@Test
@@ -368,7 +403,105 @@ class DrawItTest {
 		for (int i = insertIndex; i < polygon1.getVertices().length; i++) {
 			assert prevVertices3[i + 1].equals(polygon1.getVertices()[i]);
 		}
-		
+
+		// RoundedPolygon: update, insert tests on a larger polygon
+		RoundedPolygon polygon4 = new RoundedPolygon();
+		polygon4.setVertices(vertices2);
+		String message4 = null;
+		try {
+			polygon4.update(3, new IntPoint(9, -5));
+		} catch (IllegalArgumentException e) {
+			message4 = e.getMessage();
+		}
+		assert message4.equals("new vertices do not define a proper polygon: "
+				+ "Edge from (6, 5) at index 2 to (9, -5) at index 3 intersects with edge from (18, -3) at index 10 to (-1, -2) at index 11");
+		assert polygon4.getVertices()[3].equals(vertices2[3]);
+		message4 = null;
+		try {
+			polygon4.update(3, new IntPoint(12, 5));
+		} catch (IllegalArgumentException e) {
+			message4 = e.getMessage();
+		}
+		assert message4.equals("new vertices do not define a proper polygon: Vertices at index 3 and 4 coincide: (12, 5)");
+		message4 = null;
+		try {
+			polygon4.insert(8, new IntPoint(16, -1));
+		} catch (IllegalArgumentException e) {
+			message4 = e.getMessage();
+		}
+		assert message4.equals("new vertices do not define a proper polygon: "
+				+ "Vertex (18, 1) at index 9 lies on edge from (20, 3) at index 7 to (16, -1) at index 8");
+		assert polygon4.getVertices().length == vertices2.length;
+		polygon4.update(3, new IntPoint(9, 0));
+		assert polygon4.getVertices()[3].equals(new IntPoint(9, 0));
+		assert polygon4.getBoundingBox().equals(drawit.shapegroups1.Extent.ofLeftTopRightBottom(-1, -3, 20, 10));
+		
+		// An edit is checked exactly, like a new polygon, even where coordinate differences do not fit in an int.
+		IntPoint[] farVertices = {new IntPoint(1298233663, 152819375), new IntPoint(-1124108930, 390022292),
+				new IntPoint(-630303424, 210527460), new IntPoint(-428958096, -160143918)};
+		assert PointArrays.checkDefinesProperPolygon(farVertices) == null;
+		RoundedPolygon farPolygon = new RoundedPolygon();
+		farPolygon.setVertices(PointArrays.update(farVertices, 3, new IntPoint(0, 0)));
+		farPolygon.update(3, farVertices[3]);
+		assert farPolygon.getVertices()[3].equals(farVertices[3]);
+
+		// RoundedPolygon: beginEdit tests
+		RoundedPolygon polygon5 = new RoundedPolygon();
+		RoundedPolygonEdit edit5 = polygon5.beginEdit();
+		edit5.insert(0, new IntPoint(0, 0));
+		edit5.insert(1, new IntPoint(10, 0));
+		edit5.insert(2, new IntPoint(5, 5));
+		edit5.insert(1, new IntPoint(10, 10));
+		assert polygon5.getVertices().length == 0;
+		edit5.update(1, new IntPoint(0, 10));
+		edit5.remove(3);
+		edit5.insert(2, new IntPoint(10, 10));
+		edit5.commit();
+		assert polygon5.getVertices().length == 4;
+		assert polygon5.getVertices()[1].equals(new IntPoint(0, 10));
+		assert polygon5.getVertices()[2].equals(new IntPoint(10, 10));
+		assert polygon5.getBoundingBox().equals(drawit.shapegroups1.Extent.ofLeftTopRightBottom(0, 0, 10, 10));
+		RoundedPolygonEdit edit6 = polygon5.beginEdit();
+		edit6.insert(4, new IntPoint(5, -5));
+		edit6.update(3, new IntPoint(5, 10));
+		String message6 = null;
+		try {
+			edit6.commit();
+		} catch (IllegalArgumentException e) {
+			message6 = e.getMessage();
+		}
+		assert message6.equals("Vertex (5, 10) at index 3 lies on edge from (0, 10) at index 1 to (10, 10) at index 2");
+		assert polygon5.getVertices().length == 4;
+		RoundedPolygonEdit edit7 = polygon5.beginEdit();
+		edit7.remove(0);
+		polygon5.update(0, new IntPoint(0, 1));
+		boolean thrownEdit = false;
+		try {
+			edit7.commit();
+		} catch (IllegalStateException e) {
+			thrownEdit = true;
+		}
+		assert thrownEdit;
+		assert polygon5.getVertices().length == 4;
+
+		// RoundedPolygon: getVertexCount, getX, getY tests
+		assert polygon5.getVertexCount() == 4;
+		assert polygon5.getX(0) == 0 && polygon5.getY(0) == 1;
+		assert polygon5.getX(2) == 10 && polygon5.getY(2) == 10;
+		boolean thrownGetX = false;
+		try {
+			polygon5.getX(4);
+		} catch (IllegalArgumentException e) {
+			thrownGetX = true;
+		}
+		assert thrownGetX;
+		List<IntPoint> visited5 = new ArrayList<IntPoint>();
+		polygon5.forEachVertex((x, y) -> visited5.add(new IntPoint(x, y)));
+		assert visited5.size() == 4;
+		for (int i = 0; i < visited5.size(); i++) {
+			assert visited5.get(i).equals(polygon5.getVertices()[i]);
+		}
+
 		// RoundedPolygon: contains test
 		IntPoint testPoint1 = new IntPoint(15, 8);
 		IntPoint testPoint2 = new IntPoint(12, 8);
@@ -401,7 +534,51 @@ class DrawItTest {
 				soloPoint
 		});
 		assert polygonSolo.contains(soloPoint);
-		
+		IntPoint[] combVertices = new IntPoint[32];
+		for (int i = 0; i < 30; i++) {
+			combVertices[i] = new IntPoint(i * 10, i % 2 == 0 ? 100 : 80);
+		}
+		combVertices[30] = new IntPoint(290, 0);
+		combVertices[31] = new IntPoint(0, 0);
+		RoundedPolygon polygonComb = new RoundedPolygon();
+		polygonComb.setVertices(combVertices);
+		for (int i = 0; i < 10; i++) {
+			assert polygonComb.contains(new IntPoint(5, 50));
+			assert !polygonComb.contains(new IntPoint(10, 90));
+		}
+		assert polygonComb.contains(new IntPoint(0, 100));
+		assert !polygonComb.contains(new IntPoint(5, 95));
+		assert polygonComb.contains(new IntPoint(5, 90));
+		assert !polygonComb.contains(new IntPoint(300, 50));
+		assert polygonComb.contains(new IntPoint(290, 0));
+		assert !polygonComb.contains(new IntPoint(150, 0));
+		assert polygonComb.contains(new IntPoint(150, 1));
+		assert !polygonComb.contains(new IntPoint(145, 99));
+		assert polygonComb.contains(new IntPoint(140, 100));
+		assert polygonComb.contains(new IntPoint(290, 50));
+		assert !polygonComb.contains(new IntPoint(-1, 50));
+		assert polygonComb.contains(new IntPoint(0, 50));
+		polygonComb.update(1, new IntPoint(10, 95));
+		assert polygonComb.contains(new IntPoint(10, 90));
+
+		// RoundedPolygon: contains on a convex polygon, with horizontal edges and a vertex halfway along an edge
+		RoundedPolygon polygonConvex = new RoundedPolygon();
+		polygonConvex.setVertices(new IntPoint[] {new IntPoint(30, 0), new IntPoint(50, 0), new IntPoint(70, 0),
+				new IntPoint(100, 30), new IntPoint(100, 70), new IntPoint(70, 100), new IntPoint(30, 100),
+				new IntPoint(0, 70), new IntPoint(0, 30)});
+		assert polygonConvex.contains(new IntPoint(50, 0));
+		assert !polygonConvex.contains(new IntPoint(40, 0));
+		assert polygonConvex.contains(new IntPoint(50, 50));
+		assert polygonConvex.contains(new IntPoint(100, 50));
+		assert !polygonConvex.contains(new IntPoint(101, 50));
+		assert !polygonConvex.contains(new IntPoint(5, 5));
+		assert !polygonConvex.contains(new IntPoint(0, 100));
+		assert polygonConvex.contains(new IntPoint(50, 100));
+		assert !polygonConvex.contains(new IntPoint(50, 101));
+		polygonConvex.update(1, new IntPoint(50, -10));
+		assert polygonConvex.contains(new IntPoint(40, 0));
+		assert !polygonConvex.contains(new IntPoint(50, -11));
+
 		// RoundedPolygon: getDrawingCommands tests
 		IntPoint[] vertices3 = new IntPoint[] {
 				new IntPoint(100, 100),
@@ -450,6 +627,28 @@ class DrawItTest {
 				"line 18.0 -3.0 -1.0 -2.0\n" + 
 				"line -1.0 -2.0 0.0 5.0\n" +
 				"fill 255 255 255");
+		
+		// RoundedPolygon: getDrawingCommands at a scale
+		IntPoint[] circleVertices = new IntPoint[1000];
+		for (int i = 0; i < circleVertices.length; i++) {
+			double angle = 2 * Math.PI * i / circleVertices.length;
+			circleVertices[i] = new IntPoint((int) Math.round(10000 * Math.cos(angle)), (int) Math.round(10000 * Math.sin(angle)));
+		}
+		RoundedPolygon circle = new RoundedPolygon();
+		circle.setVertices(circleVertices);
+		assert circle.getDrawingCommands(1).equals(circle.getDrawingCommands());
+		String farCircle = circle.getDrawingCommands(0.001);
+		assert farCircle.split("\n").length < 50;
+		assert farCircle.endsWith("fill 255 255 255");
+		assert circle.getDrawingCommands(0.001).equals(farCircle);
+		assert polygon2.getDrawingCommands(0.0001).split("\n").length == 4;
+		boolean thrownScale = false;
+		try {
+			circle.getDrawingCommands(0.0);
+		} catch (IllegalArgumentException e) {
+			thrownScale = true;
+		}
+		assert thrownScale;
 	}
 	
 	@Test
@@ -470,6 +669,9 @@ class DrawItTest {
 		assert PRPCTS.contains(polygon, testP4);
 		assert !PRPCTS.contains(polygon, testP5);
 		assert !PRPCTS.contains(polygon, testP6);
+		boolean[] results = new boolean[6];
+		PRPCTS.containsAll(polygon, new int[] {1, 4, 3, 2, 5, 5}, new int[] {1, 3, 2, 3, 3, 4}, results);
+		assert Arrays.equals(results, new boolean[] {false, true, true, true, false, false});
 	}
 	
 	@Test
@@ -490,6 +692,428 @@ class DrawItTest {
 		assert FRPCTS.contains(polygon, testP4);
 		assert FRPCTS.contains(polygon, testP5);
 		assert FRPCTS.contains(polygon, testP6);
+		boolean[] results = new boolean[6];
+		FRPCTS.containsAll(polygon, new int[] {1, 4, 3, 2, 5, 5}, new int[] {1, 3, 2, 3, 3, 4}, results);
+		assert Arrays.equals(results, new boolean[] {false, true, true, true, true, true});
+	}
+
+	@Test
+	void testTieredRoundedPolygonContainsTestStrategy() {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[]{new IntPoint(2, 1), new IntPoint(6, 1), new IntPoint(2, 5)});
+
+		drawit.TieredRoundedPolygonContainsTestStrategy TRPCTS = new drawit.TieredRoundedPolygonContainsTestStrategy();
+		assert !TRPCTS.contains(polygon, new IntPoint(1, 1));
+		assert TRPCTS.contains(polygon, new IntPoint(4, 3));
+		assert TRPCTS.contains(polygon, new IntPoint(3, 2));
+		assert TRPCTS.contains(polygon, new IntPoint(2, 3));
+		assert !TRPCTS.contains(polygon, new IntPoint(5, 3));
+		assert !TRPCTS.contains(polygon, new IntPoint(5, 4));
+
+		// A concave polygon, whose bounding box holds points outside it.
+		polygon.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(100, 0), new IntPoint(100, 40),
+				new IntPoint(40, 40), new IntPoint(40, 100), new IntPoint(0, 100)});
+		assert TRPCTS.contains(polygon, new IntPoint(20, 20));
+		assert TRPCTS.contains(polygon, new IntPoint(90, 30));
+		assert TRPCTS.contains(polygon, new IntPoint(40, 70));
+		assert TRPCTS.contains(polygon, new IntPoint(0, 0));
+		assert !TRPCTS.contains(polygon, new IntPoint(80, 80));
+		assert !TRPCTS.contains(polygon, new IntPoint(120, 20));
+
+		// The rectangle of points known to be inside follows changes to the vertices.
+		polygon.update(0, new IntPoint(30, 30));
+		assert !TRPCTS.contains(polygon, new IntPoint(20, 20));
+		assert TRPCTS.contains(polygon, new IntPoint(20, 80));
+
+		int[] xs = new int[] {20, 20, 90, 40, 80, 120, 30, -5};
+		int[] ys = new int[] {20, 80, 30, 70, 80, 20, 30, 50};
+		boolean[] results = new boolean[xs.length];
+		TRPCTS.containsAll(polygon, xs, ys, results);
+		for (int i = 0; i < xs.length; i++) {
+			assert results[i] == polygon.contains(new IntPoint(xs[i], ys[i]));
+		}
+	}
+
+	@Test
+	void testRasterRoundedPolygonContainsTestStrategy() {
+		boolean thrownResolution = false;
+		try {
+			new drawit.RasterRoundedPolygonContainsTestStrategy(0);
+		} catch (IllegalArgumentException e) {
+			thrownResolution = true;
+		}
+		assert thrownResolution;
+		assert new drawit.RasterRoundedPolygonContainsTestStrategy().getResolution() == drawit.RasterRoundedPolygonContainsTestStrategy.DEFAULT_RESOLUTION;
+
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(100, 0), new IntPoint(100, 40),
+				new IntPoint(40, 40), new IntPoint(40, 100), new IntPoint(0, 100)});
+
+		drawit.RasterRoundedPolygonContainsTestStrategy RRPCTS = new drawit.RasterRoundedPolygonContainsTestStrategy(8);
+		assert RRPCTS.getResolution() == 8;
+		assert RRPCTS.contains(polygon, new IntPoint(20, 20));
+		assert RRPCTS.contains(polygon, new IntPoint(90, 30));
+		assert RRPCTS.contains(polygon, new IntPoint(40, 70));
+		assert RRPCTS.contains(polygon, new IntPoint(0, 0));
+		assert !RRPCTS.contains(polygon, new IntPoint(80, 80));
+		assert !RRPCTS.contains(polygon, new IntPoint(41, 41));
+		assert !RRPCTS.contains(polygon, new IntPoint(120, 20));
+
+		// The mask is rebuilt after the vertices change.
+		polygon.update(2, new IntPoint(100, 100));
+		assert RRPCTS.contains(polygon, new IntPoint(80, 80));
+		assert RRPCTS.contains(polygon, new IntPoint(41, 41));
+
+		int[] xs = new int[] {20, 20, 90, 40, 80, 120, 30, -5, 41, 70};
+		int[] ys = new int[] {20, 80, 30, 70, 80, 20, 30, 50, 42, 99};
+		boolean[] results = new boolean[xs.length];
+		RRPCTS.containsAll(polygon, xs, ys, results);
+		for (int i = 0; i < xs.length; i++) {
+			assert results[i] == polygon.contains(new IntPoint(xs[i], ys[i]));
+		}
+	}
+
+	@Test
+	void testRoundedCornerRoundedPolygonContainsTestStrategy() {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(100, 0), new IntPoint(100, 40),
+				new IntPoint(40, 40), new IntPoint(40, 100), new IntPoint(0, 100)});
+
+		drawit.RoundedCornerRoundedPolygonContainsTestStrategy RCRPCTS = new drawit.RoundedCornerRoundedPolygonContainsTestStrategy();
+		assert RCRPCTS.contains(polygon, new IntPoint(2, 2));
+		assert !RCRPCTS.contains(polygon, new IntPoint(42, 42));
+
+		polygon.setRadius(10);
+		// Rounding cuts off the convex corners ...
+		assert !RCRPCTS.contains(polygon, new IntPoint(2, 2));
+		assert RCRPCTS.contains(polygon, new IntPoint(5, 5));
+		assert !RCRPCTS.contains(polygon, new IntPoint(98, 38));
+		assert RCRPCTS.contains(polygon, new IntPoint(50, 20));
+		// ... and fills in the reflex one.
+		assert RCRPCTS.contains(polygon, new IntPoint(42, 42));
+		assert !RCRPCTS.contains(polygon, new IntPoint(48, 48));
+		assert !RCRPCTS.contains(polygon, new IntPoint(120, 20));
+
+		// The corners follow changes to the vertices.
+		polygon.update(0, new IntPoint(-20, 0));
+		assert RCRPCTS.contains(polygon, new IntPoint(2, 2));
+
+		int[] xs = new int[] {2, 5, 98, 50, 42, 48, 120};
+		int[] ys = new int[] {2, 5, 38, 20, 42, 48, 20};
+		boolean[] results = new boolean[xs.length];
+		RCRPCTS.containsAll(polygon, xs, ys, results);
+		assert Arrays.equals(results, new boolean[] {true, true, false, true, true, false, false});
+	}
+
+	@Test
+	void testBinaryDrawingCommands() throws IOException {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(100, 0), new IntPoint(100, 40), new IntPoint(0, 40)});
+		polygon.setRadius(10);
+		polygon.setColor(new Color(10, 200, 255));
+		
+		// The commands passed to a consumer are those of the text.
+		RecordingConsumer expected = new RecordingConsumer();
+		drawit.DrawingCommandInterpreter.interpret(polygon.getDrawingCommands(), expected);
+		RecordingConsumer consumer = new RecordingConsumer();
+		polygon.forEachDrawingCommand(consumer);
+		assert consumer.commands.equals(expected.commands);
+		
+		java.io.ByteArrayOutputStream polygonBytes = new java.io.ByteArrayOutputStream();
+		polygon.writeBinaryDrawingCommands(polygonBytes);
+		consumer = new RecordingConsumer();
+		drawit.BinaryDrawingCommandReader.read(new java.io.ByteArrayInputStream(polygonBytes.toByteArray()), consumer);
+		assert consumer.commands.equals(expected.commands);
+		assert polygonBytes.size() < polygon.getDrawingCommands().length();
+		
+		drawit.shapegroups1.ShapeGroup leaf = new drawit.shapegroups1.LeafShapeGroup(polygon);
+		leaf.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(50, 50, 200, 80));
+		java.io.ByteArrayOutputStream groupBytes = new java.io.ByteArrayOutputStream();
+		leaf.writeBinaryDrawingCommands(groupBytes);
+		expected = new RecordingConsumer();
+		drawit.DrawingCommandInterpreter.interpret(leaf.getDrawingCommands(), expected);
+		consumer = new RecordingConsumer();
+		drawit.BinaryDrawingCommandReader.read(groupBytes.toByteArray(), consumer);
+		assert consumer.commands.equals(expected.commands);
+		
+		drawit.BinaryDrawingCommandWriter writer = new drawit.BinaryDrawingCommandWriter();
+		writer.popTransform();
+		writer.fill(1, 2, 3);
+		assert writer.getSize() == 5;
+		assert Arrays.equals(writer.toByteArray(), new byte[] {0, 0, 0, 5, 3, 6, 1, 2, 3});
+		
+		boolean thrown = false;
+		try {
+			drawit.BinaryDrawingCommandReader.read(new byte[] {0, 0, 0, 1, 42}, consumer);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		assert thrown;
+		thrown = false;
+		try {
+			drawit.BinaryDrawingCommandReader.read(new byte[] {0, 0, 0, 2, 4, 0}, consumer);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		assert thrown;
+		// A block size the stream does not back up is not allocated up front; the stream just ends too early.
+		thrown = false;
+		try {
+			drawit.BinaryDrawingCommandReader.read(new java.io.ByteArrayInputStream(new byte[] {127, -1, -1, -1, 3}), consumer);
+		} catch (java.io.IOException e) {
+			thrown = true;
+		}
+		assert thrown;
+	}
+
+	@Test
+	void testDisplayList() {
+		RoundedPolygon square = new RoundedPolygon();
+		square.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 10), new IntPoint(0, 10)});
+		RoundedPolygon triangle = new RoundedPolygon();
+		triangle.setVertices(new IntPoint[]{new IntPoint(20, 0), new IntPoint(30, 0), new IntPoint(20, 10)});
+		triangle.setColor(Color.RED);
+		drawit.shapegroups1.LeafShapeGroup squareGroup = new drawit.shapegroups1.LeafShapeGroup(square);
+		drawit.shapegroups1.LeafShapeGroup triangleGroup = new drawit.shapegroups1.LeafShapeGroup(triangle);
+		drawit.shapegroups1.NonleafShapeGroup root = new drawit.shapegroups1.NonleafShapeGroup(
+				new drawit.shapegroups1.ShapeGroup[] {squareGroup, triangleGroup});
+		
+		// Lines have their transformations folded in; the subgroups are drawn from last to first.
+		RecordingConsumer consumer = new RecordingConsumer();
+		List<String> commands = consumer.commands;
+		root.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(100, 100, 60, 40));
+		drawit.DisplayList displayList = root.getDisplayList();
+		assert displayList.getOperationCount() == 9;
+		displayList.replay(consumer);
+		assert commands.get(0).equals("line 140.0 100.0 160.0 100.0");
+		assert commands.get(3).equals("fill 255 0 0");
+		assert commands.get(4).equals("line 100.0 100.0 120.0 100.0");
+		
+		// Compiled display lists are kept until something changes.
+		assert root.getDisplayList() == displayList;
+		triangleGroup.bringToFront();
+		assert root.getDisplayList() != displayList;
+		assert root.getDisplayList().getOperationCount() == 9;
+		displayList = root.getDisplayList();
+		triangle.setColor(Color.BLUE);
+		assert root.getDisplayList() != displayList;
+		
+		// Under a scaling with different factors, an arc is replayed as a scaled unit circle.
+		square.setRadius(2);
+		commands.clear();
+		squareGroup.getDisplayList().replay(consumer);
+		assert commands.get(1).startsWith("arc ");
+		commands.clear();
+		root.getDisplayList().replay(consumer);
+		assert commands.get(1).equals("pushTranslate 116.0 108.0");
+		assert commands.get(2).equals("pushScale 4.0 8.0");
+		assert commands.get(3).startsWith("arc 0.0 0.0 1.0 ");
+	}
+
+	@Test
+	void testDamageTracker() {
+		RoundedPolygon square = new RoundedPolygon();
+		square.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 10), new IntPoint(0, 10)});
+		RoundedPolygon triangle = new RoundedPolygon();
+		triangle.setVertices(new IntPoint[]{new IntPoint(20, 0), new IntPoint(30, 0), new IntPoint(20, 10)});
+		drawit.shapegroups1.LeafShapeGroup squareGroup = new drawit.shapegroups1.LeafShapeGroup(square);
+		drawit.shapegroups1.LeafShapeGroup triangleGroup = new drawit.shapegroups1.LeafShapeGroup(triangle);
+		drawit.shapegroups1.NonleafShapeGroup root = new drawit.shapegroups1.NonleafShapeGroup(
+				new drawit.shapegroups1.ShapeGroup[] {squareGroup, triangleGroup});
+		
+		boolean thrown = false;
+		try {
+			new drawit.shapegroups1.DamageTracker(squareGroup);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		assert thrown;
+		
+		drawit.shapegroups1.DamageTracker tracker = new drawit.shapegroups1.DamageTracker(root);
+		assert tracker.getRoot() == root;
+		assert !tracker.isDamaged();
+		assert tracker.getDamagedShapes().isEmpty();
+		
+		// A vertex edit damages the old and the new bounding box of the shape, merged into one region.
+		square.update(2, new IntPoint(12, 12));
+		assert tracker.getDamagedRegions().equals(List.of(drawit.shapegroups1.Extent.ofLeftTopRightBottom(0, 0, 12, 12)));
+		assert tracker.getDamagedShapes().equals(List.of(squareGroup));
+		tracker.clear();
+		assert !tracker.isDamaged();
+		
+		triangle.setColor(Color.RED);
+		assert tracker.getDamagedRegions().equals(List.of(drawit.shapegroups1.Extent.ofLeftTopRightBottom(20, 0, 30, 10)));
+		assert tracker.getDamagedShapes().equals(List.of(triangleGroup));
+		tracker.clear();
+		
+		// Changing the extent of the root damages the old and new bounds of its shapes, which need not lie within the
+		// extents of their groups; the shapes are listed in drawing order.
+		root.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(0, 0, 60, 20));
+		assert tracker.getDamagedRegions().equals(List.of(drawit.shapegroups1.Extent.ofLeftTopRightBottom(0, 0, 60, 24)));
+		assert tracker.getDamagedShapes().equals(List.of(triangleGroup, squareGroup));
+		tracker.clear();
+		
+		// Damage to a subgroup is expressed in the root's outer coordinate system.
+		triangle.setRadius(3);
+		assert tracker.getDamagedRegions().equals(List.of(drawit.shapegroups1.Extent.ofLeftTopRightBottom(40, 0, 60, 20)));
+		squareGroup.sendToBack();
+		assert tracker.getDamagedRegions().size() == 2;
+		tracker.clear();
+		
+		tracker.detach();
+		square.setColor(Color.GREEN);
+		assert !tracker.isDamaged();
+		drawit.shapegroups1.DamageTracker otherTracker = new drawit.shapegroups1.DamageTracker(root);
+		square.setColor(Color.BLUE);
+		assert otherTracker.isDamaged();
+		
+		RoundedPolygon otherSquare = new RoundedPolygon();
+		otherSquare.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 10), new IntPoint(0, 10)});
+		RoundedPolygon otherTriangle = new RoundedPolygon();
+		otherTriangle.setVertices(new IntPoint[]{new IntPoint(20, 0), new IntPoint(30, 0), new IntPoint(20, 10)});
+		drawit.shapegroups2.LeafShapeGroup otherSquareGroup = new drawit.shapegroups2.LeafShapeGroup(otherSquare);
+		drawit.shapegroups2.LeafShapeGroup otherTriangleGroup = new drawit.shapegroups2.LeafShapeGroup(otherTriangle);
+		drawit.shapegroups2.NonleafShapeGroup otherRoot = new drawit.shapegroups2.NonleafShapeGroup(
+				new drawit.shapegroups2.ShapeGroup[] {otherSquareGroup, otherTriangleGroup});
+		drawit.shapegroups2.DamageTracker tracker2 = new drawit.shapegroups2.DamageTracker(otherRoot);
+		otherTriangleGroup.bringToFront();
+		assert tracker2.getDamagedRegions().equals(List.of(drawit.shapegroups2.Extent.ofLeftTopRightBottom(20, 0, 30, 10)));
+		assert tracker2.getDamagedShapes().equals(List.of(otherTriangleGroup));
+		otherSquareGroup.setExtent(drawit.shapegroups2.Extent.ofLeftTopRightBottom(5, 0, 25, 10));
+		assert tracker2.getDamagedRegions().equals(List.of(drawit.shapegroups2.Extent.ofLeftTopRightBottom(0, 0, 30, 10)));
+		assert tracker2.getDamagedShapes().equals(List.of(otherSquareGroup, otherTriangleGroup));
+		
+		// A vertex moved outside the extent of its group is damaged again when the group is moved.
+		RoundedPolygon farTriangle = new RoundedPolygon();
+		farTriangle.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(0, 10)});
+		drawit.shapegroups1.LeafShapeGroup farLeaf = new drawit.shapegroups1.LeafShapeGroup(farTriangle);
+		drawit.shapegroups1.NonleafShapeGroup farRoot = new drawit.shapegroups1.NonleafShapeGroup(
+				new drawit.shapegroups1.ShapeGroup[] {new drawit.shapegroups1.LeafShapeGroup(square), farLeaf});
+		drawit.shapegroups1.DamageTracker farTracker = new drawit.shapegroups1.DamageTracker(farRoot);
+		farTriangle.update(1, new IntPoint(100, 0));
+		farTracker.clear();
+		farLeaf.setExtent(drawit.shapegroups1.Extent.ofLeftTopRightBottom(0, 50, 10, 60));
+		assert farTracker.getDamagedRegions().equals(List.of(
+				drawit.shapegroups1.Extent.ofLeftTopRightBottom(0, 0, 100, 10),
+				drawit.shapegroups1.Extent.ofLeftTopRightBottom(0, 50, 100, 60)));
+		
+		RoundedPolygon otherFarTriangle = new RoundedPolygon();
+		otherFarTriangle.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(0, 10)});
+		drawit.shapegroups2.LeafShapeGroup otherFarLeaf = new drawit.shapegroups2.LeafShapeGroup(otherFarTriangle);
+		drawit.shapegroups2.NonleafShapeGroup otherFarRoot = new drawit.shapegroups2.NonleafShapeGroup(
+				new drawit.shapegroups2.ShapeGroup[] {new drawit.shapegroups2.LeafShapeGroup(square), otherFarLeaf});
+		drawit.shapegroups2.DamageTracker otherFarTracker = new drawit.shapegroups2.DamageTracker(otherFarRoot);
+		otherFarTriangle.update(1, new IntPoint(100, 0));
+		otherFarTracker.clear();
+		otherFarLeaf.bringToFront();
+		assert otherFarTracker.getDamagedRegions().equals(List.of(drawit.shapegroups2.Extent.ofLeftTopRightBottom(0, 0, 100, 10)));
+		otherFarTracker.clear();
+		otherFarLeaf.setExtent(drawit.shapegroups2.Extent.ofLeftTopRightBottom(0, 50, 10, 60));
+		assert otherFarTracker.getDamagedRegions().equals(List.of(
+				drawit.shapegroups2.Extent.ofLeftTopRightBottom(0, 0, 100, 10),
+				drawit.shapegroups2.Extent.ofLeftTopRightBottom(0, 50, 100, 60)));
+	}
+	
+	@Test
+	void testRasterizer() {
+		RoundedPolygon triangle = new RoundedPolygon();
+		triangle.setVertices(new IntPoint[]{new IntPoint(2, 2), new IntPoint(12, 2), new IntPoint(2, 12)});
+		triangle.setColor(Color.RED);
+		drawit.shapegroups1.LeafShapeGroup group = new drawit.shapegroups1.LeafShapeGroup(triangle);
+		
+		// A pixel is blended by the fraction of it that is covered: the diagonal edge cuts pixel (8, 5) in half.
+		int[] framebuffer = new int[20 * 20];
+		new drawit.Rasterizer().render(group.getDisplayList(), framebuffer, 20, 20);
+		assert framebuffer[5 * 20 + 5] == 0xFFFF0000;
+		assert framebuffer[5 * 20 + 1] == 0;
+		assert framebuffer[10 * 20 + 10] == 0;
+		assert framebuffer[5 * 20 + 8] == 0x80FF0000;
+		
+		// The result does not depend on how the framebuffer is divided into tiles.
+		int[] tiledFramebuffer = new int[20 * 20];
+		new drawit.Rasterizer(3, java.util.concurrent.ForkJoinPool.commonPool()).render(group.getDisplayList(), tiledFramebuffer, 20, 20);
+		assert Arrays.equals(framebuffer, tiledFramebuffer);
+		
+		// An outline that encloses another is filled by the even-odd rule, leaving a hole; fills are blended over the framebuffer.
+		drawit.DisplayListBuilder builder = new drawit.DisplayListBuilder();
+		int[][] squares = {{0, 0, 20, 20}, {5, 5, 15, 15}};
+		for (int[] s : squares) {
+			builder.line(s[0], s[1], s[2], s[1]);
+			builder.line(s[2], s[1], s[2], s[3]);
+			builder.line(s[2], s[3], s[0], s[3]);
+			builder.line(s[0], s[3], s[0], s[1]);
+		}
+		builder.fill(0, 0, 255);
+		new drawit.Rasterizer().render(builder.build(), framebuffer, 20, 20);
+		assert framebuffer[2 * 20 + 2] == 0xFF0000FF;
+		assert framebuffer[6 * 20 + 6] == 0xFFFF0000;
+		assert framebuffer[10 * 20 + 10] == 0;
+		
+		boolean thrown = false;
+		try {
+			new drawit.Rasterizer().render(drawit.DisplayList.EMPTY, framebuffer, 20, 21);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		assert thrown;
+	}
+	
+	@Test
+	void testDrawingCommandInterpreter() throws IOException {
+		RoundedPolygon square = new RoundedPolygon();
+		square.setVertices(new IntPoint[]{new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 10), new IntPoint(0, 10)});
+		square.setRadius(2);
+		drawit.shapegroups1.LeafShapeGroup group = new drawit.shapegroups1.LeafShapeGroup(square);
+		group.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(100, 50, 20, 30));
+		
+		// Interpreting the text gives exactly the commands the shape group passes to a consumer.
+		RecordingConsumer expected = new RecordingConsumer();
+		RecordingConsumer actual = new RecordingConsumer();
+		group.forEachDrawingCommand(expected);
+		drawit.DrawingCommandInterpreter.interpret(group.getDrawingCommands(), actual);
+		assert actual.commands.equals(expected.commands);
+		
+		drawit.DrawingCommandCounter counter = new drawit.DrawingCommandCounter();
+		drawit.DrawingCommandInterpreter.interpret(new java.io.StringReader(group.getDrawingCommands()), counter);
+		assert counter.getTransformCount() == 2;
+		assert counter.getLineCount() == 4;
+		assert counter.getArcCount() == 4;
+		assert counter.getFillCount() == 1;
+		assert counter.getCommandCount() == 13;
+		
+		// The bounding box is expressed in the coordinates the commands start in.
+		drawit.BoundingBoxDrawingCommandConsumer box = new drawit.BoundingBoxDrawingCommandConsumer();
+		assert box.isEmpty();
+		drawit.DrawingCommandInterpreter.interpret(group.getDrawingCommands(), box);
+		assert box.getLeft() == 100 && box.getTop() == 50 && box.getRight() == 120 && box.getBottom() == 80;
+		box = new drawit.BoundingBoxDrawingCommandConsumer();
+		drawit.DrawingCommandInterpreter.interpret("arc 0 0 10 0.5 1.5", box);
+		assert box.getRight() < 10 && box.getTop() > 0 && box.getBottom() == 10;
+		
+		java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(200, 100, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+		java.awt.Graphics2D graphics = image.createGraphics();
+		drawit.DrawingCommandInterpreter.interpret(group.getDrawingCommands(), new drawit.Graphics2DDrawingCommandConsumer(graphics));
+		graphics.dispose();
+		assert image.getRGB(110, 65) == 0xFFFFFFFF;
+		assert image.getRGB(100, 50) == 0;
+		
+		String[] malformed = {"popTransform", "pushScale 2 2", "line 1 2 3", "fill 256 0 0", "fill 1.5 0 0", "arc 0 0 1 0 x", "move 0 0"};
+		for (String commands : malformed) {
+			boolean thrown = false;
+			try {
+				drawit.DrawingCommandInterpreter.interpret(commands, new drawit.DrawingCommandCounter());
+			} catch (IllegalArgumentException e) {
+				thrown = true;
+			}
+			assert thrown;
+		}
+		boolean thrown = false;
+		try {
+			drawit.DrawingCommandInterpreter.interpret(new java.io.StringReader("line 0 0 1"), new drawit.DrawingCommandCounter());
+		} catch (IOException e) {
+			thrown = true;
+		}
+		assert thrown;
 	}
 	
 	@Test
@@ -700,10 +1324,25 @@ class DrawItTest {
 		assert extent21.toString().equals("Extent[L:50 T:20 R:80 B:40]");
 		assert extent19.toString().equals("Extent[L:30 T:30 R:35 B:40]");
 		assert extent22.toString().equals("Extent[L:30 T:30 R:35 B:40]");
+		
+		// Extent: intersects, intersection
+		drawit.shapegroups1.Extent extent23 = drawit.shapegroups1.Extent.ofLeftTopRightBottom(35, 10, 60, 30);
+		drawit.shapegroups2.Extent extent24 = drawit.shapegroups2.Extent.ofLeftTopRightBottom(35, 10, 60, 30);
+		assert extent17.intersects(extent23) && extent23.intersects(extent17);
+		assert extent20.intersects(extent24) && extent24.intersects(extent20);
+		assert extent17.intersection(extent23).equals(drawit.shapegroups1.Extent.ofLeftTopRightBottom(50, 20, 60, 30));
+		assert extent20.intersection(extent24).equals(drawit.shapegroups2.Extent.ofLeftTopRightBottom(50, 20, 60, 30));
+		assert extent17.intersection(extent17).equals(extent17);
+		assert extent20.intersection(extent20).equals(extent20);
+		// Extents that only share an edge intersect, but have no nonempty intersection.
+		assert extent19.intersects(extent23) && extent19.intersection(extent23) == null;
+		assert extent22.intersects(extent24) && extent22.intersection(extent24) == null;
+		assert !extent17.intersects(extent19) && extent17.intersection(extent19) == null;
+		assert !extent20.intersects(extent22) && extent20.intersection(extent22) == null;
 	}
 	
 	@Test
-	void testShapeGroup() {
+	void testShapeGroup() throws IOException {
 		RoundedPolygon triangle = new RoundedPolygon();
 		triangle.setVertices(new IntPoint[] {new IntPoint(10, 10), new IntPoint(30, 10), new IntPoint(20, 20)});
 		
@@ -752,9 +1391,75 @@ class DrawItTest {
 		assert di2leaf1.toInnerCoordinates(new IntPoint(500, 1000)).equals(new IntPoint(10, 10));
 		assert di1leaf1.toGlobalCoordinates(new IntPoint(10, 10)).equals(new IntPoint(500, 1000));
 		assert di2leaf1.toGlobalCoordinates(new IntPoint(10, 10)).equals(new IntPoint(500, 1000));
+		
+		// The conversions follow changes to the extents of ancestors.
+		di1nonLeaf.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(100, 100, 20, 10));
+		di2nonLeaf.setExtent(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(100, 100, 20, 10));
+		assert di1leaf1.toGlobalCoordinates(new IntPoint(10, 10)).equals(new IntPoint(1100, 2100));
+		assert di2leaf1.toGlobalCoordinates(new IntPoint(10, 10)).equals(new IntPoint(1100, 2100));
+		assert di1leaf1.toInnerCoordinates(new IntPoint(1100, 2100)).equals(new IntPoint(10, 10));
+		assert di2leaf1.toInnerCoordinates(new IntPoint(1100, 2100)).equals(new IntPoint(10, 10));
+		di1nonLeaf.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(0, 0, 10, 5));
+		di2nonLeaf.setExtent(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(0, 0, 10, 5));
+		assert di1leaf1.toInnerCoordinates(new IntVector(30, 30)).getX() == 60 && di1leaf1.toInnerCoordinates(new IntVector(30, 30)).getY() == 60;
+		assert di2leaf1.toInnerCoordinates(new IntVector(30, 30)).getX() == 60 && di2leaf1.toInnerCoordinates(new IntVector(30, 30)).getY() == 60;
+
+		// Large coordinates are truncated, not rounded: 312777361 * 31 / 20 is 484804909.55.
+		RoundedPolygon largeTriangle = new RoundedPolygon();
+		largeTriangle.setVertices(new IntPoint[] {new IntPoint(0, 0), new IntPoint(20, 0), new IntPoint(0, 20)});
+		drawit.shapegroups1.LeafShapeGroup di1large = new drawit.shapegroups1.LeafShapeGroup(largeTriangle);
+		drawit.shapegroups2.LeafShapeGroup di2large = new drawit.shapegroups2.LeafShapeGroup(largeTriangle);
+		di1large.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(0, 0, 31, 31));
+		di2large.setExtent(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(0, 0, 31, 31));
+		assert di1large.toGlobalCoordinates(new IntPoint(312777361, 20)).equals(new IntPoint(484804909, 31));
+		assert di2large.toGlobalCoordinates(new IntPoint(312777361, 20)).equals(new IntPoint(484804909, 31));
+		assert di1large.toInnerCoordinates(new IntPoint(484804909, 31)).equals(new IntPoint(312777360, 20));
+		assert di2large.toInnerCoordinates(new IntPoint(484804909, 31)).equals(new IntPoint(312777360, 20));
+		
+		// A group's conversions follow the extent of a parent it got after they were first used.
+		drawit.shapegroups1.NonleafShapeGroup di1largeParent = new drawit.shapegroups1.NonleafShapeGroup(new drawit.shapegroups1.ShapeGroup[] {di1large, new drawit.shapegroups1.LeafShapeGroup(largeTriangle)});
+		drawit.shapegroups2.NonleafShapeGroup di2largeParent = new drawit.shapegroups2.NonleafShapeGroup(new drawit.shapegroups2.ShapeGroup[] {di2large, new drawit.shapegroups2.LeafShapeGroup(largeTriangle)});
+		di1largeParent.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(0, 0, 62, 62));
+		di2largeParent.setExtent(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(0, 0, 62, 62));
+		assert di1large.toGlobalCoordinates(new IntPoint(20, 20)).equals(new IntPoint(62, 62));
+		assert di2large.toGlobalCoordinates(new IntPoint(20, 20)).equals(new IntPoint(62, 62));
+		
+		// ShapeGroup: batch toGlobalCoordinates, toInnerCoordinates tests
+		boolean thrown;
+		int[] batchXs = {10, 11, 17, 999};
+		int[] batchYs = {10, 13, 3, 999};
+		int[] globalXs = new int[2];
+		int[] globalYs = new int[2];
+		di1leaf1.toGlobalCoordinates(batchXs, batchYs, 1, 3, globalXs, globalYs, 0);
+		assert globalXs[0] == di1leaf1.toGlobalCoordinates(new IntPoint(11, 13)).getX() && globalYs[0] == di1leaf1.toGlobalCoordinates(new IntPoint(11, 13)).getY();
+		assert globalXs[1] == di1leaf1.toGlobalCoordinates(new IntPoint(17, 3)).getX() && globalYs[1] == di1leaf1.toGlobalCoordinates(new IntPoint(17, 3)).getY();
+		di2leaf1.toGlobalCoordinates(batchXs, batchYs, 0, 3);
+		assert batchXs[0] == di2leaf1.toGlobalCoordinates(new IntPoint(10, 10)).getX() && batchYs[0] == di2leaf1.toGlobalCoordinates(new IntPoint(10, 10)).getY() && batchXs[3] == 999 && batchYs[3] == 999;
+		assert batchXs[1] == globalXs[0] && batchYs[1] == globalYs[0] && batchXs[2] == globalXs[1] && batchYs[2] == globalYs[1];
+		// Overlapping ranges in the same arrays behave as if the points were copied first.
+		IntPoint inner0 = di2leaf1.toInnerCoordinates(new IntPoint(batchXs[0], batchYs[0]));
+		IntPoint inner2 = di2leaf1.toInnerCoordinates(new IntPoint(batchXs[2], batchYs[2]));
+		di2leaf1.toInnerCoordinates(batchXs, batchYs, 0, 3, batchXs, batchYs, 1);
+		assert batchXs[1] == inner0.getX() && batchYs[1] == inner0.getY() && batchXs[3] == inner2.getX() && batchYs[3] == inner2.getY();
+		assert batchXs[1] == 10 && batchYs[1] == 10;
+		di1leaf1.toInnerCoordinates(batchXs, batchYs, 2, 2);
+		thrown = false;
+		try {
+			di1leaf1.toGlobalCoordinates(batchXs, batchYs, 2, 5);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		assert thrown;
+		thrown = false;
+		try {
+			di2leaf1.toInnerCoordinates(batchXs, batchYs, 0, 3, globalXs, globalYs, 0);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		assert thrown;
 
 		// ShapeGroup: constructor exceptions tests
-		boolean thrown = false;
+		thrown = false;
 		try {
 			RoundedPolygon nullPolygon = null;
 			drawit.shapegroups1.ShapeGroup excGroup = new drawit.shapegroups1.LeafShapeGroup(nullPolygon);
@@ -990,6 +1695,164 @@ class DrawItTest {
 		assert di2sg100.toInnerCoordinates(new IntVector(100, 100)).getX() == 50 && di2sg100.toInnerCoordinates(new IntVector(100, 100)).getY() == 50;
 		
 		// ShapeGroup: getDrawingCommands tests
+		String di1sg100Commands = di1sg100.getDrawingCommands();
+		assert di1sg100Commands.equals(
+				"pushTranslate 50 50\n" +
+				"pushScale 2.0 2.0\n" +
+				"pushTranslate -50 -50\n" +
+				rp100.getDrawingCommands() + "\n" +
+				"popTransform\npopTransform\npopTransform");
+		assert di2sg100.getDrawingCommands().equals(di1sg100Commands);
+		
+		// ShapeGroup: writeDrawingCommands tests
+		StringBuilder di1Commands = new StringBuilder("header\n");
+		di1sg100.writeDrawingCommands(di1Commands);
+		assert di1Commands.toString().equals("header\n" + di1sg100Commands);
+		StringBuilder di2Commands = new StringBuilder();
+		di2psg.writeDrawingCommands(di2Commands);
+		assert di2Commands.toString().equals(di2psg.getDrawingCommands());
+		StringBuilder rp100Commands = new StringBuilder();
+		rp100.writeDrawingCommands(rp100Commands);
+		assert rp100Commands.toString().equals(rp100.getDrawingCommands());
+		
+		// ShapeGroup: cached drawing commands follow changes to extents, order and shapes
+		String di2psgCommands = di2psg.getDrawingCommands();
+		assert di2psg.getDrawingCommands().equals(di2psgCommands);
+		di2psg.getSubgroup(3).bringToFront();
+		assert !di2psg.getDrawingCommands().equals(di2psgCommands);
+		di2psg.getSubgroup(0).sendToBack();
+		assert di2psg.getDrawingCommands().equals(di2psgCommands);
+		rp100.setRadius(5);
+		assert di1sg100.getDrawingCommands().contains(rp100.getDrawingCommands());
+		assert di2sg100.getDrawingCommands().contains(rp100.getDrawingCommands());
+		di1sg100.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(0, 0, 50, 50));
+		assert di1sg100.getDrawingCommands().equals("pushTranslate -50 -50\n" + rp100.getDrawingCommands() + "\npopTransform");
+		// A shape group stops listening to its shape once the drawing is dropped and listens again when it is redrawn.
+		rp100.setRadius(6);
+		rp100.setRadius(7);
+		assert di1sg100.getDrawingCommands().contains(rp100.getDrawingCommands());
+		rp100.setRadius(8);
+		assert di1sg100.getDrawingCommands().contains(rp100.getDrawingCommands());
+		assert di2sg100.getDrawingCommands().contains(rp100.getDrawingCommands());
+		
+		// ShapeGroup: getDrawingCommands with a viewport
+		RoundedPolygon rp101 = new RoundedPolygon();
+		rp101.setVertices(new IntPoint[] {new IntPoint(200, 0), new IntPoint(210, 0), new IntPoint(210, 10)});
+		drawit.shapegroups1.LeafShapeGroup di1sg101 = new drawit.shapegroups1.LeafShapeGroup(rp101);
+		drawit.shapegroups1.NonleafShapeGroup di1sg102 = new drawit.shapegroups1.NonleafShapeGroup(new drawit.shapegroups1.ShapeGroup[] {di1sg100, di1sg101});
+		drawit.shapegroups2.LeafShapeGroup di2sg101 = new drawit.shapegroups2.LeafShapeGroup(rp101);
+		drawit.shapegroups2.NonleafShapeGroup di2sg102 = new drawit.shapegroups2.NonleafShapeGroup(new drawit.shapegroups2.ShapeGroup[] {di2sg100, di2sg101});
+		assert di1sg102.getDrawingCommands(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(-1000, -1000, 2000, 2000)).equals(di1sg102.getDrawingCommands());
+		assert di2sg102.getDrawingCommands(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(-1000, -1000, 2000, 2000)).equals(di2sg102.getDrawingCommands());
+		assert di1sg102.getDrawingCommands(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(205, 5, 100, 100)).equals(di1sg101.getDrawingCommands() + "\n");
+		assert di2sg102.getDrawingCommands(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(205, 5, 100, 100)).equals(di2sg101.getDrawingCommands() + "\n");
+		assert di1sg102.getDrawingCommands(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(300, 300, 10, 10)).isEmpty();
+		assert di2sg102.getDrawingCommands(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(300, 300, 10, 10)).isEmpty();
+		// The viewport is in global coordinates, also for a subgroup of a scaled and moved group.
+		RoundedPolygon rp103 = new RoundedPolygon();
+		rp103.setVertices(new IntPoint[] {new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(0, 10)});
+		RoundedPolygon rp104 = new RoundedPolygon();
+		rp104.setVertices(new IntPoint[] {new IntPoint(100, 0), new IntPoint(110, 0), new IntPoint(100, 10)});
+		drawit.shapegroups1.LeafShapeGroup di1sg104 = new drawit.shapegroups1.LeafShapeGroup(rp104);
+		drawit.shapegroups1.NonleafShapeGroup di1sg105 = new drawit.shapegroups1.NonleafShapeGroup(
+				new drawit.shapegroups1.ShapeGroup[] {new drawit.shapegroups1.LeafShapeGroup(rp103), di1sg104});
+		di1sg105.setExtent(drawit.shapegroups1.Extent.ofLeftTopRightBottom(1000, 0, 1220, 20));
+		assert di1sg104.getDrawingCommands(drawit.shapegroups1.Extent.ofLeftTopRightBottom(1210, 5, 1230, 30)).equals(di1sg104.getDrawingCommands());
+		assert di1sg104.getDrawingCommands(drawit.shapegroups1.Extent.ofLeftTopRightBottom(100, 0, 110, 10)).isEmpty();
+		drawit.shapegroups2.LeafShapeGroup di2sg104 = new drawit.shapegroups2.LeafShapeGroup(rp104);
+		drawit.shapegroups2.NonleafShapeGroup di2sg105 = new drawit.shapegroups2.NonleafShapeGroup(
+				new drawit.shapegroups2.ShapeGroup[] {new drawit.shapegroups2.LeafShapeGroup(rp103), di2sg104});
+		di2sg105.setExtent(drawit.shapegroups2.Extent.ofLeftTopRightBottom(1000, 0, 1220, 20));
+		assert di2sg104.getDrawingCommands(drawit.shapegroups2.Extent.ofLeftTopRightBottom(1210, 5, 1230, 30)).equals(di2sg104.getDrawingCommands());
+		assert di2sg104.getDrawingCommands(drawit.shapegroups2.Extent.ofLeftTopRightBottom(100, 0, 110, 10)).isEmpty();
+		
+		// ShapeGroup: getDrawingCommands at a scale
+		assert di1sg102.getDrawingCommands(1.0).equals(di1sg102.getDrawingCommands());
+		assert di2sg102.getDrawingCommands(1.0).equals(di2sg102.getDrawingCommands());
+		di1sg101.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(200, 0, 10000, 10000));
+		assert di1sg102.getDrawingCommands(0.001).contains(rp101.getDrawingCommands(1.0));
+		assert di1sg102.getDrawingCommands(0.001).contains(rp100.getDrawingCommands(0.001));
+		
+		// NonleafShapeGroup: getSubgroupAt with enough subgroups to be indexed
+		drawit.shapegroups1.ShapeGroup[] di1grid = new drawit.shapegroups1.ShapeGroup[100];
+		drawit.shapegroups2.ShapeGroup[] di2grid = new drawit.shapegroups2.ShapeGroup[100];
+		for (int i = 0; i < 100; i++) {
+			RoundedPolygon cell = new RoundedPolygon();
+			int x = i % 10 * 10;
+			int y = i / 10 * 10;
+			cell.setVertices(new IntPoint[] {new IntPoint(x, y), new IntPoint(x + 10, y), new IntPoint(x + 10, y + 10), new IntPoint(x, y + 10)});
+			di1grid[i] = new drawit.shapegroups1.LeafShapeGroup(cell);
+			di2grid[i] = new drawit.shapegroups2.LeafShapeGroup(cell);
+		}
+		drawit.shapegroups1.NonleafShapeGroup di1gridGroup = new drawit.shapegroups1.NonleafShapeGroup(di1grid);
+		drawit.shapegroups2.NonleafShapeGroup di2gridGroup = new drawit.shapegroups2.NonleafShapeGroup(di2grid);
+		assert di1gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di1grid[35];
+		assert di2gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di2grid[35];
+		assert di1gridGroup.getSubgroupAt(new IntPoint(150, 35)) == null;
+		assert di2gridGroup.getSubgroupAt(new IntPoint(150, 35)) == null;
+		// On a shared border, the subgroup with the lowest index wins.
+		assert di1gridGroup.getSubgroupAt(new IntPoint(60, 30)) == di1grid[25];
+		assert di2gridGroup.getSubgroupAt(new IntPoint(60, 30)) == di2grid[25];
+		di1grid[99].setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(50, 30, 10, 10));
+		di2grid[99].setExtent(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(50, 30, 10, 10));
+		assert di1gridGroup.getSubgroupAt(new IntPoint(95, 95)) == null;
+		assert di2gridGroup.getSubgroupAt(new IntPoint(95, 95)) == null;
+		assert di1gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di1grid[35];
+		assert di2gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di2grid[35];
+		di1grid[99].bringToFront();
+		di2grid[99].bringToFront();
+		assert di1gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di1grid[99];
+		assert di2gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di2grid[99];
+		di1grid[99].sendToBack();
+		di2grid[99].sendToBack();
+		assert di1gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di1grid[35];
+		assert di2gridGroup.getSubgroupAt(new IntPoint(55, 35)) == di2grid[35];
+		
+		// ShapeGroup: hitTest
+		RoundedPolygon lShape = new RoundedPolygon();
+		lShape.setVertices(new IntPoint[] {new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 4), new IntPoint(4, 4), new IntPoint(4, 10), new IntPoint(0, 10)});
+		RoundedPolygon backSquare = new RoundedPolygon();
+		backSquare.setVertices(new IntPoint[] {new IntPoint(0, 0), new IntPoint(10, 0), new IntPoint(10, 10), new IntPoint(0, 10)});
+		drawit.shapegroups1.LeafShapeGroup di1lShape = new drawit.shapegroups1.LeafShapeGroup(lShape);
+		drawit.shapegroups1.LeafShapeGroup di1backSquare = new drawit.shapegroups1.LeafShapeGroup(backSquare);
+		drawit.shapegroups1.NonleafShapeGroup di1scene = new drawit.shapegroups1.NonleafShapeGroup(new drawit.shapegroups1.ShapeGroup[] {di1lShape, di1backSquare});
+		drawit.shapegroups2.LeafShapeGroup di2lShape = new drawit.shapegroups2.LeafShapeGroup(lShape);
+		drawit.shapegroups2.LeafShapeGroup di2backSquare = new drawit.shapegroups2.LeafShapeGroup(backSquare);
+		drawit.shapegroups2.NonleafShapeGroup di2scene = new drawit.shapegroups2.NonleafShapeGroup(new drawit.shapegroups2.ShapeGroup[] {di2lShape, di2backSquare});
+		di1scene.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(100, 100, 20, 20));
+		di2scene.setExtent(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(100, 100, 20, 20));
+		assert di1scene.hitTest(new IntPoint(102, 102)).getLeafGroup() == di1lShape;
+		assert di2scene.hitTest(new IntPoint(102, 102)).getLeafGroup() == di2lShape;
+		assert di1scene.hitTest(new IntPoint(102, 102)).getInnerCoordinates().equals(new IntPoint(1, 1));
+		assert di2scene.hitTest(new IntPoint(102, 102)).getInnerCoordinates().equals(new IntPoint(1, 1));
+		// A point within the extent of the front shape but outside the shape itself falls through to the shape behind it.
+		assert di1scene.hitTest(new IntPoint(116, 116)).getLeafGroup() == di1backSquare;
+		assert di2scene.hitTest(new IntPoint(116, 116)).getLeafGroup() == di2backSquare;
+		assert di1scene.hitTest(new IntPoint(130, 130)) == null;
+		assert di2scene.hitTest(new IntPoint(130, 130)) == null;
+		// The cached bounds follow changes to the shapes and the extents.
+		backSquare.update(2, new IntPoint(20, 20));
+		assert di1scene.hitTest(new IntPoint(130, 130)).getLeafGroup() == di1backSquare;
+		assert di2scene.hitTest(new IntPoint(130, 130)).getLeafGroup() == di2backSquare;
+		di1backSquare.bringToFront();
+		di2backSquare.bringToFront();
+		assert di1scene.hitTest(new IntPoint(102, 102)).getLeafGroup() == di1backSquare;
+		assert di2scene.hitTest(new IntPoint(102, 102)).getLeafGroup() == di2backSquare;
+		di1backSquare.setExtent(drawit.shapegroups1.Extent.ofLeftTopWidthHeight(50, 50, 20, 20));
+		di2backSquare.setExtent(drawit.shapegroups2.Extent.ofLeftTopWidthHeight(50, 50, 20, 20));
+		assert di1scene.hitTest(new IntPoint(116, 116)) == null;
+		assert di2scene.hitTest(new IntPoint(116, 116)) == null;
+		assert di1scene.hitTest(new IntPoint(102, 102)).getLeafGroup() == di1lShape;
+		assert di2scene.hitTest(new IntPoint(102, 102)).getLeafGroup() == di2lShape;
+		assert di1scene.hitTest(new IntPoint(210, 210)).getLeafGroup() == di1backSquare;
+		assert di2scene.hitTest(new IntPoint(210, 210)).getLeafGroup() == di2backSquare;
+		thrown = false;
+		try {
+			di1scene.hitTest(null);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		assert thrown;
 	}
 	
 	@Test